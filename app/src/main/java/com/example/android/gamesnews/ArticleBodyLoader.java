@@ -0,0 +1,109 @@
+package com.example.android.gamesnews;
+
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+import com.example.android.gamesnews.data.ArticleBodies;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.Metrics;
+
+
+/**
+ * Loads the body of one article for the reader: from the offline store if it was
+ * prefetched, otherwise from the network, storing it for the next time.
+ */
+public class ArticleBodyLoader extends AsyncTaskLoader<String> {
+
+    private final String mUrl;
+
+    private final ArticleBodies mBodies;
+
+    /**
+     * The body last delivered, null until it's loaded or if it couldn't be
+     */
+    private String mBody;
+
+    /**
+     * True once the load finished, whether it found the body or not
+     */
+    private boolean mLoaded;
+
+    /**
+     * Cancellation of the load running in the background
+     */
+    private volatile Cancellation mCancellation;
+
+    /**
+     * Constructs a new {@link ArticleBodyLoader}.
+     *
+     * @param context of the activity
+     * @param url     of the article
+     */
+    public ArticleBodyLoader(Context context, String url) {
+        super(context);
+        mUrl = url;
+        mBodies = FeedRequests.articleBodies(context);
+    }
+
+    @Override
+    protected void onStartLoading() {
+        // A body doesn't change while it's read
+        if (mLoaded) {
+            deliverResult(mBody);
+        }
+        if (takeContentChanged() || !mLoaded) {
+            forceLoad();
+        }
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public String loadInBackground() {
+        Cancellation cancellation = new Cancellation();
+        mCancellation = cancellation;
+        if (isLoadInBackgroundCanceled()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            return mBodies.load(mUrl, cancellation);
+        } finally {
+            Metrics.timer(Metrics.READER_OPEN).stop(start);
+        }
+    }
+
+    /**
+     * This is on the main thread.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        Cancellation cancellation = mCancellation;
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+
+    @Override
+    public void deliverResult(String body) {
+        if (isReset()) {
+            return;
+        }
+        mBody = body;
+        mLoaded = true;
+        if (isStarted()) {
+            super.deliverResult(body);
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelLoad();
+        mBody = null;
+        mLoaded = false;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.android.gamesnews;
+
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.android.gamesnews.data.ArticleCache;
+import com.example.android.gamesnews.data.ArticleRepository;
+import com.example.android.gamesnews.data.ArticleStore;
+import com.example.android.gamesnews.data.FeedAggregator;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Loads the "my feed" list: several sections fetched in parallel and merged into one
+ * list ordered by publication time. The merged feed is delivered every time another
+ * section arrives, so the list fills up while slower sections are still loading.
+ * <p>
+ * Like {@link GameLoader}, the feed is kept and only loaded again once its most short
+ * lived section turned stale, and cancelling the loader cancels every section request.
+ */
+public class FeedLoader extends AsyncTaskLoader<GamesResponse> {
+
+    /**
+     * Number of sections fetched at the same time
+     */
+    private static final int MAX_PARALLEL_SECTIONS = 3;
+
+    /**
+     * How long a single section may take before it's left out of the feed
+     */
+    private static final long SECTION_TIMEOUT_MILLIS = 8000;
+
+    private static final ExecutorService SECTION_EXECUTOR =
+            Executors.newFixedThreadPool(MAX_PARALLEL_SECTIONS);
+    private static final ScheduledExecutorService TIMEOUT_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Query URL of every section, by section
+     */
+    private final Map<String, String> mSectionUrls;
+
+    private final ArticleRepository mRepository;
+
+    /**
+     * How long the feed is considered fresh, the shortest time to live of its sections
+     */
+    private final long mTtlMillis;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The feed last delivered to the activity
+     */
+    private GamesResponse mResponse;
+
+    /**
+     * When the feed last delivered was loaded
+     */
+    private volatile long mLoadedAt;
+
+    /**
+     * Cancellation of the load running in the background, shared by its sections
+     */
+    private volatile Cancellation mCancellation;
+
+    /**
+     * Constructs a new {@link FeedLoader}.
+     *
+     * @param context     of the activity
+     * @param sectionUrls is the query URL of every section, by section
+     */
+    public FeedLoader(Context context, Map<String, String> sectionUrls) {
+        super(context);
+        mSectionUrls = sectionUrls;
+        mRepository = ArticleRepository.getInstance(context.getCacheDir(),
+                ArticleStore.getInstance(context));
+        long ttl = Long.MAX_VALUE;
+        for (String section : sectionUrls.keySet()) {
+            ttl = Math.min(ttl, ArticleCache.ttlForSection(section));
+        }
+        mTtlMillis = ttl;
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (mResponse != null) {
+            super.deliverResult(mResponse);
+        }
+        // Returning to the activity only loads if there's nothing yet or it turned stale
+        if (takeContentChanged() || mResponse == null
+                || System.currentTimeMillis() - mLoadedAt > mTtlMillis) {
+            forceLoad();
+        }
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public GamesResponse loadInBackground() {
+        final Cancellation cancellation = new Cancellation();
+        mCancellation = cancellation;
+        if (isLoadInBackgroundCanceled()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        FeedAggregator aggregator =
+                new FeedAggregator(SECTION_EXECUTOR, TIMEOUT_EXECUTOR, SECTION_TIMEOUT_MILLIS);
+        try {
+            List<Games> feed = aggregator.fetch(new ArrayList<>(mSectionUrls.keySet()),
+                    new FeedAggregator.SectionFetcher() {
+                        @Override
+                        public List<Games> fetch(String section) {
+                            return mRepository.load(mSectionUrls.get(section), cancellation)
+                                    .getGames();
+                        }
+                    },
+                    new FeedAggregator.Listener() {
+                        @Override
+                        public void onPartialFeed(List<Games> feed, int sectionsDone, int sectionsTotal) {
+                            if (sectionsDone < sectionsTotal && !feed.isEmpty()
+                                    && !cancellation.isCancelled()) {
+                                publishPartial(feed);
+                            }
+                        }
+                    });
+            mLoadedAt = System.currentTimeMillis();
+            return toResponse(feed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return toResponse(null);
+        } finally {
+            Metrics.timer(Metrics.LOAD).stop(start);
+        }
+    }
+
+    /**
+     * This is on the main thread.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        Cancellation cancellation = mCancellation;
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+
+    @Override
+    public void deliverResult(GamesResponse response) {
+        if (isReset()) {
+            return;
+        }
+        mResponse = response;
+        if (isStarted()) {
+            super.deliverResult(response);
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelLoad();
+        mResponse = null;
+        mLoadedAt = 0;
+    }
+
+    /**
+     * Hand a partial feed to the activity from the main thread.
+     */
+    private void publishPartial(List<Games> feed) {
+        final GamesResponse partial = toResponse(feed);
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                deliverResult(partial);
+            }
+        });
+    }
+
+    /**
+     * The merged feed is a single page.
+     */
+    private static GamesResponse toResponse(List<Games> feed) {
+        return new GamesResponse(feed, false, null, null, 1, 1);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.android.gamesnews;
+
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.android.gamesnews.data.ArticleCache;
+import com.example.android.gamesnews.data.ArticleRepository;
+import com.example.android.gamesnews.data.ArticleStore;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * Reads the feed persisted by the last run while the activity inflates its layout, so the
+ * first frame can already show articles.
+ * <p>
+ * The first page comes from the cache entry of the request the list is about to make, or,
+ * for "my feed" and when there is none, from the newest stored articles of the sections.
+ * Meanwhile the request itself is started if the cache can't serve it, and the loader that
+ * makes the same request later joins it instead of starting over.
+ */
+public final class FeedPreloader {
+
+    private static final String LOG_TAG = FeedPreloader.class.getSimpleName();
+
+    /**
+     * Receives the persisted feed if it wasn't read in time for the first frame.
+     */
+    public interface Listener {
+        void onPreloaded(List<Games> games);
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            // Leave the CPU to the main thread inflating the layout
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "feed-preloader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final FutureTask<List<Games>> mTask;
+
+    /**
+     * Notified when the feed was read late, only touched on the main thread
+     */
+    private Listener mListener;
+
+    /**
+     * Start reading the persisted first page of the feed, and fetching it if the cache can't
+     * serve it. Call on the main thread, before inflating the layout.
+     *
+     * @param pageSize is the number of articles per page of the list
+     */
+    public static FeedPreloader start(Context context, int pageSize) {
+        Context appContext = context.getApplicationContext();
+        Map<String, String> myFeedUrls = FeedRequests.myFeedUrls(appContext, pageSize);
+        Collection<String> urls = myFeedUrls.isEmpty()
+                ? Collections.singletonList(FeedRequests.sectionUrl(appContext, 0, pageSize))
+                : myFeedUrls.values();
+        FeedPreloader preloader = new FeedPreloader(appContext, urls,
+                FeedRequests.feedSections(appContext), pageSize, myFeedUrls.isEmpty());
+        EXECUTOR.execute(preloader.mTask);
+        return preloader;
+    }
+
+    private FeedPreloader(Context context, final Collection<String> urls,
+                          final List<String> sections, final int pageSize,
+                          final boolean singleSection) {
+        final ArticleStore store = ArticleStore.getInstance(context);
+        final ArticleRepository repository =
+                ArticleRepository.getInstance(context.getCacheDir(), store);
+        mTask = new FutureTask<List<Games>>(new Callable<List<Games>>() {
+            @Override
+            public List<Games> call() {
+                List<Games> games = null;
+                for (String url : urls) {
+                    ArticleCache.Entry entry = repository.getCached(url);
+                    if (entry == null || entry.isStale(System.currentTimeMillis())) {
+                        warm(repository, url, entry);
+                    }
+                    // A single section is shown exactly as its cached response
+                    if (singleSection && entry != null) {
+                        games = entry.getGames();
+                    }
+                }
+                if (games == null) {
+                    games = store.loadOlder(sections, null, pageSize);
+                }
+                return games;
+            }
+        }) {
+            @Override
+            protected void done() {
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliverLate();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Returns the persisted feed if it can be read within the given time, otherwise null,
+     * and it goes to the listener once it's read. Call on the main thread.
+     *
+     * @param listener for the feed read too late, or null
+     * @return the first page, empty if nothing was stored or reading failed
+     */
+    public List<Games> await(long timeoutMillis, Listener listener) {
+        try {
+            return mTask.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            mListener = listener;
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } catch (ExecutionException e) {
+            Log.w(LOG_TAG, "Problem reading the persisted feed", e.getCause());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Don't deliver the feed read late, for example because the loader delivered first.
+     * Call on the main thread.
+     */
+    public void cancel() {
+        mListener = null;
+    }
+
+    /**
+     * This is on the main thread.
+     */
+    private void deliverLate() {
+        Listener listener = mListener;
+        mListener = null;
+        if (listener == null) {
+            return;
+        }
+        List<Games> games = await(0, null);
+        if (games != null && !games.isEmpty()) {
+            listener.onPreloaded(games);
+        }
+    }
+
+    /**
+     * Start fetching the page in the background without waiting for it. The loader that
+     * requests the same page joins this fetch.
+     */
+    private static void warm(final ArticleRepository repository, final String url,
+                             final ArticleCache.Entry entry) {
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                repository.fetch(url, entry, null);
+            }
+        });
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.android.gamesnews;
+
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.preference.PreferenceManager;
+import android.telephony.TelephonyManager;
+
+import com.example.android.gamesnews.data.ArticleBodies;
+import com.example.android.gamesnews.utils.GuardianUrls;
+import com.example.android.gamesnews.utils.NetworkQuality;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Builds the query URLs for the sections picked in the settings.
+ * <p>
+ * The activity and the background sync must request exactly the same URLs, otherwise
+ * they wouldn't share cache entries, so both build them here with {@link GuardianUrls}.
+ */
+public final class FeedRequests {
+
+    private static final String apiKey = BuildConfig.THE_GUARDIAN_API_KEY;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link FeedRequests} object.
+     */
+    private FeedRequests() {
+    }
+
+    /**
+     * Returns the query URL of the given page of the section picked in the settings.
+     *
+     * @param page     to request, 0 for the first page without an explicit page parameter
+     * @param pageSize is the number of articles per page, the same for every page of a list
+     */
+    public static String sectionUrl(Context context, int page, int pageSize) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        String orderBy = sharedPrefs.getString(
+                context.getString(R.string.settings_order_by_key),
+                context.getString(R.string.settings_order_by_default));
+
+        String section = sharedPrefs.getString(
+                context.getString(R.string.settings_sections_key),
+                context.getString(R.string.settings_sections_default));
+
+        return GuardianUrls.section(apiKey, section, orderBy, pageSize, page);
+    }
+
+    /**
+     * Returns the query URL of every section of "my feed", by section. Each section is
+     * requested newest first, so the lists can be merged by publication time.
+     * The map is empty if "my feed" isn't used.
+     *
+     * @param pageSize is the number of articles per page
+     */
+    public static Map<String, String> myFeedUrls(Context context, int pageSize) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        Set<String> myFeed = sharedPrefs.getStringSet(
+                context.getString(R.string.settings_my_feed_key),
+                Collections.<String>emptySet());
+
+        String orderBy = context.getString(R.string.settings_order_by_newest_value);
+        Map<String, String> sectionUrls = new LinkedHashMap<>();
+        for (String section : myFeed) {
+            sectionUrls.put(section, GuardianUrls.section(apiKey, section, orderBy, pageSize, 0));
+        }
+        return sectionUrls;
+    }
+
+    /**
+     * Returns the requests behind the first page of the list. It changes whenever a
+     * setting that affects the list changed, so the list knows to load again.
+     */
+    public static String feedRequest(Context context) {
+        int pageSize = pageSize(context);
+        Map<String, String> myFeedUrls = myFeedUrls(context, pageSize);
+        return myFeedUrls.isEmpty()
+                ? sectionUrl(context, 0, pageSize) : myFeedUrls.values().toString();
+    }
+
+    /**
+     * Returns the query URL of the guardians search for the given words, newest first.
+     */
+    public static String searchUrl(Context context, String query) {
+        return GuardianUrls.search(apiKey, query,
+                context.getString(R.string.settings_order_by_newest_value),
+                adaptivePageSize(context));
+    }
+
+    /**
+     * Returns the article bodies of the offline reader. They are kept with the app's files
+     * rather than in the cache directory, which the system may clear while offline.
+     */
+    public static ArticleBodies articleBodies(Context context) {
+        return ArticleBodies.getInstance(context.getFilesDir(), apiKey);
+    }
+
+    /**
+     * Returns the ids of the sections shown in the list: the "my feed" sections, or the
+     * selected section if "my feed" isn't used.
+     */
+    public static List<String> feedSections(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        Set<String> myFeed = sharedPrefs.getStringSet(
+                context.getString(R.string.settings_my_feed_key),
+                Collections.<String>emptySet());
+        if (!myFeed.isEmpty()) {
+            return new ArrayList<>(myFeed);
+        }
+        return Collections.singletonList(sharedPrefs.getString(
+                context.getString(R.string.settings_sections_key),
+                context.getString(R.string.settings_sections_default)));
+    }
+
+    /**
+     * Returns the number of articles to request per page on the current network.
+     * <p>
+     * Once a few responses have been measured, {@link NetworkQuality} picks a page size that
+     * arrives in about the same time on any network. Until then it's the page size picked in
+     * the settings, cut down on a 2G link. A metered network never gets more than the
+     * settings ask for.
+     */
+    public static int adaptivePageSize(Context context) {
+        int preferred = pageSize(context);
+        ConnectivityManager connMgr = (ConnectivityManager)
+                context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connMgr == null) {
+            return preferred;
+        }
+
+        boolean metered = connMgr.isActiveNetworkMetered();
+        int max = metered ? preferred : Math.max(preferred, NetworkQuality.MAX_PAGE_SIZE);
+        int fallback = isSlowNetwork(connMgr.getActiveNetworkInfo())
+                ? Math.min(preferred, NetworkQuality.MIN_PAGE_SIZE) : preferred;
+        return NetworkQuality.get().pageSize(fallback, max);
+    }
+
+    /**
+     * Returns true on a 2G mobile connection.
+     */
+    private static boolean isSlowNetwork(NetworkInfo networkInfo) {
+        if (networkInfo == null || networkInfo.getType() != ConnectivityManager.TYPE_MOBILE) {
+            return false;
+        }
+        switch (networkInfo.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the number of articles per page picked in the settings.
+     */
+    public static int pageSize(Context context) {
+        String pageSize = PreferenceManager.getDefaultSharedPreferences(context).getString(
+                context.getString(R.string.settings_page_size_key),
+                context.getString(R.string.settings_page_size_default));
+        try {
+            return Math.max(1, (int) Double.parseDouble(pageSize));
+        } catch (NumberFormatException e) {
+            return Integer.parseInt(context.getString(R.string.settings_page_size_default));
+        }
+    }
+}
@@ -4,21 +4,68 @@ package com.example.android.gamesnews;
 import android.content.AsyncTaskLoader;
 import android.content.Context;
 
-import com.example.android.gamesnews.utils.QueryUtils;
+import com.example.android.gamesnews.data.ArticleCache;
+import com.example.android.gamesnews.data.ArticleRepository;
+import com.example.android.gamesnews.data.ArticleStore;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.Metrics;
 
 import java.util.List;
 
 /**
  * Loads a list of games by using an AsyncTask to perform the
  * network request to the given URL.
+ * <p>
+ * Cached games are delivered right away. A stale cache entry is then revalidated in the
+ * background and the new list is only delivered if its content changed.
+ * <p>
+ * The loader keeps its result: coming back to the activity delivers it again and only
+ * loads anew once it turned stale. Cancelling the loader, like when the settings changed
+ * and the activity restarts it, drops the HTTP request and stops the parse.
  */
-public class GameLoader extends AsyncTaskLoader<List<Games>> {
+public class GameLoader extends AsyncTaskLoader<GamesResponse> {
 
     /**
      * Query URL
      */
     private String mUrl;
 
+    /**
+     * Serves responses through the persistent cache and coalesces identical requests
+     */
+    private ArticleRepository mRepository;
+
+    /**
+     * How long the loaded games are considered fresh
+     */
+    private final long mTtlMillis;
+
+    /**
+     * The response last delivered to the activity
+     */
+    private GamesResponse mResponse;
+
+    /**
+     * True once the cached games have been handed out for this loader
+     */
+    private boolean mCacheDelivered;
+
+    /**
+     * True if the delivered games came from a stale cache entry and need a refresh
+     */
+    private volatile boolean mRevalidate;
+
+    /**
+     * When the games of the current response were fetched from the network
+     */
+    private volatile long mFetchedAt;
+
+    /**
+     * Cancellation of the load running in the background
+     */
+    private volatile Cancellation mCancellation;
+
     /**
      * Constructs a new {@link GameLoader}.
      *
@@ -28,24 +75,108 @@ public class GameLoader extends AsyncTaskLoader<List<Games>> {
     public GameLoader(Context context, String url) {
         super(context);
         mUrl = url;
+        mRepository = ArticleRepository.getInstance(context.getCacheDir(),
+                ArticleStore.getInstance(context));
+        mTtlMillis = url != null
+                ? ArticleCache.ttlForSection(ArticleCache.queryParameter(url, "section")) : 0;
     }
 
     @Override
     protected void onStartLoading() {
-        forceLoad();
+        if (mResponse != null) {
+            super.deliverResult(mResponse);
+        }
+        // Returning to the activity only loads if there's nothing yet or it turned stale
+        if (takeContentChanged() || mResponse == null
+                || System.currentTimeMillis() - mFetchedAt > mTtlMillis) {
+            forceLoad();
+        }
     }
 
     /**
      * This is on a background thread.
      */
     @Override
-    public List<Games> loadInBackground() {
+    public GamesResponse loadInBackground() {
         if (mUrl == null) {
             return null;
         }
 
-        // Perform the network request, parse the response, and extract a list of games.
-        List<Games> game = QueryUtils.fetchGamesData(mUrl);
-        return game;
+        Cancellation cancellation = new Cancellation();
+        mCancellation = cancellation;
+        if (isLoadInBackgroundCanceled()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // Serve the cache first: a fresh entry needs no network at all, a stale one is
+            // shown once and then refreshed.
+            ArticleCache.Entry entry = mRepository.getCached(mUrl);
+            if (entry != null) {
+                boolean stale = entry.isStale(System.currentTimeMillis());
+                if (!stale || !mCacheDelivered) {
+                    Metrics.counter(Metrics.CACHE_HIT).increment();
+                    mCacheDelivered = true;
+                    mRevalidate = stale;
+                    mFetchedAt = entry.getFetchedAt();
+                    return entry.toResponse();
+                }
+            }
+            mRevalidate = false;
+
+            // Perform the network request, parse the response, and extract a list of games.
+            // The same request from another loader or the sync is joined instead.
+            GamesResponse response = mRepository.fetch(mUrl, entry, cancellation);
+            if (response.getGames() != null) {
+                mFetchedAt = System.currentTimeMillis();
+            }
+            return response;
+        } finally {
+            Metrics.timer(Metrics.LOAD).stop(start);
+        }
+    }
+
+    /**
+     * This is on the main thread.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        Cancellation cancellation = mCancellation;
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+
+    @Override
+    public void deliverResult(GamesResponse response) {
+        if (isReset()) {
+            return;
+        }
+
+        // Keep showing what we have if the refresh failed or brought nothing new
+        List<Games> games = response.getGames();
+        boolean unchanged = mResponse != null
+                && (games == null || games.equals(mResponse.getGames()));
+        if (!unchanged) {
+            mResponse = response;
+            if (isStarted()) {
+                super.deliverResult(response);
+            }
+        }
+
+        if (mRevalidate) {
+            mRevalidate = false;
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelLoad();
+        mResponse = null;
+        mCacheDelivered = false;
+        mFetchedAt = 0;
     }
-}
\ No newline at end of file
+}
@@ -1,118 +1,413 @@
 package com.example.android.gamesnews;
 
-import android.app.Activity;
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
+import android.widget.TextView;
 
-import com.example.android.gamesnews.activity.GamesActivity;
+import com.example.android.gamesnews.data.ArticleColumns;
+import com.example.android.gamesnews.data.FacetIndex;
+import com.example.android.gamesnews.data.StoryClusterer;
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+import com.example.android.gamesnews.utils.Metrics;
 
-import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 /**
  * An {@link GamesAdapter} knows how to create a list item layout for each game
  * in the data source (a list of {@link Games} objects).
  * <p>
- * These list item layouts will be provided to an adapter view like ListView
- * to be displayed to the user.
+ * These list item layouts will be provided to a RecyclerView to be displayed to the user.
+ * Every submitted list is turned into {@link ArticleColumns}, which the rows are bound from
+ * without allocating. New lists are diffed against the
+ * current one on a background thread, so a refresh only rebinds the rows that were
+ * inserted, moved or changed.
+ * <p>
+ * Articles telling the same story are collapsed into one row by a {@link StoryClusterer},
+ * with a "+N more" link that shows the others below it.
  */
-public class GamesAdapter extends ArrayAdapter<Games> {
-
+public class GamesAdapter extends RecyclerView.Adapter<GamesAdapter.ViewHolder> {
 
-    private static final String DATE_SEPARATOR = "T";
+    /**
+     * Builds the columns of submitted lists and diffs them, one list at a time
+     */
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
 
     /**
-     * Constructs a new {@link GamesAdapter}.
-     *
-     * @param context of the app
-     * @param game    is the list of games, which is the data source of the adapter
+     * Receives clicks on the list items.
      */
-    public GamesAdapter(Activity context, ArrayList<Games> game) {
-        super(context, 0, game);
+    public interface OnItemClickListener {
+        void onItemClick(String url, String title);
+
+        /**
+         * Called when the author or the section of an item is clicked.
+         */
+        void onFacetClick(FacetIndex.Kind kind, String url);
     }
 
     /**
-     * Provides a view for an AdapterView (ListView, GridView, etc.)
-     *
-     * @param position    The position in the list of data that should be displayed in the
-     *                    list item view.
-     * @param convertView The recycled view to populate.
-     * @param parent      The parent ViewGroup that is used for inflation.
-     * @return The View for the position in the AdapterView.
+     * Holds the views of a list item, so they are only looked up once.
      */
-    @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView sectionTextView;
+        final TextView authorTextView;
+        final TextView dateTextView;
+        final TextView timeTextView;
+        final TextView relativeTimeTextView;
+        final TextView titleTextView;
+        final ImageView thumbnailImageView;
+        final TextView moreTextView;
 
-        GamesActivity.ViewHolder holder;
-
-        // Check if the existing view is being reused, otherwise inflate the view
-        if (convertView == null) {
-            convertView = LayoutInflater.from(getContext()).inflate(
-                    R.layout.list_item, parent, false);
-            holder = new GamesActivity.ViewHolder();
+        ViewHolder(View itemView) {
+            super(itemView);
 
             // Find the TextView in the list_item.xml layout with the ID section
-            holder.sectionTextView = convertView.findViewById(R.id.section);
+            sectionTextView = itemView.findViewById(R.id.section);
 
             // Find the TextView in the list_item.xml layout with the ID author
-            holder.authorTextView = convertView.findViewById(R.id.author);
+            authorTextView = itemView.findViewById(R.id.author);
 
             // Find the TextView in the list_item.xml layout with the ID date
-            holder.dateTextView = convertView.findViewById(R.id.date);
+            dateTextView = itemView.findViewById(R.id.date);
 
             // Find the TextView in the list_item.xml layout with the ID time
-            holder.timeTextView = convertView.findViewById(R.id.time);
+            timeTextView = itemView.findViewById(R.id.time);
+
+            // Find the TextView in the list_item.xml layout with the ID relative_time
+            relativeTimeTextView = itemView.findViewById(R.id.relative_time);
 
             // Find the TextView in the list_item.xml layout with the ID title
-            holder.titleTextView = convertView.findViewById(R.id.title);
-            convertView.setTag(holder);
-        } else {
-            holder = (GamesActivity.ViewHolder) convertView.getTag();
+            titleTextView = itemView.findViewById(R.id.title);
+
+            // Find the ImageView in the list_item.xml layout with the ID thumbnail
+            thumbnailImageView = itemView.findViewById(R.id.thumbnail);
+
+            // Find the TextView in the list_item.xml layout with the ID more_stories
+            moreTextView = itemView.findViewById(R.id.more_stories);
         }
+    }
+
+    private final OnItemClickListener mListener;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Rows shown, only touched on the main thread
+     */
+    private ArticleColumns mColumns = ArticleColumns.EMPTY;
+
+    /**
+     * Cache keys of the thumbnails of the rows shown, built along with the columns so
+     * binding a row doesn't build them, only touched on the main thread
+     */
+    private String[] mThumbnailKeys = new String[0];
+
+    /**
+     * The list last submitted, shown again when a story is expanded or collapsed
+     */
+    private List<Games> mGames;
+
+    /**
+     * Groups the articles of the same story as lists are submitted
+     */
+    private final StoryClusterer mClusterer = new StoryClusterer();
+
+    /**
+     * Web URLs of the rows whose other articles are shown, only touched on the main thread
+     */
+    private final Set<String> mExpanded = new HashSet<>();
 
-        // Get the {@link Games} object located at this position in the list
-        Games currentItem = getItem(position);
+    /**
+     * Incremented by every submitted list, so the diff of a list that has been replaced
+     * meanwhile is dropped
+     */
+    private int mGeneration;
 
+    /**
+     * Formats the publication times, memoizing the strings across binds
+     */
+    private final ArticleDateFormatter mDateFormatter;
 
-        // Get the section from the current Data object and
-        // set this text on that view
-        holder.sectionTextView.setText(currentItem.getSection());
+    /**
+     * Loads the thumbnails, at the size they are shown
+     */
+    private final ImageLoader mImageLoader;
+    private final int mThumbnailWidth;
+    private final int mThumbnailHeight;
 
-        // Get the author from the current Data object and
-        // set this text on that view
-        holder.authorTextView.setText(currentItem.getAuthor());
+    /**
+     * Constructs a new {@link GamesAdapter}.
+     *
+     * @param context  of the app
+     * @param listener is notified when a game is clicked
+     */
+    public GamesAdapter(Context context, OnItemClickListener listener) {
+        mListener = listener;
 
+        // Times are shown in GMT, as the list item says
+        final Resources resources = context.getResources();
+        mImageLoader = ImageLoader.getInstance(context);
+        mThumbnailWidth = resources.getDimensionPixelSize(R.dimen.thumbnail_width);
+        mThumbnailHeight = resources.getDimensionPixelSize(R.dimen.thumbnail_height);
+        mDateFormatter = new ArticleDateFormatter(Locale.getDefault(), TimeZone.getTimeZone("GMT"),
+                new ArticleDateFormatter.Labels() {
+                    @Override
+                    public String justNow() {
+                        return resources.getString(R.string.just_now);
+                    }
 
-        // Get the original date&time string from the Games object,
-        // which can be in the format of "28-3-2018T08.00.15Z".
-        String currentDate = currentItem.getTimeAndDate();
-        // Split the string into different parts (as an array of Strings)
-        // based on the " T " text. We expect an array of 2 Strings, where
-        // the first String will be "28-3-2018" and the second String will be "08.00.15".
-        String[] dateWithoutTime = currentDate.split(DATE_SEPARATOR);
-        // publication Date should be "28-3-2018"
-        String publicationDate = dateWithoutTime[0];
-        // publication Time should be "08.00.15"
-        String publicationTime = dateWithoutTime[1];
+                    @Override
+                    public String minutesAgo(int minutes) {
+                        return resources.getQuantityString(R.plurals.minutes_ago, minutes, minutes);
+                    }
 
-        // Get the date from the current Data object and
-        // set this text on that view
-        holder.dateTextView.setText(publicationDate);
+                    @Override
+                    public String hoursAgo(int hours) {
+                        return resources.getQuantityString(R.plurals.hours_ago, hours, hours);
+                    }
 
+                    @Override
+                    public String daysAgo(int days) {
+                        return resources.getQuantityString(R.plurals.days_ago, days, days);
+                    }
+                });
+    }
 
-        // Get the time from the current Data object and
-        // set this text on that view and remove last character form time
-        holder.timeTextView.setText(String.format(publicationTime.substring
-                (0, publicationTime.length() - 4)));
+    /**
+     * Show the given list. The columns and the changes against the current list are worked
+     * out on a background thread, then applied on the main thread. A list replacing an
+     * empty one has nothing to diff against and is shown right away, so the articles
+     * already make it into the next frame. Its stories are grouped in the background like
+     * any other list and the groups collapse once they are found.
+     *
+     * @param games to show, or null to clear the list right away
+     */
+    public void submitList(final List<Games> games) {
+        final int generation = ++mGeneration;
+        mGames = games;
+        if (games == null || games.isEmpty()) {
+            mExpanded.clear();
+            int removed = mColumns.size();
+            mColumns = ArticleColumns.EMPTY;
+            mThumbnailKeys = new String[0];
+            notifyItemRangeRemoved(0, removed);
+            return;
+        }
+        if (mColumns.size() == 0) {
+            mColumns = ArticleColumns.of(games);
+            mThumbnailKeys = thumbnailKeys(mColumns);
+            notifyItemRangeInserted(0, mColumns.size());
+        }
+        final ArticleColumns oldColumns = mColumns;
+        final Set<String> expanded = new HashSet<>(mExpanded);
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ArticleColumns newColumns = mClusterer.collapse(games, expanded);
+                final String[] newThumbnailKeys = thumbnailKeys(newColumns);
+                final DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldColumns.size();
+                    }
 
-        // Get the title from the current Data object and
-        // set this text on that view
-        holder.titleTextView.setText(currentItem.getTitle());
+                    @Override
+                    public int getNewListSize() {
+                        return newColumns.size();
+                    }
 
-        // Return the whole list item layout (containing 4 views)
-        // so that it can be shown in the ListView
-        return convertView;
+                    @Override
+                    public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                        return oldColumns.isSameArticle(oldPosition, newColumns, newPosition);
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                        return oldColumns.isSameContent(oldPosition, newColumns, newPosition);
+                    }
+                });
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            mColumns = newColumns;
+                            mThumbnailKeys = newThumbnailKeys;
+                            diff.dispatchUpdatesTo(GamesAdapter.this);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns the image cache keys of the thumbnails of every row, null for rows without.
+     */
+    private String[] thumbnailKeys(ArticleColumns columns) {
+        String[] keys = new String[columns.size()];
+        for (int row = 0; row < keys.length; row++) {
+            String url = columns.getThumbnailUrl(row);
+            if (url != null) {
+                keys[row] = ImageLoader.keyFor(url, mThumbnailWidth, mThumbnailHeight);
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mColumns.size();
+    }
+
+    /**
+     * Forget the groups of stories to free memory, they are found again with the next list.
+     *
+     * @return the number of articles forgotten
+     */
+    public int trimMemory() {
+        return mClusterer.trim();
+    }
+
+    /**
+     * Returns the web URL of the article at the given position.
+     */
+    public String getUrl(int position) {
+        return mColumns.getUrl(position);
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View itemView = LayoutInflater.from(parent.getContext()).inflate(
+                R.layout.list_item, parent, false);
+        final ViewHolder holder = new ViewHolder(itemView);
+        itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    mListener.onItemClick(mColumns.getUrl(position),
+                            mColumns.getTitle(position));
+                }
+            }
+        });
+        // The author and the section filter the list by them
+        holder.authorTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    mListener.onFacetClick(FacetIndex.Kind.AUTHOR, mColumns.getUrl(position));
+                }
+            }
+        });
+        holder.sectionTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    mListener.onFacetClick(FacetIndex.Kind.SECTION, mColumns.getUrl(position));
+                }
+            }
+        });
+        holder.moreTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    toggle(mColumns.getUrl(position));
+                }
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Show or hide the other articles of the story of the given row.
+     */
+    private void toggle(String url) {
+        if (!mExpanded.remove(url)) {
+            mExpanded.add(url);
+        }
+        submitList(mGames);
+    }
+
+    /**
+     * Populates the recycled list item with the game at the given position.
+     *
+     * @param holder   of the list item view
+     * @param position The position in the list of data that should be displayed in the
+     *                 list item view.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        long start = System.nanoTime();
+
+        ArticleColumns columns = mColumns;
+
+        // Every string is the one the article holds, nothing is allocated for them
+        holder.sectionTextView.setText(columns.getSection(position));
+        holder.authorTextView.setText(columns.getAuthor(position));
+
+        // The publication time was parsed when the list was submitted, the
+        // formatter hands out memoized strings, so nothing is parsed or allocated here.
+        long published = columns.getPublishedMillis(position);
+        if (published != ArticleDateFormatter.UNKNOWN) {
+            holder.dateTextView.setText(mDateFormatter.formatDate(published));
+            holder.timeTextView.setText(mDateFormatter.formatTime(published));
+            holder.relativeTimeTextView.setText(
+                    mDateFormatter.formatRelative(published, System.currentTimeMillis()));
+        } else {
+            // Show whatever the API sent rather than failing on an unexpected format
+            holder.dateTextView.setText(columns.getTimeAndDate(position));
+            holder.timeTextView.setText(null);
+            holder.relativeTimeTextView.setText(null);
+        }
+
+        holder.titleTextView.setText(columns.getTitle(position));
+
+        // The image is decoded in the background, the row shows it once it's there
+        String thumbnailUrl = columns.getThumbnailUrl(position);
+        holder.thumbnailImageView.setVisibility(thumbnailUrl != null ? View.VISIBLE : View.GONE);
+        mImageLoader.load(thumbnailUrl, mThumbnailKeys[position], holder.thumbnailImageView,
+                mThumbnailWidth, mThumbnailHeight);
+
+        // Other articles telling the same story are behind a link. The URL is the
+        // instance the article holds, its hash is cached so the lookup allocates nothing.
+        int related = columns.getRelated(position);
+        holder.moreTextView.setVisibility(related > 0 ? View.VISIBLE : View.GONE);
+        if (related > 0) {
+            Resources resources = holder.itemView.getResources();
+            holder.moreTextView.setText(mExpanded.contains(columns.getUrl(position))
+                    ? resources.getString(R.string.fewer_stories)
+                    : resources.getQuantityString(R.plurals.more_stories, related, related));
+        }
+
+        Metrics.timer(Metrics.BIND).stop(start);
+    }
+
+    /**
+     * Stop loading the thumbnail of a row that scrolled away, unless another row waits for
+     * the same image.
+     */
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        mImageLoader.cancel(holder.thumbnailImageView);
+        holder.thumbnailImageView.setImageDrawable(null);
     }
-}
\ No newline at end of file
+}
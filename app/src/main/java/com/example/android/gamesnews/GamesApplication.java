@@ -0,0 +1,92 @@
+package com.example.android.gamesnews;
+
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import com.example.android.gamesnews.sync.ArticleSyncWorker;
+import com.example.android.gamesnews.utils.Logger;
+import com.example.android.gamesnews.utils.Logging;
+import com.example.android.gamesnews.utils.MemoryTiers;
+import com.example.android.gamesnews.utils.QueryUtils;
+import com.example.android.gamesnews.utils.RequestBudget;
+
+import java.io.File;
+
+
+/**
+ * Sends the log messages of the data layer to logcat, limits the requests to the quota of
+ * the API key and schedules the background sync when the process starts. Scheduling waits
+ * for the first frame, it's nothing the user has to wait for.
+ * <p>
+ * When the system runs short of memory the caches registered with {@link MemoryTiers} are
+ * trimmed, so the process is less likely to be killed in the background.
+ */
+public class GamesApplication extends Application {
+
+    /**
+     * File keeping the daily request count across restarts
+     */
+    private static final String BUDGET_FILE = "request-budget";
+
+    @Override
+    public void onCreate() {
+        StartupTrace.onApplicationCreate();
+        super.onCreate();
+        Logging.setLogger(new Logger() {
+            @Override
+            public void d(String tag, String message) {
+                Log.d(tag, message);
+            }
+
+            @Override
+            public void w(String tag, String message) {
+                Log.w(tag, message);
+            }
+
+            @Override
+            public void e(String tag, String message, Throwable error) {
+                Log.e(tag, message, error);
+            }
+        });
+        // The loaders, the sync and the prefetch share one key
+        QueryUtils.setRequestBudget(new RequestBudget(RequestBudget.DEVELOPER_PER_SECOND,
+                RequestBudget.DEVELOPER_PER_DAY, new File(getFilesDir(), BUDGET_FILE)));
+        StartupTrace.runAfterFirstFrame(new Runnable() {
+            @Override
+            public void run() {
+                ArticleSyncWorker.schedule();
+            }
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        MemoryTiers.trim(pressureOf(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        MemoryTiers.trim(MemoryTiers.Pressure.CRITICAL);
+    }
+
+    /**
+     * Returns the pressure of a level passed to {@link #onTrimMemory(int)}.
+     */
+    private static MemoryTiers.Pressure pressureOf(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return MemoryTiers.Pressure.CRITICAL;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            return MemoryTiers.Pressure.BACKGROUND;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return MemoryTiers.Pressure.UI_HIDDEN;
+        }
+        return MemoryTiers.Pressure.RUNNING_LOW;
+    }
+}
@@ -0,0 +1,466 @@
+package com.example.android.gamesnews;
+
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.view.View;
+import android.widget.ImageView;
+
+import com.example.android.gamesnews.data.ImageDiskCache;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.HttpResponse;
+import com.example.android.gamesnews.utils.HttpTransport;
+import com.example.android.gamesnews.utils.MemoryTiers;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.QueryUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Loads the article thumbnails into the list rows, and the background behind the list.
+ * <p>
+ * Downloaded images are kept in an {@link ImageDiskCache}, decoded ones in a memory cache
+ * bounded by the byte size of the bitmaps. Images are decoded on background threads and
+ * downsampled to the size of the row while decoding, so scrolling never waits on a decode
+ * and no full size image is ever held in memory.
+ * <p>
+ * Rows showing the same image share one request. A row that is recycled leaves its request,
+ * and a request nobody waits for anymore is cancelled, download and all. Everything but the
+ * decoding itself happens on the main thread.
+ * <p>
+ * Under memory pressure the memory cache is halved, or emptied once the app is hidden.
+ * The images are decoded again from the disk cache when they are shown next.
+ */
+public final class ImageLoader {
+
+    private static final String LOG_TAG = ImageLoader.class.getSimpleName();
+
+    /**
+     * Hard cap of the memory cache, whatever the device
+     */
+    private static final int MAX_MEMORY_CACHE_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Share of the memory available to the app that the cache may take
+     */
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    /**
+     * Number of images downloaded and decoded at the same time
+     */
+    private static final int THREADS = 2;
+
+    /**
+     * Name of the memory cache in the memory metrics
+     */
+    private static final String TIER = "images";
+
+    /**
+     * Number of keys of trimmed images remembered to time their restore
+     */
+    private static final int MAX_TRIMMED_KEYS = 256;
+
+    private static ImageLoader sInstance;
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final ImageDiskCache mDiskCache;
+    private final HttpTransport mTransport;
+    private final ExecutorService mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Requests in flight by cache key
+     */
+    private final Map<String, Request> mRequests = new HashMap<>();
+
+    /**
+     * Keys of the images dropped by a trim that weren't shown again yet, main thread only
+     */
+    private final Set<String> mTrimmed = new HashSet<>();
+
+    /**
+     * Returns the process wide loader.
+     */
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ImageLoader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private ImageLoader(Context context) {
+        ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassBytes = activityManager.getMemoryClass() * 1024 * 1024;
+        mMemoryCache = new LruCache<String, Bitmap>(
+                Math.min(MAX_MEMORY_CACHE_BYTES, memoryClassBytes / MEMORY_CACHE_FRACTION)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+        mDiskCache = ImageDiskCache.getInstance(context.getCacheDir());
+        mTransport = QueryUtils.defaultTransport();
+        mExecutor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Decoding must not take CPU time away from drawing the list
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "image-loader");
+            }
+        });
+        MemoryTiers.register(new MemoryTiers.Tier() {
+            @Override
+            public String getName() {
+                return TIER;
+            }
+
+            @Override
+            public int trim(MemoryTiers.Pressure pressure) {
+                return trimMemoryCache(pressure);
+            }
+        });
+    }
+
+    /**
+     * Show the image of the URL in the view, downsampled to about the given size. Whatever
+     * the view was loading before is cancelled. Call on the main thread.
+     *
+     * @param url    of the image, or null to clear the view
+     * @param view   to show the image in
+     * @param width  of the view in pixels
+     * @param height of the view in pixels
+     */
+    public void load(String url, ImageView view, int width, int height) {
+        load(url, url != null ? keyFor(url, width, height) : null, view, width, height);
+    }
+
+    /**
+     * Same as {@link #load(String, ImageView, int, int)} with the cache key of the image
+     * already built, so a list binding the same rows again doesn't build it every time.
+     *
+     * @param key of the image, see {@link #keyFor(String, int, int)}
+     */
+    public void load(String url, String key, ImageView view, int width, int height) {
+        cancel(view);
+        if (url == null) {
+            view.setImageDrawable(null);
+            return;
+        }
+
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            Metrics.counter(Metrics.IMAGE_MEMORY_HIT).increment();
+            view.setImageBitmap(bitmap);
+            return;
+        }
+
+        view.setImageDrawable(null);
+        Request request = mRequests.get(key);
+        if (request == null) {
+            request = new Request(key, url, width, height, mTrimmed.remove(key));
+            mRequests.put(key, request);
+            mExecutor.execute(request);
+        } else {
+            Metrics.counter(Metrics.IMAGE_COALESCED).increment();
+        }
+        request.mViews.add(view);
+        view.setTag(R.id.thumbnail, request);
+    }
+
+    /**
+     * Returns the cache key of the image of the URL downsampled to the given size.
+     */
+    public static String keyFor(String url, int width, int height) {
+        return url + '#' + width + 'x' + height;
+    }
+
+    /**
+     * Stop loading an image into the view, for example because its row was recycled.
+     * The request is cancelled if no other view waits for it. Call on the main thread.
+     */
+    public void cancel(ImageView view) {
+        Request request = (Request) view.getTag(R.id.thumbnail);
+        if (request == null) {
+            return;
+        }
+        view.setTag(R.id.thumbnail, null);
+        request.mViews.remove(view);
+        if (request.mViews.isEmpty()) {
+            if (mRequests.get(request.mKey) == request) {
+                mRequests.remove(request.mKey);
+            }
+            request.mCancellation.cancel();
+            Metrics.counter(Metrics.IMAGE_CANCELLED).increment();
+        }
+    }
+
+    /**
+     * Set the image resource as the background of the view, downsampled to the size of the
+     * screen. The first time it's decoded in the background and the view gets it once it's
+     * there, later views get it right away from the memory cache. Call on the main thread.
+     *
+     * @param resId of a bitmap drawable
+     * @param view  to set the background of
+     */
+    public void loadBackground(final int resId, final View view) {
+        final Resources resources = view.getResources();
+        final DisplayMetrics display = resources.getDisplayMetrics();
+        final String key = "resource:" + resId + '#' + display.widthPixels + 'x'
+                + display.heightPixels;
+        Bitmap cached = mMemoryCache.get(key);
+        if (cached != null) {
+            Metrics.counter(Metrics.IMAGE_MEMORY_HIT).increment();
+            view.setBackground(new BitmapDrawable(resources, cached));
+            return;
+        }
+
+        final boolean trimmed = mTrimmed.remove(key);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long start = System.nanoTime();
+                final Bitmap bitmap = decode(resources, resId,
+                        display.widthPixels, display.heightPixels);
+                Metrics.timer(Metrics.IMAGE_DECODE).stop(start);
+                if (bitmap == null) {
+                    Log.w(LOG_TAG, "Can't decode the background " + resId);
+                    return;
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mMemoryCache.put(key, bitmap);
+                        view.setBackground(new BitmapDrawable(resources, bitmap));
+                        if (trimmed) {
+                            MemoryTiers.rehydrated(TIER, start);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Hand the decoded image to the views still waiting for it. This is on the main thread.
+     */
+    private void deliver(Request request, Bitmap bitmap) {
+        if (mRequests.get(request.mKey) == request) {
+            mRequests.remove(request.mKey);
+        }
+        if (bitmap != null) {
+            mMemoryCache.put(request.mKey, bitmap);
+            if (request.mTrimmed) {
+                MemoryTiers.rehydrated(TIER, request.mStart);
+            }
+        }
+        for (ImageView view : request.mViews) {
+            view.setTag(R.id.thumbnail, null);
+            if (bitmap != null) {
+                view.setImageBitmap(bitmap);
+            }
+        }
+        request.mViews.clear();
+    }
+
+    /**
+     * Drop decoded images for the given memory pressure: the least recently used half while
+     * the app runs, all of them once it's hidden. Views keep the images they show. This is
+     * on the main thread.
+     *
+     * @return the number of images dropped
+     */
+    private int trimMemoryCache(MemoryTiers.Pressure pressure) {
+        Set<String> before = mMemoryCache.snapshot().keySet();
+        if (pressure == MemoryTiers.Pressure.RUNNING_LOW) {
+            mMemoryCache.trimToSize(mMemoryCache.maxSize() / 2);
+        } else {
+            mMemoryCache.evictAll();
+        }
+        Set<String> after = mMemoryCache.snapshot().keySet();
+        int dropped = 0;
+        for (String key : before) {
+            if (!after.contains(key)) {
+                dropped++;
+                if (mTrimmed.size() >= MAX_TRIMMED_KEYS) {
+                    // Images that weren't shown again since are unlikely to be
+                    mTrimmed.clear();
+                }
+                mTrimmed.add(key);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Returns the cached file of the URL, downloading it first if needed.
+     */
+    private File download(String url, Cancellation cancellation) throws IOException {
+        File file = mDiskCache.get(url);
+        if (file != null) {
+            Metrics.counter(Metrics.IMAGE_DISK_HIT).increment();
+            return file;
+        }
+
+        final HttpResponse response = mTransport.get(new URL(url), null, null);
+        Runnable abort = new Runnable() {
+            @Override
+            public void run() {
+                response.abort();
+            }
+        };
+        cancellation.addListener(abort);
+        try {
+            if (!response.isSuccessful()) {
+                throw new IOException("Error response code: " + response.getCode());
+            }
+            Metrics.counter(Metrics.IMAGE_DOWNLOAD).increment();
+            return mDiskCache.put(url, response.getBody(), cancellation);
+        } finally {
+            cancellation.removeListener(abort);
+            response.close();
+        }
+    }
+
+    /**
+     * Decode the image file, skipping pixels so it's no larger than needed to cover the given
+     * size. Thumbnails are opaque JPEGs, so 16 bits per pixel are enough.
+     */
+    private static Bitmap decode(File file, int width, int height) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not an image: " + file);
+        }
+
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap == null) {
+            throw new IOException("Can't decode " + file);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decode the image resource like {@link #decode(File, int, int)}, scaled for the density
+     * of the screen as usual.
+     *
+     * @return the image, or null if it can't be decoded
+     */
+    private static Bitmap decode(Resources resources, int resId, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeResource(resources, resId, options);
+    }
+
+    /**
+     * Returns the largest power of two to divide the image size by that still covers the
+     * requested size.
+     */
+    private static int sampleSize(int imageWidth, int imageHeight, int width, int height) {
+        int sampleSize = 1;
+        while (imageWidth / (sampleSize * 2) >= width && imageHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Loads one image for every view waiting for it.
+     */
+    private final class Request implements Runnable {
+
+        private final String mKey;
+        private final String mUrl;
+        private final int mWidth;
+        private final int mHeight;
+        private final Cancellation mCancellation = new Cancellation();
+
+        /**
+         * Whether the image was dropped by a trim, and when it was asked for again
+         */
+        private final boolean mTrimmed;
+        private final long mStart = System.nanoTime();
+
+        /**
+         * Views waiting for the image, only touched on the main thread
+         */
+        private final List<ImageView> mViews = new ArrayList<>(1);
+
+        Request(String key, String url, int width, int height, boolean trimmed) {
+            mKey = key;
+            mUrl = url;
+            mWidth = width;
+            mHeight = height;
+            mTrimmed = trimmed;
+        }
+
+        /**
+         * This is on a loader thread.
+         */
+        @Override
+        public void run() {
+            if (mCancellation.isCancelled()) {
+                return;
+            }
+            Bitmap bitmap = null;
+            try {
+                File file = download(mUrl, mCancellation);
+                mCancellation.throwIfCancelled();
+                long start = System.nanoTime();
+                bitmap = decode(file, mWidth, mHeight);
+                Metrics.timer(Metrics.IMAGE_DECODE).stop(start);
+            } catch (IOException e) {
+                if (!mCancellation.isCancelled()) {
+                    Log.w(LOG_TAG, "Problem loading the image " + mUrl, e);
+                }
+            }
+
+            final Bitmap result = bitmap;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(Request.this, result);
+                }
+            });
+        }
+    }
+}
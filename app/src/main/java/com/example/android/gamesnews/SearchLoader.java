@@ -0,0 +1,134 @@
+package com.example.android.gamesnews;
+
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+import com.example.android.gamesnews.data.ArticleRepository;
+import com.example.android.gamesnews.data.ArticleStore;
+import com.example.android.gamesnews.data.FeedAggregator;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searches the titles, authors and sections of the stored articles.
+ * <p>
+ * The local full text index answers as the user types. When the query is submitted the
+ * guardians search is asked as well, for articles that were never stored, and both
+ * result lists are merged newest first. The results are kept until the loader is
+ * restarted with another query, and restarting it cancels the remote search.
+ */
+public class SearchLoader extends AsyncTaskLoader<GamesResponse> {
+
+    /**
+     * Maximum number of local results
+     */
+    private static final int MAX_RESULTS = 50;
+
+    private final ArticleStore mStore;
+    private final ArticleRepository mRepository;
+
+    /**
+     * The query as typed by the user
+     */
+    private final String mQuery;
+
+    /**
+     * True to ask the guardians search too
+     */
+    private final boolean mRemote;
+
+    /**
+     * The results last delivered to the activity
+     */
+    private GamesResponse mResponse;
+
+    /**
+     * Cancellation of the load running in the background
+     */
+    private volatile Cancellation mCancellation;
+
+    /**
+     * Constructs a new {@link SearchLoader}.
+     *
+     * @param context of the activity
+     * @param query   as typed by the user
+     * @param remote  to ask the guardians search as well as the local index
+     */
+    public SearchLoader(Context context, String query, boolean remote) {
+        super(context);
+        mStore = ArticleStore.getInstance(context);
+        mRepository = ArticleRepository.getInstance(context.getCacheDir(), mStore);
+        mQuery = query;
+        mRemote = remote;
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (mResponse != null) {
+            deliverResult(mResponse);
+        }
+        if (takeContentChanged() || mResponse == null) {
+            forceLoad();
+        }
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public GamesResponse loadInBackground() {
+        Cancellation cancellation = new Cancellation();
+        mCancellation = cancellation;
+        if (isLoadInBackgroundCanceled()) {
+            return null;
+        }
+
+        List<Games> games = mStore.search(mQuery, MAX_RESULTS);
+
+        if (mRemote) {
+            // The remote results are stored too, so they are found locally next time
+            List<Games> remote = mRepository.load(
+                    FeedRequests.searchUrl(getContext(), mQuery), cancellation).getGames();
+            if (remote != null && !remote.isEmpty()) {
+                List<List<Games>> results = new ArrayList<>(2);
+                results.add(games);
+                results.add(remote);
+                games = FeedAggregator.merge(results);
+            }
+        }
+        return new GamesResponse(games, false, null, null, 1, 1);
+    }
+
+    /**
+     * This is on the main thread.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        Cancellation cancellation = mCancellation;
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+
+    @Override
+    public void deliverResult(GamesResponse response) {
+        if (isReset()) {
+            return;
+        }
+        mResponse = response;
+        if (isStarted()) {
+            super.deliverResult(response);
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelLoad();
+        mResponse = null;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.android.gamesnews;
+
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.example.android.gamesnews.utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the cold start of the app, from the process start to the first frame and to the
+ * first frame showing articles.
+ * <p>
+ * Both marks are logged under the {@code StartupTrace} tag, for example
+ * {@code StartupTrace: first_frame=412ms}, so automated runs can collect them with
+ * {@code adb logcat -s StartupTrace}. They are also recorded as the
+ * {@link Metrics#STARTUP_FIRST_FRAME} and {@link Metrics#STARTUP_CONTENT} timers, and the
+ * content mark reports the activity fully drawn for {@code am start -W}. The startup stages
+ * are {@link Trace} sections, so they show up in systrace and Perfetto captures.
+ * <p>
+ * Work that doesn't need to happen before the user sees the list is queued with
+ * {@link #runAfterFirstFrame} and runs once the first frame is drawn.
+ */
+public final class StartupTrace {
+
+    private static final String LOG_TAG = StartupTrace.class.getSimpleName();
+
+    /**
+     * Deferred work starts this long after the first frame, so it doesn't delay the next one
+     */
+    private static final long AFTER_FIRST_FRAME_DELAY_MILLIS = 100;
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * When the application was created, in {@link SystemClock#elapsedRealtime()} time
+     */
+    private static long sApplicationStart;
+
+    /**
+     * True once the respective mark was taken, marks are only taken once per process
+     */
+    private static boolean sFirstFrameDrawn;
+    private static boolean sContentShown;
+
+    /**
+     * Work waiting for the first frame, only touched on the main thread
+     */
+    private static final List<Runnable> sAfterFirstFrame = new ArrayList<>();
+
+    /**
+     * Create a private constructor because no one should ever create a {@link StartupTrace} object.
+     */
+    private StartupTrace() {
+    }
+
+    /**
+     * Mark the start of the application. Call first thing in {@link GamesApplication#onCreate}.
+     */
+    public static void onApplicationCreate() {
+        sApplicationStart = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Begin a named section of the startup in the system trace. Call on the main thread.
+     */
+    public static void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    /**
+     * End the section begun last on this thread.
+     */
+    public static void endSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * Take the first frame mark once the activity's window draws for the first time.
+     * Call on the main thread, before the activity's first frame, from {@code onCreate}.
+     */
+    public static void watchFirstFrame(Activity activity) {
+        if (sFirstFrameDrawn) {
+            return;
+        }
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // The frame is being drawn now, the mark is taken as soon as it's done
+                        sMainHandler.postAtFrontOfQueue(new Runnable() {
+                            @Override
+                            public void run() {
+                                onFirstFrame();
+                            }
+                        });
+                        return true;
+                    }
+                });
+    }
+
+    /**
+     * Take the content mark, the first time the activity draws a frame showing articles.
+     * Call on the main thread once the articles are handed to the list.
+     */
+    public static void onContentShown(final Activity activity) {
+        if (sContentShown) {
+            return;
+        }
+        sContentShown = true;
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        long millis = record(Metrics.STARTUP_CONTENT, "content");
+                        if (millis >= 0) {
+                            activity.reportFullyDrawn();
+                        }
+                        return true;
+                    }
+                });
+    }
+
+    /**
+     * Run the work once the first frame has been drawn, or right away if it has been.
+     * Call on the main thread.
+     */
+    public static void runAfterFirstFrame(Runnable work) {
+        if (sFirstFrameDrawn) {
+            work.run();
+        } else {
+            sAfterFirstFrame.add(work);
+        }
+    }
+
+    private static void onFirstFrame() {
+        sFirstFrameDrawn = true;
+        record(Metrics.STARTUP_FIRST_FRAME, "first_frame");
+
+        final List<Runnable> deferred = new ArrayList<>(sAfterFirstFrame);
+        sAfterFirstFrame.clear();
+        sMainHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                beginSection("StartupTrace.afterFirstFrame");
+                try {
+                    for (Runnable work : deferred) {
+                        work.run();
+                    }
+                } finally {
+                    endSection();
+                }
+            }
+        }, AFTER_FIRST_FRAME_DELAY_MILLIS);
+    }
+
+    /**
+     * Record and log the time since the start of the process.
+     *
+     * @return the time in milliseconds, or -1 if the start isn't known
+     */
+    private static long record(String metric, String mark) {
+        long start = processStart();
+        if (start == 0) {
+            return -1;
+        }
+        long millis = SystemClock.elapsedRealtime() - start;
+        Metrics.timer(metric).record(TimeUnit.MILLISECONDS.toNanos(millis));
+        Log.i(LOG_TAG, mark + "=" + millis + "ms");
+        return millis;
+    }
+
+    /**
+     * Returns when the process was started, or when the application was created on
+     * versions that don't tell.
+     */
+    private static long processStart() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return Process.getStartElapsedRealtime();
+        }
+        return sApplicationStart;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.android.gamesnews;
+
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+import com.example.android.gamesnews.data.ArticleStore;
+import com.example.android.gamesnews.utils.GamesResponse;
+
+import java.util.List;
+
+/**
+ * Loads one page of the articles kept in the {@link ArticleStore}, used when nothing
+ * could be fetched from the network.
+ * <p>
+ * Pages are read relative to an article already shown (the last one when scrolling down,
+ * the first one when scrolling back up), so every page is a short indexed query.
+ */
+public class StoreLoader extends AsyncTaskLoader<GamesResponse> {
+
+    private final ArticleStore mStore;
+
+    /**
+     * Number of the page to load, starting at 1
+     */
+    private final int mPage;
+
+    /**
+     * Article next to the page, null for the first page
+     */
+    private final Games mAnchor;
+
+    /**
+     * True to load the articles published after the anchor, false for the ones before it
+     */
+    private final boolean mNewer;
+
+    /**
+     * Number of pages known so far
+     */
+    private final int mTotalPages;
+
+    /**
+     * The page last delivered to the activity
+     */
+    private GamesResponse mResponse;
+
+    /**
+     * Constructs a new {@link StoreLoader}.
+     *
+     * @param context    of the activity
+     * @param page       to load, starting at 1
+     * @param anchor     is the article next to the page, or null for the first page
+     * @param newer      to load the page before the anchor instead of the one after it
+     * @param totalPages is the number of pages known so far
+     */
+    public StoreLoader(Context context, int page, Games anchor, boolean newer, int totalPages) {
+        super(context);
+        mStore = ArticleStore.getInstance(context);
+        mPage = page;
+        mAnchor = anchor;
+        mNewer = newer;
+        mTotalPages = totalPages;
+    }
+
+    @Override
+    protected void onStartLoading() {
+        // The stored page doesn't change while it's shown
+        if (mResponse != null) {
+            deliverResult(mResponse);
+        }
+        if (takeContentChanged() || mResponse == null) {
+            forceLoad();
+        }
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public GamesResponse loadInBackground() {
+        Context context = getContext();
+        List<String> sections = FeedRequests.feedSections(context);
+        int pageSize = FeedRequests.pageSize(context);
+
+        if (mNewer) {
+            List<Games> games = mStore.loadNewer(sections, mAnchor, pageSize);
+            return new GamesResponse(games, false, null, null, mPage, mTotalPages);
+        }
+
+        // One extra row tells whether there is another page after this one
+        List<Games> games = mStore.loadOlder(sections, mAnchor, pageSize + 1);
+        int pages = mPage;
+        if (games.size() > pageSize) {
+            games = games.subList(0, pageSize);
+            pages = mPage + 1;
+        }
+        return new GamesResponse(games, false, null, null, mPage, Math.max(pages, mTotalPages));
+    }
+
+    @Override
+    public void deliverResult(GamesResponse response) {
+        if (isReset()) {
+            return;
+        }
+        mResponse = response;
+        if (isStarted()) {
+            super.deliverResult(response);
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        mResponse = null;
+    }
+}
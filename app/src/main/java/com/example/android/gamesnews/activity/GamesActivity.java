@@ -3,62 +3,161 @@ package com.example.android.gamesnews.activity;
 import android.app.LoaderManager;
 import android.app.LoaderManager.LoaderCallbacks;
 import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.Loader;
-import android.content.SharedPreferences;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
-import android.net.Uri;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
+import android.support.annotation.NonNull;
+import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
 import android.widget.TextView;
 
-import com.example.android.gamesnews.BuildConfig;
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.FeedLoader;
+import com.example.android.gamesnews.FeedPreloader;
+import com.example.android.gamesnews.FeedRequests;
 import com.example.android.gamesnews.GameLoader;
 import com.example.android.gamesnews.Games;
 import com.example.android.gamesnews.GamesAdapter;
+import com.example.android.gamesnews.ImageLoader;
 import com.example.android.gamesnews.R;
+import com.example.android.gamesnews.SearchLoader;
+import com.example.android.gamesnews.StartupTrace;
+import com.example.android.gamesnews.StoreLoader;
+import com.example.android.gamesnews.data.FacetIndex;
+import com.example.android.gamesnews.data.FeedPager;
+import com.example.android.gamesnews.data.StoryClusterer;
+import com.example.android.gamesnews.sync.ArticlePrefetchWorker;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.MemoryTiers;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.NetworkQuality;
+import com.example.android.gamesnews.utils.QueryUtils;
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class GamesActivity extends AppCompatActivity implements LoaderCallbacks<List<Games>> {
+public class GamesActivity extends AppCompatActivity implements LoaderCallbacks<GamesResponse> {
 
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = GamesActivity.class.getSimpleName();
 
-    // a static inner class inside our Activity to use it in GamesAdapter.
-    public static class ViewHolder {
-        public TextView sectionTextView;
-        public TextView authorTextView;
-        public TextView dateTextView;
-        public TextView timeTextView;
-        public TextView titleTextView;
-    }
 
+    /**
+     * Constant value for the game loader ID. We can choose any integer.
+     * This really only comes into play if you're using multiple loaders.
+     */
+    private static final int GAME_LOADER_ID = 1;
 
     /**
-     * Tag for the log messages
+     * Loader ID used for every page after the first one.
      */
-    private static final String LOG_TAG = GamesActivity.class.getSimpleName();
+    private static final int PAGE_LOADER_ID = 2;
 
-    private static final String apiKey = BuildConfig.THE_GUARDIAN_API_KEY;
     /**
-     * URL for games data from the guardians dataset
+     * Loader ID used for the pages read from the local store while offline.
      */
-    private static final String Guardian_REQUEST_URL =
-            "https://content.guardianapis.com/search?&api-key=" + apiKey;
+    private static final int STORE_LOADER_ID = 3;
 
+    /**
+     * Loader ID used for the search results.
+     */
+    private static final int SEARCH_LOADER_ID = 4;
 
     /**
-     * Constant value for the game loader ID. We can choose any integer.
-     * This really only comes into play if you're using multiple loaders.
+     * Key of the page number in the loader arguments
      */
-    private static final int GAME_LOADER_ID = 1;
+    private static final String ARG_PAGE = "page";
+
+    /**
+     * Keys of the search query and of the remote flag in the loader arguments
+     */
+    private static final String ARG_QUERY = "query";
+    private static final String ARG_REMOTE = "remote";
+
+    /**
+     * dumpsys argument that writes the metrics to {@link #METRICS_FILE}
+     */
+    private static final String ARG_EXPORT_METRICS = "--export-metrics";
+
+    /**
+     * Name of the file the metrics are exported to
+     */
+    private static final String METRICS_FILE = "metrics.txt";
+
+    /**
+     * Key of the offline flag in the saved instance state
+     */
+    private static final String STATE_OFFLINE = "offline";
+
+    /**
+     * Key of the search query in the saved instance state
+     */
+    private static final String STATE_QUERY = "query";
+
+    /**
+     * Key of the page size of the list in the saved instance state
+     */
+    private static final String STATE_PAGE_SIZE = "page_size";
+
+    /**
+     * Keys of the filter of the list in the saved instance state
+     */
+    private static final String STATE_FILTER_KIND = "filter_kind";
+    private static final String STATE_FILTER_KEY = "filter_key";
+    private static final String STATE_FILTER_NAME = "filter_name";
+
+    /**
+     * Number of authors offered by the filter menu, the ones with the most articles
+     */
+    private static final int MAX_AUTHOR_FACETS = 20;
+
+    /**
+     * Names of the pages and of the author and section index in the memory metrics
+     */
+    private static final String PAGES_TIER = "pages";
+    private static final String FACETS_TIER = "facets";
+
+    /**
+     * Start loading the next page once the list is scrolled within this many items of its end
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Number of pages kept in memory, older ones are dropped and reloaded when needed
+     */
+    private static final int MAX_PAGES_IN_MEMORY = 5;
+
+    /**
+     * How long the first frame may wait for the persisted feed. Reading it usually takes
+     * less than inflating the layout, a slow read is shown in a later frame instead.
+     */
+    private static final long PRELOAD_WAIT_MILLIS = 50;
+
+    /**
+     * Number of articles, from the first visible one on, whose bodies are prefetched for
+     * the offline reader
+     */
+    private static final int PREFETCH_BODIES = 10;
 
     /**
      * Adapter for the list of games
@@ -70,137 +169,912 @@ public class GamesActivity extends AppCompatActivity implements LoaderCallbacks<
      */
     private TextView mEmptyStateTextView;
 
+    /**
+     * Tells how many articles the last refresh added above the ones shown before
+     */
+    private TextView mNewArticlesView;
+
+    private RecyclerView mGameListView;
+
+    private LinearLayoutManager mLayoutManager;
+
+    /**
+     * Pages loaded so far
+     */
+    private FeedPager mPager;
+
+    /**
+     * Every article shown so far by author and section, to filter the list in memory
+     */
+    private FacetIndex mFacets;
+
+    /**
+     * The author or section the list is filtered by, null if it isn't. The key is the one
+     * of {@link FacetIndex}, the name is what the filter bar shows.
+     */
+    private FacetIndex.Kind mFilterKind;
+    private String mFilterKey;
+    private String mFilterName;
+
+    /**
+     * Shows the filter, tapping it clears it
+     */
+    private TextView mFilterBar;
+
+    /**
+     * The search item of the options menu, null until the menu is created
+     */
+    private MenuItem mSearchItem;
+
+    /**
+     * What the activity gives back under memory pressure, registered while it exists
+     */
+    private final List<MemoryTiers.Tier> mMemoryTiers = new ArrayList<>();
+
+    /**
+     * Pages dropped under memory pressure and not loaded again yet, and when the page being
+     * loaded was asked for
+     */
+    private final Set<Integer> mTrimmedPages = new HashSet<>();
+    private long mLoadingStart;
+
+    /**
+     * Whether the index was emptied under memory pressure, it's built again from the pages
+     * when the user filters next
+     */
+    private boolean mFacetsTrimmed;
+
+    /**
+     * Results of the running search, they aren't indexed
+     */
+    private List<Games> mSearchResults;
+
+    /**
+     * Page currently being loaded, 0 if none
+     */
+    private int mLoadingPage;
+
+    /**
+     * True while the list shows stored articles because nothing could be fetched
+     */
+    private boolean mOffline;
+
+    /**
+     * The search whose results are shown instead of the pages, null if there is none
+     */
+    private String mQuery;
+
+    /**
+     * The requests the list was loaded with, to notice when the settings change them
+     */
+    private String mFeedRequest;
+
+    /**
+     * Number of articles per page, picked for the network when the list is loaded and kept
+     * for its later pages so they line up
+     */
+    private int mPageSize;
+
+    /**
+     * Reads the persisted feed during the first start, null once the list has been loaded
+     */
+    private FeedPreloader mPreloader;
+
+    /**
+     * The articles whose bodies were last asked to be prefetched
+     */
+    private List<String> mPrefetchedBodies;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.beginSection("GamesActivity.onCreate");
         super.onCreate(savedInstanceState);
+
+        // Keep the loaded pages and their index across configuration changes
+        Retained retained = (Retained) getLastCustomNonConfigurationInstance();
+        if (retained != null) {
+            mPager = retained.mPager;
+            mFacets = retained.mFacets;
+        } else {
+            mPager = new FeedPager(MAX_PAGES_IN_MEMORY);
+            mFacets = new FacetIndex();
+        }
+        if (savedInstanceState != null) {
+            mOffline = savedInstanceState.getBoolean(STATE_OFFLINE);
+            mQuery = savedInstanceState.getString(STATE_QUERY);
+            mPageSize = savedInstanceState.getInt(STATE_PAGE_SIZE);
+            String filterKind = savedInstanceState.getString(STATE_FILTER_KIND);
+            if (filterKind != null) {
+                mFilterKind = FacetIndex.Kind.valueOf(filterKind);
+                mFilterKey = savedInstanceState.getString(STATE_FILTER_KEY);
+                mFilterName = savedInstanceState.getString(STATE_FILTER_NAME);
+            }
+        }
+        mFeedRequest = FeedRequests.feedRequest(this);
+
+        // A new list is sized for the current network
+        LoaderManager loaderManager = getLoaderManager();
+        if (loaderManager.getLoader(GAME_LOADER_ID) == null || mPageSize == 0) {
+            mPageSize = FeedRequests.adaptivePageSize(this);
+        }
+
+        // Read the persisted feed, and request the first page if it's stale, while the
+        // layout is inflated
+        if (mPager.isEmpty() && mQuery == null) {
+            mPreloader = FeedPreloader.start(this, mPageSize);
+        }
+
+        StartupTrace.beginSection("inflate");
         setContentView(R.layout.activity_games);
+        StartupTrace.endSection();
+        StartupTrace.watchFirstFrame(this);
+
+        // The background image is the largest decode of the startup, nothing waits for it
+        final View root = findViewById(R.id.root);
+        StartupTrace.runAfterFirstFrame(new Runnable() {
+            @Override
+            public void run() {
+                ImageLoader.getInstance(GamesActivity.this)
+                        .loadBackground(R.drawable.henry_co_1388031_unsplash, root);
+            }
+        });
 
-        // Find a reference to the {@link ListView} in the layout
-        ListView gameListView = findViewById(R.id.list);
+        // Find a reference to the {@link RecyclerView} in the layout
+        mGameListView = findViewById(R.id.list);
+        mLayoutManager = new LinearLayoutManager(this);
+        mGameListView.setLayoutManager(mLayoutManager);
 
         mEmptyStateTextView = findViewById(R.id.empty_view);
-        gameListView.setEmptyView(mEmptyStateTextView);
 
-        // Create a new adapter that takes an empty list of games as input
-        mAdapter = new GamesAdapter(this, new ArrayList<Games>());
+        // Tapping the new articles indicator scrolls up to them
+        mNewArticlesView = findViewById(R.id.new_articles);
+        mNewArticlesView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                mNewArticlesView.setVisibility(View.GONE);
+                mGameListView.smoothScrollToPosition(0);
+            }
+        });
 
-        // Set the adapter on the {@link ListView}
-        // so the list can be populated in the user interface
-        gameListView.setAdapter(mAdapter);
+        // Tapping the filter bar shows the whole list again
+        mFilterBar = findViewById(R.id.filter_bar);
+        mFilterBar.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                clearFilter();
+            }
+        });
 
-        // Set an item click listener on the ListView, which sends an intent to a web browser
-        // to open a website with more information about the selected game.
-        gameListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // Create a new adapter with a click listener, which opens the selected game in the
+        // reader. Its body is usually prefetched, so it shows without going to the network.
+        // Tapping the author or section of a game filters the list by them.
+        mAdapter = new GamesAdapter(this, new GamesAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
-                // Find the current game that was clicked on
-                Games currentGame = mAdapter.getItem(position);
+            public void onItemClick(String url, String title) {
+                Intent readerIntent = new Intent(GamesActivity.this, ReaderActivity.class);
+                readerIntent.putExtra(ReaderActivity.EXTRA_URL, url);
+                readerIntent.putExtra(ReaderActivity.EXTRA_TITLE, title);
+                startActivity(readerIntent);
+            }
 
-                // Convert the String URL into a URI object (to pass into the Intent constructor)
-                Uri gameUri = Uri.parse(currentGame.getUrl());
+            @Override
+            public void onFacetClick(FacetIndex.Kind kind, String url) {
+                filterByArticle(kind, url);
+            }
+        });
 
-                // Create a new intent to view the game URI
-                Intent websiteIntent = new Intent(Intent.ACTION_VIEW, gameUri);
+        // Set the adapter on the {@link RecyclerView}
+        // so the list can be populated in the user interface
+        mGameListView.setAdapter(mAdapter);
+        showFilterBar();
+        showGames(listedGames());
+        if (mPreloader != null) {
+            List<Games> preloaded = mPreloader.await(PRELOAD_WAIT_MILLIS,
+                    new FeedPreloader.Listener() {
+                        @Override
+                        public void onPreloaded(List<Games> games) {
+                            showPreloaded(games);
+                        }
+                    });
+            if (preloaded != null) {
+                showPreloaded(preloaded);
+            }
+        }
 
-                // Send the intent to launch a new activity
-                startActivity(websiteIntent);
+        // Prefetch the neighbouring page once the user scrolls close to either end of the list
+        mGameListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    prefetchBodies();
+                }
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int firstVisibleItem = mLayoutManager.findFirstVisibleItemPosition();
+                if (firstVisibleItem == 0) {
+                    // The new articles have been seen
+                    mNewArticlesView.setVisibility(View.GONE);
+                }
+                int totalItemCount = mLayoutManager.getItemCount();
+                if (totalItemCount == 0 || mLoadingPage != 0 || mQuery != null
+                        || mFilterKind != null) {
+                    return;
+                }
+                int lastVisibleItem = mLayoutManager.findLastVisibleItemPosition();
+                if (dy >= 0 && mPager.hasNextPage()
+                        && lastVisibleItem >= totalItemCount - 1 - PREFETCH_DISTANCE) {
+                    loadPage(mPager.getLastPage() + 1);
+                } else if (dy <= 0 && mPager.hasPreviousPage()
+                        && firstVisibleItem <= PREFETCH_DISTANCE) {
+                    loadPage(mPager.getFirstPage() - 1);
+                }
             }
         });
 
-        // Get a reference to the ConnectivityManager to check state of network connectivity
-        ConnectivityManager connMgr = (ConnectivityManager)
-                getSystemService(Context.CONNECTIVITY_SERVICE);
+        registerMemoryTiers();
 
-        // Get details on the currently active default data network
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+        // Initialize the loader. Pass in the int ID constant defined above and pass in null for
+        // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
+        // because this activity implements the LoaderCallbacks interface).
+        // The loaders read the local cache first, which the background sync keeps current,
+        // so this doesn't wait for a network connection.
+        loaderManager.initLoader(GAME_LOADER_ID, null, this);
+        if (mQuery != null) {
+            // Reconnect to the search that was running before the configuration change
+            loaderManager.initLoader(SEARCH_LOADER_ID, searchArgs(mQuery, false), this);
+        }
+        StartupTrace.endSection();
+    }
 
-        // If there is a network connection, fetch data
-        if (networkInfo != null && networkInfo.isConnected()) {
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        dropPreloader();
+        for (MemoryTiers.Tier tier : mMemoryTiers) {
+            MemoryTiers.unregister(tier);
+        }
+    }
 
-            // Initialize the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            loaderManager.initLoader(GAME_LOADER_ID, null, this);
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Coming back from the settings, the loaders still hold the list of the old ones
+        String feedRequest = FeedRequests.feedRequest(this);
+        if (!feedRequest.equals(mFeedRequest)) {
+            mFeedRequest = feedRequest;
+            reloadFeed();
+        }
+    }
+
+    @Override
+    public Object onRetainCustomNonConfigurationInstance() {
+        return new Retained(mPager, mFacets);
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(STATE_OFFLINE, mOffline);
+        outState.putString(STATE_QUERY, mQuery);
+        outState.putInt(STATE_PAGE_SIZE, mPageSize);
+        if (mFilterKind != null) {
+            outState.putString(STATE_FILTER_KIND, mFilterKind.name());
+            outState.putString(STATE_FILTER_KEY, mFilterKey);
+            outState.putString(STATE_FILTER_NAME, mFilterName);
+        }
+    }
+
+    /**
+     * Drop the pages and load the list again for the current settings. Restarting the
+     * loader cancels the request still running for the old settings.
+     */
+    private void reloadFeed() {
+        dropPreloader();
+        mPageSize = 0;
+        mPager.clear();
+        mTrimmedPages.clear();
+        mFacets.clear();
+        mFacetsTrimmed = false;
+        mFilterKind = null;
+        showFilterBar();
+        mOffline = false;
+        mLoadingPage = 0;
+        mNewArticlesView.setVisibility(View.GONE);
+        if (mQuery == null) {
+            mAdapter.submitList(mPager.getGames());
+            mEmptyStateTextView.setVisibility(View.GONE);
+        }
+        findViewById(R.id.loading_indicator).setVisibility(View.VISIBLE);
+
+        LoaderManager loaderManager = getLoaderManager();
+        loaderManager.destroyLoader(PAGE_LOADER_ID);
+        loaderManager.destroyLoader(STORE_LOADER_ID);
+        loaderManager.restartLoader(GAME_LOADER_ID, null, this);
+    }
+
+    /**
+     * Load the given page of results in the background, from the local store if offline.
+     */
+    private void loadPage(int page) {
+        mLoadingPage = page;
+        mLoadingStart = System.nanoTime();
+        Bundle args = new Bundle();
+        args.putInt(ARG_PAGE, page);
+        getLoaderManager().restartLoader(mOffline ? STORE_LOADER_ID : PAGE_LOADER_ID, args, this);
+    }
+
+    /**
+     * Show the results of the given search instead of the pages, or the pages again if
+     * the query is blank.
+     *
+     * @param query  as typed by the user
+     * @param remote to ask the guardians search as well as the local index
+     */
+    private void search(String query, boolean remote) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty()) {
+            endSearch();
+            return;
+        }
+        mQuery = trimmed;
+        mNewArticlesView.setVisibility(View.GONE);
+        showFilterBar();
+        getLoaderManager().restartLoader(SEARCH_LOADER_ID, searchArgs(trimmed, remote), this);
+    }
+
+    /**
+     * Drop the search results and show the pages again.
+     */
+    private void endSearch() {
+        if (mQuery != null) {
+            mQuery = null;
+            mSearchResults = null;
+            getLoaderManager().destroyLoader(SEARCH_LOADER_ID);
+            showFilterBar();
+            showGames(listedGames());
+        }
+    }
+
+    /**
+     * Filter the list by the author or section of the given article. An article of
+     * several authors asks which one.
+     */
+    private void filterByArticle(FacetIndex.Kind kind, String url) {
+        restoreFacets();
+        Games game = mFacets.get(url);
+        if (game == null && mQuery != null && mSearchResults != null) {
+            // A search hit: the filter lists the articles of the feed by the same author
+            // or in the same section
+            for (Games result : mSearchResults) {
+                if (url.equals(result.getUrl())) {
+                    game = result;
+                    break;
+                }
+            }
+        }
+        if (game == null) {
+            return;
+        }
+        if (kind == FacetIndex.Kind.SECTION) {
+            filter(kind, game.getSection(), game.getSection());
+            return;
+        }
+        final List<Contributor> contributors = game.getContributors();
+        if (contributors.isEmpty()) {
+            if (game.getAuthor() != null) {
+                filter(kind, game.getAuthor(), game.getAuthor());
+            }
+        } else if (contributors.size() == 1) {
+            filter(kind, contributors.get(0).getId(), contributors.get(0).getName());
         } else {
-            // Otherwise, display error
-            // First, hide loading indicator so error message will be visible
-            View loadingIndicator = findViewById(R.id.loading_indicator);
-            loadingIndicator.setVisibility(View.GONE);
+            String[] names = new String[contributors.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = contributors.get(i).getName();
+            }
+            new AlertDialog.Builder(this)
+                    .setTitle(R.string.filter_author_title)
+                    .setItems(names, new DialogInterface.OnClickListener() {
+                        @Override
+                        public void onClick(DialogInterface dialog, int which) {
+                            Contributor contributor = contributors.get(which);
+                            filter(FacetIndex.Kind.AUTHOR, contributor.getId(),
+                                    contributor.getName());
+                        }
+                    })
+                    .show();
+        }
+    }
 
-            // Update empty state with no connection error message
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
+    /**
+     * Offer the sections and the authors with the most articles to filter the list by.
+     */
+    private void showFilterMenu() {
+        restoreFacets();
+        final List<FacetIndex.Facet> facets = new ArrayList<>(
+                mFacets.getFacets(FacetIndex.Kind.SECTION));
+        List<FacetIndex.Facet> authors = mFacets.getFacets(FacetIndex.Kind.AUTHOR);
+        facets.addAll(authors.subList(0, Math.min(MAX_AUTHOR_FACETS, authors.size())));
+        AlertDialog.Builder dialog = new AlertDialog.Builder(this).setTitle(R.string.filter_title);
+        if (facets.isEmpty()) {
+            dialog.setMessage(R.string.filter_empty).show();
+            return;
         }
+        String[] items = new String[facets.size()];
+        for (int i = 0; i < items.length; i++) {
+            FacetIndex.Facet facet = facets.get(i);
+            items[i] = getString(facet.getKind() == FacetIndex.Kind.SECTION
+                    ? R.string.facet_section : R.string.facet_author,
+                    facet.getName(), facet.getCount());
+        }
+        dialog.setItems(items, new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                FacetIndex.Facet facet = facets.get(which);
+                filter(facet.getKind(), facet.getKey(), facet.getName());
+            }
+        }).show();
     }
 
-    @Override
-    public Loader<List<Games>> onCreateLoader(int i, Bundle bundle) {
+    /**
+     * Show only the articles of the given author or section, looked up in the index of the
+     * articles shown so far. A search is closed first.
+     */
+    private void filter(FacetIndex.Kind kind, String key, String name) {
+        if (mSearchItem != null && mSearchItem.isActionViewExpanded()) {
+            mSearchItem.collapseActionView();
+        }
+        mFilterKind = kind;
+        mFilterKey = key;
+        mFilterName = name;
+        mNewArticlesView.setVisibility(View.GONE);
+        showFilterBar();
+        showGames(listedGames());
+        mGameListView.scrollToPosition(0);
+    }
 
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
+    /**
+     * Show the whole list again.
+     */
+    private void clearFilter() {
+        if (mFilterKind != null) {
+            mFilterKind = null;
+            showFilterBar();
+            if (mQuery == null) {
+                showGames(listedGames());
+            }
+        }
+    }
 
-        String orderBy = sharedPrefs.getString(
-                getString(R.string.settings_order_by_key),
-                getString(R.string.settings_order_by_default));
+    private void showFilterBar() {
+        if (mFilterKind == null || mQuery != null) {
+            mFilterBar.setVisibility(View.GONE);
+            return;
+        }
+        mFilterBar.setText(getString(mFilterKind == FacetIndex.Kind.AUTHOR
+                ? R.string.filter_by_author : R.string.filter_in_section, mFilterName));
+        mFilterBar.setVisibility(View.VISIBLE);
+    }
 
-        String pageSize = sharedPrefs.getString(
-                getString(R.string.settings_page_size_key),
-                getString(R.string.settings_page_size_default));
+    /**
+     * Give memory back when the system runs short: once the app is in the background the
+     * pages but the one at the top of the list, which are loaded again from the cache or
+     * the store when the user scrolls to them, and the groups of stories, which are found
+     * again with the next list. When the process is about to be killed the author and
+     * section index goes too, unless the list is filtered.
+     */
+    private void registerMemoryTiers() {
+        mMemoryTiers.add(new MemoryTiers.Tier() {
+            @Override
+            public String getName() {
+                return PAGES_TIER;
+            }
 
-        String sections = sharedPrefs.getString(
-                getString(R.string.settings_sections_key),
-                getString(R.string.settings_sections_default));
+            @Override
+            public int trim(MemoryTiers.Pressure pressure) {
+                if (pressure.compareTo(MemoryTiers.Pressure.BACKGROUND) < 0
+                        || mLoadingPage != 0) {
+                    return 0;
+                }
+                return trimPages();
+            }
+        });
+        mMemoryTiers.add(new MemoryTiers.Tier() {
+            @Override
+            public String getName() {
+                return StoryClusterer.TIER;
+            }
 
+            @Override
+            public int trim(MemoryTiers.Pressure pressure) {
+                if (pressure.compareTo(MemoryTiers.Pressure.BACKGROUND) < 0) {
+                    return 0;
+                }
+                return mAdapter.trimMemory();
+            }
+        });
+        mMemoryTiers.add(new MemoryTiers.Tier() {
+            @Override
+            public String getName() {
+                return FACETS_TIER;
+            }
 
-        Uri baseUri = Uri.parse(Guardian_REQUEST_URL);
-        Uri.Builder uriBuilder = baseUri.buildUpon();
+            @Override
+            public int trim(MemoryTiers.Pressure pressure) {
+                if (pressure != MemoryTiers.Pressure.CRITICAL || mFilterKind != null) {
+                    return 0;
+                }
+                int dropped = mFacets.size();
+                mFacets.clear();
+                mFacetsTrimmed = true;
+                return dropped;
+            }
+        });
+        for (MemoryTiers.Tier tier : mMemoryTiers) {
+            MemoryTiers.register(tier);
+        }
+    }
 
-        uriBuilder.appendQueryParameter("section", sections);
-        uriBuilder.appendQueryParameter("order-by", orderBy);
-        uriBuilder.appendQueryParameter("show-tags", "contributor");
-        uriBuilder.appendQueryParameter("page-size", pageSize);
+    /**
+     * Drop every page but the one of the first visible row.
+     *
+     * @return the number of articles dropped
+     */
+    private int trimPages() {
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        int page = 0;
+        if (first != RecyclerView.NO_POSITION && mQuery == null && mFilterKind == null) {
+            page = mPager.getPageOf(mAdapter.getUrl(first));
+        }
+        if (page == 0) {
+            page = mPager.getFirstPage();
+        }
+        int before = mPager.getGames().size();
+        List<Integer> dropped = mPager.trimTo(page);
+        if (dropped.isEmpty()) {
+            return 0;
+        }
+        mTrimmedPages.addAll(dropped);
+        mFacets.retain(mPager.getGames());
+        if (mQuery == null) {
+            showGames(listedGames());
+        }
+        return before - mPager.getGames().size();
+    }
 
-        // Create a new loader for the given URI
-        return new GameLoader(this, uriBuilder.toString());
+    /**
+     * Build the author and section index again if it was emptied under memory pressure.
+     */
+    private void restoreFacets() {
+        if (mFacetsTrimmed) {
+            long start = System.nanoTime();
+            mFacets.add(mPager.getGames());
+            mFacetsTrimmed = false;
+            MemoryTiers.rehydrated(FACETS_TIER, start);
+        }
+    }
 
+    /**
+     * Returns the pages, or the articles of the filter if there is one.
+     */
+    private List<Games> listedGames() {
+        return mFilterKind != null ? mFacets.filter(mFilterKind, mFilterKey) : mPager.getGames();
+    }
 
+    private static Bundle searchArgs(String query, boolean remote) {
+        Bundle args = new Bundle();
+        args.putString(ARG_QUERY, query);
+        args.putBoolean(ARG_REMOTE, remote);
+        return args;
     }
 
     @Override
-    public void onLoadFinished(Loader<List<Games>> loader, List<Games> games) {
+    public Loader<GamesResponse> onCreateLoader(int i, Bundle bundle) {
+
+        if (i == SEARCH_LOADER_ID) {
+            return new SearchLoader(this, bundle.getString(ARG_QUERY),
+                    bundle.getBoolean(ARG_REMOTE));
+        }
+
+        // Stored pages continue right after the last article shown, or end right
+        // before the first one when scrolling back up
+        if (i == STORE_LOADER_ID) {
+            int page = bundle.getInt(ARG_PAGE);
+            List<Games> shown = mPager.getGames();
+            if (shown.isEmpty()) {
+                return new StoreLoader(this, page, null, false, 0);
+            }
+            boolean newer = page < mPager.getFirstPage();
+            Games anchor = newer ? shown.get(0) : shown.get(shown.size() - 1);
+            return new StoreLoader(this, page, anchor, newer, mPager.getTotalPages());
+        }
+
+        // The first page sizes the list for the current network
+        if (mPageSize == 0) {
+            mPageSize = FeedRequests.adaptivePageSize(this);
+        }
+
+        // "My feed" merges several sections into one list
+        if (i == GAME_LOADER_ID) {
+            Map<String, String> sectionUrls = FeedRequests.myFeedUrls(this, mPageSize);
+            if (!sectionUrls.isEmpty()) {
+                return new FeedLoader(this, sectionUrls);
+            }
+        }
+
+        // Create a new loader for the given URI
+        int page = bundle != null ? bundle.getInt(ARG_PAGE) : 0;
+        return new GameLoader(this, FeedRequests.sectionUrl(this, page, mPageSize));
+    }
+
+    @Override
+    public void onLoadFinished(Loader<GamesResponse> loader, GamesResponse response) {
 
         // Hide loading indicator because the data has been loaded
         View loadingIndicator = findViewById(R.id.loading_indicator);
         loadingIndicator.setVisibility(View.GONE);
 
-        // Set empty state text to display "No games found."
-        mEmptyStateTextView.setText(R.string.no_games);
+        // Set empty state text to display "No games found.", or the connection error
+        // if nothing could be loaded because we're offline
+        mEmptyStateTextView.setText(isConnected()
+                ? R.string.no_games : R.string.no_internet_connection);
 
-        // Clear the adapter of previous game data
-        mAdapter.clear();
+        List<Games> games = response.getGames();
+        if (loader.getId() == SEARCH_LOADER_ID) {
+            // Search hits come from every section, the filters only list the feed
+            mSearchResults = games;
+            if (mQuery != null) {
+                showGames(games);
+            }
+            return;
+        }
+        if (games != null) {
+            // Only the new and changed articles are indexed
+            mFacets.add(games);
+        }
 
-        // If there is a valid list of {@link Games}s, then add them to the adapter's
-        // data set. This will trigger the ListView to update.
-        if (games != null && !games.isEmpty()) {
-            mAdapter.addAll(games);
+        if (loader.getId() != GAME_LOADER_ID) {
+            mLoadingPage = 0;
+            if (games != null && mTrimmedPages.remove(response.getCurrentPage())) {
+                MemoryTiers.rehydrated(PAGES_TIER, mLoadingStart);
+            }
+        }
+
+        if (loader.getId() == GAME_LOADER_ID) {
+            // The loaded list replaces the persisted one shown meanwhile
+            dropPreloader();
+            boolean failed = games == null || (games.isEmpty() && !isConnected());
+            if (failed && mPager.isEmpty()) {
+                // Nothing could be fetched, show the stored articles instead
+                mOffline = true;
+                loadPage(1);
+                return;
+            }
+            if (!failed && mOffline) {
+                // Back online, the fetched pages replace the stored ones
+                mOffline = false;
+                mPager.clear();
+                getLoaderManager().destroyLoader(STORE_LOADER_ID);
+            }
+        }
+
+        // A failed page leaves the pages we already have untouched
+        if (games == null && !mPager.isEmpty()) {
+            return;
+        }
+
+        // A refresh of the first page tells how many of its articles weren't shown before
+        int newArticles = 0;
+        if (loader.getId() == GAME_LOADER_ID && !mPager.isEmpty() && games != null) {
+            newArticles = countNew(games, mPager.getGames());
+        }
+
+        // Hand the new list to the adapter. It's diffed against the current one in the
+        // background and only the changed rows are rebound, keeping the scroll position.
+        // While searching the pages are kept for when the search is closed.
+        mPager.putPage(response.getCurrentPage(), games, response.getPages());
+        // The articles of a page the pager dropped leave the filters too
+        mFacets.retain(mPager.getGames());
+        if (mQuery == null) {
+            showGames(listedGames());
+            if (loader.getId() == GAME_LOADER_ID) {
+                // Rows are laid out with the next frame
+                mGameListView.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        prefetchBodies();
+                    }
+                });
+            }
+        }
+        if (newArticles > 0) {
+            mNewArticlesView.setText(getResources().getQuantityString(
+                    R.plurals.new_articles, newArticles, newArticles));
+            mNewArticlesView.setVisibility(mQuery == null && mFilterKind == null
+                    ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    /**
+     * Prefetch the bodies of the articles from the first visible one on, for the reader.
+     */
+    private void prefetchBodies() {
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || mQuery != null) {
+            return;
+        }
+        int end = Math.min(mAdapter.getItemCount(), first + PREFETCH_BODIES);
+        List<String> urls = new ArrayList<>(end - first);
+        for (int position = first; position < end; position++) {
+            urls.add(mAdapter.getUrl(position));
+        }
+        if (!urls.isEmpty() && !urls.equals(mPrefetchedBodies)) {
+            mPrefetchedBodies = urls;
+            ArticlePrefetchWorker.prefetch(urls);
+        }
+    }
+
+    /**
+     * Returns the number of games that aren't among the shown ones.
+     */
+    private static int countNew(List<Games> games, List<Games> shown) {
+        Set<String> shownUrls = new HashSet<>();
+        for (Games game : shown) {
+            shownUrls.add(game.getUrl());
+        }
+        int count = 0;
+        for (Games game : games) {
+            if (!shownUrls.contains(game.getUrl())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if there is a network connection.
+     */
+    private boolean isConnected() {
+        // Get a reference to the ConnectivityManager to check state of network connectivity
+        ConnectivityManager connMgr = (ConnectivityManager)
+                getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        // Get details on the currently active default data network
+        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    /**
+     * Show the games in the list, or the empty state if there are none.
+     */
+    private void showGames(List<Games> games) {
+        long start = System.nanoTime();
+        mAdapter.submitList(games);
+        mEmptyStateTextView.setVisibility(games.isEmpty() ? View.VISIBLE : View.GONE);
+        if (!games.isEmpty()) {
+            StartupTrace.onContentShown(this);
+        }
+        Metrics.timer(Metrics.DELIVER).stop(start);
+    }
+
+    /**
+     * Show the persisted feed until the loader delivers, unless it already did.
+     */
+    private void showPreloaded(List<Games> games) {
+        if (mPreloader == null || games.isEmpty()) {
+            return;
+        }
+        mFacets.add(games);
+        if (mFilterKind != null) {
+            return;
+        }
+        findViewById(R.id.loading_indicator).setVisibility(View.GONE);
+        showGames(games);
+    }
+
+    /**
+     * Stop waiting for the persisted feed.
+     */
+    private void dropPreloader() {
+        if (mPreloader != null) {
+            mPreloader.cancel();
+            mPreloader = null;
+        }
+    }
+
+    /**
+     * Adds the fetch pipeline metrics to {@code adb shell dumpsys activity}. With the
+     * {@code --export-metrics} argument they are also written to a file in the app's
+     * external files directory, which can be pulled without root.
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.print(prefix);
+        writer.println("Metrics:");
+        Metrics.dump(writer);
+        writer.print(prefix);
+        writer.println("Network: " + NetworkQuality.get());
+        writer.print(prefix);
+        writer.println("Budget: " + QueryUtils.getRequestBudget());
+
+        if (args != null && Arrays.asList(args).contains(ARG_EXPORT_METRICS)) {
+            File dir = getExternalFilesDir(null);
+            File file = new File(dir != null ? dir : getFilesDir(), METRICS_FILE);
+            try {
+                Metrics.exportTo(file);
+                writer.println("Metrics exported to " + file);
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem exporting the metrics", e);
+                writer.println("Problem exporting the metrics: " + e);
+            }
         }
     }
 
     @Override
-    public void onLoaderReset(Loader<List<Games>> loader) {
+    public void onLoaderReset(Loader<GamesResponse> loader) {
         // Loader reset, so we can clear out our existing data.
-        mAdapter.clear();
+        if (loader.getId() == GAME_LOADER_ID) {
+            mPager.clear();
+            mAdapter.submitList(null);
+        }
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main, menu);
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        mSearchItem = searchItem;
+        final SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+
+        // Restore the search shown before the configuration change
+        if (mQuery != null) {
+            String query = mQuery;
+            searchItem.expandActionView();
+            searchView.setQuery(query, false);
+            searchView.clearFocus();
+        }
+
+        // Search the local index as the user types, and online too once submitted
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                search(newText, false);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                search(query, true);
+                searchView.clearFocus();
+                return true;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                endSearch();
+                return true;
+            }
+        });
         return true;
     }
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
+        if (id == R.id.action_filter) {
+            showFilterMenu();
+            return true;
+        }
         if (id == R.id.action_settings) {
             Intent settingsIntent = new Intent(this, SettingsActivity.class);
             startActivity(settingsIntent);
@@ -208,4 +1082,17 @@ public class GamesActivity extends AppCompatActivity implements LoaderCallbacks<
         }
         return super.onOptionsItemSelected(item);
     }
-}
\ No newline at end of file
+
+    /**
+     * What the activity keeps across configuration changes.
+     */
+    private static final class Retained {
+        final FeedPager mPager;
+        final FacetIndex mFacets;
+
+        Retained(FeedPager pager, FacetIndex facets) {
+            mPager = pager;
+            mFacets = facets;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.android.gamesnews.activity;
+
+import android.app.LoaderManager.LoaderCallbacks;
+import android.content.Intent;
+import android.content.Loader;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.ActionBar;
+import android.support.v7.app.AppCompatActivity;
+import android.text.TextUtils;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+import com.example.android.gamesnews.ArticleBodyLoader;
+import com.example.android.gamesnews.R;
+
+/**
+ * Shows the body of an article inside the app, from the offline store when it was
+ * prefetched. Links in the article open in the browser, and so does the article itself
+ * if its body can't be had.
+ */
+public class ReaderActivity extends AppCompatActivity implements LoaderCallbacks<String> {
+
+    /**
+     * Extras of the intent: the web URL of the article and its title
+     */
+    public static final String EXTRA_URL = "url";
+    public static final String EXTRA_TITLE = "title";
+
+    private static final int BODY_LOADER_ID = 1;
+
+    /**
+     * Wraps the body so it fits the screen, with the title on top
+     */
+    private static final String PAGE_START = "<!DOCTYPE html><html><head>"
+            + "<meta name=\"viewport\" content=\"width=device-width, initial-scale=1\">"
+            + "<style>body{margin:16px;font-family:serif;line-height:1.5}"
+            + "img,figure,iframe{max-width:100%;height:auto}</style></head><body><h1>";
+    private static final String PAGE_TITLE_END = "</h1>";
+    private static final String PAGE_END = "</body></html>";
+
+    private String mUrl;
+    private String mTitle;
+
+    private WebView mWebView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_reader);
+
+        mUrl = getIntent().getStringExtra(EXTRA_URL);
+        mTitle = getIntent().getStringExtra(EXTRA_TITLE);
+        ActionBar actionBar = getSupportActionBar();
+        if (actionBar != null) {
+            actionBar.setDisplayHomeAsUpEnabled(true);
+        }
+
+        // The page is static HTML, links leave the reader
+        mWebView = findViewById(R.id.reader);
+        mWebView.getSettings().setJavaScriptEnabled(false);
+        mWebView.setWebViewClient(new WebViewClient() {
+            @Override
+            public boolean shouldOverrideUrlLoading(WebView view, String url) {
+                startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(url)));
+                return true;
+            }
+        });
+
+        getLoaderManager().initLoader(BODY_LOADER_ID, null, this);
+    }
+
+    @Override
+    public Loader<String> onCreateLoader(int id, Bundle args) {
+        return new ArticleBodyLoader(this, mUrl);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<String> loader, String body) {
+        findViewById(R.id.loading_indicator).setVisibility(View.GONE);
+        if (body == null) {
+            // Neither stored nor reachable, the browser may still have it
+            openInBrowser();
+            finish();
+            return;
+        }
+        String title = mTitle != null ? TextUtils.htmlEncode(mTitle) : "";
+        mWebView.loadDataWithBaseURL(mUrl, PAGE_START + title + PAGE_TITLE_END + body + PAGE_END,
+                "text/html", "UTF-8", null);
+    }
+
+    @Override
+    public void onLoaderReset(Loader<String> loader) {
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.reader, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_open_in_browser) {
+            openInBrowser();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void openInBrowser() {
+        startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(mUrl)));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.android.gamesnews.activity;
 
 import android.content.SharedPreferences;
 import android.preference.ListPreference;
+import android.preference.MultiSelectListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
 import android.preference.PreferenceManager;
@@ -10,6 +11,9 @@ import android.os.Bundle;
 
 import com.example.android.gamesnews.R;
 
+import java.util.Collections;
+import java.util.Set;
+
 public class SettingsActivity extends AppCompatActivity {
 
 
@@ -36,6 +40,11 @@ public class SettingsActivity extends AppCompatActivity {
 
             Preference sections = findPreference(getString(R.string.settings_sections_key));
             bindPreferenceSummaryToValue(sections);
+
+            Preference myFeed = findPreference(getString(R.string.settings_my_feed_key));
+            myFeed.setOnPreferenceChangeListener(this);
+            onPreferenceChange(myFeed, PreferenceManager.getDefaultSharedPreferences(getActivity())
+                    .getStringSet(myFeed.getKey(), Collections.<String>emptySet()));
         }
 
 
@@ -43,6 +52,28 @@ public class SettingsActivity extends AppCompatActivity {
         public boolean onPreferenceChange(Preference preference, Object value) {
 
             // The code in this method takes care of updating the displayed preference summary after it has been changed
+            if (preference instanceof MultiSelectListPreference) {
+                MultiSelectListPreference multiSelect = (MultiSelectListPreference) preference;
+                CharSequence[] labels = multiSelect.getEntries();
+                CharSequence[] values = multiSelect.getEntryValues();
+                @SuppressWarnings("unchecked")
+                Set<String> selected = (Set<String>) value;
+
+                // List the labels in the order of the entries, not of the set
+                StringBuilder summary = new StringBuilder();
+                for (int i = 0; i < values.length; i++) {
+                    if (selected.contains(values[i].toString())) {
+                        if (summary.length() > 0) {
+                            summary.append(", ");
+                        }
+                        summary.append(labels[i]);
+                    }
+                }
+                preference.setSummary(summary.length() > 0
+                        ? summary : getString(R.string.settings_my_feed_summary_empty));
+                return true;
+            }
+
             String stringValue = value.toString();
 
             if (preference instanceof ListPreference) {
@@ -0,0 +1,383 @@
+package com.example.android.gamesnews.data;
+
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Local SQLite database of every fetched article, so the list can be shown without
+ * a network connection.
+ * <p>
+ * Articles are keyed by their web URL and indexed by section and publication time. Every
+ * fetch is written as one batch in a single transaction, and the list is read back one
+ * page at a time with a keyset query (newer or older than a given article), so neither
+ * side ever holds the whole table in memory.
+ * <p>
+ * Titles, authors and sections are also kept in an FTS4 full text index. Triggers update
+ * it row by row as articles are written, so it never has to be rebuilt.
+ * <p>
+ * The store is bounded by {@link #prune(long, int)}, which the periodic sync calls.
+ */
+public final class ArticleStore implements ArticleSink {
+
+    private static final String DATABASE_NAME = "articles.db";
+    private static final int DATABASE_VERSION = 4;
+
+    static final String TABLE_ARTICLES = "articles";
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_URL = "url";
+    static final String COLUMN_SECTION_ID = "section_id";
+    static final String COLUMN_SECTION = "section";
+    static final String COLUMN_AUTHOR = "author";
+    static final String COLUMN_TITLE = "title";
+    static final String COLUMN_TIME_AND_DATE = "time_and_date";
+    static final String COLUMN_PUBLISHED = "published";
+    static final String COLUMN_THUMBNAIL = "thumbnail";
+    static final String COLUMN_CONTRIBUTORS = "contributors";
+
+    static final String TABLE_SEARCH = "articles_fts";
+
+    private static final String[] PROJECTION = {
+            COLUMN_SECTION, COLUMN_AUTHOR, COLUMN_TIME_AND_DATE, COLUMN_TITLE, COLUMN_URL,
+            COLUMN_THUMBNAIL, COLUMN_CONTRIBUTORS};
+
+    private static final String SQL_UPDATE = "UPDATE " + TABLE_ARTICLES + " SET "
+            + COLUMN_SECTION_ID + " = COALESCE(?, " + COLUMN_SECTION_ID + "), "
+            + COLUMN_SECTION + " = ?, " + COLUMN_AUTHOR + " = ?, " + COLUMN_TITLE + " = ?, "
+            + COLUMN_TIME_AND_DATE + " = ?, " + COLUMN_PUBLISHED + " = ?, "
+            + COLUMN_THUMBNAIL + " = ?, " + COLUMN_CONTRIBUTORS + " = ? WHERE "
+            + COLUMN_URL + " = ?";
+
+    private static final String SQL_INSERT = "INSERT INTO " + TABLE_ARTICLES + " ("
+            + COLUMN_SECTION_ID + ", " + COLUMN_SECTION + ", " + COLUMN_AUTHOR + ", "
+            + COLUMN_TITLE + ", " + COLUMN_TIME_AND_DATE + ", " + COLUMN_PUBLISHED + ", "
+            + COLUMN_THUMBNAIL + ", " + COLUMN_CONTRIBUTORS + ", " + COLUMN_URL
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_SEARCH = "SELECT a." + COLUMN_SECTION + ", a." + COLUMN_AUTHOR
+            + ", a." + COLUMN_TIME_AND_DATE + ", a." + COLUMN_TITLE + ", a." + COLUMN_URL
+            + ", a." + COLUMN_THUMBNAIL + ", a." + COLUMN_CONTRIBUTORS + " FROM " + TABLE_SEARCH
+            + " s JOIN " + TABLE_ARTICLES
+            + " a ON a." + COLUMN_ID + " = s.docid WHERE " + TABLE_SEARCH + " MATCH ?"
+            + " ORDER BY a." + COLUMN_PUBLISHED + " DESC LIMIT ?";
+
+    private static ArticleStore sInstance;
+
+    private final SQLiteOpenHelper mHelper;
+
+    /**
+     * Returns the process wide store.
+     */
+    public static synchronized ArticleStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleStore(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private ArticleStore(Context context) {
+        mHelper = new DbHelper(context);
+    }
+
+    /**
+     * Insert new articles and update the ones already stored, all in one transaction.
+     *
+     * @param sectionId is the section the articles were requested for, like "football", or
+     *                  null if unknown
+     * @param games     to store
+     */
+    @Override
+    public void upsert(String sectionId, List<Games> games) {
+        if (games == null || games.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = mHelper.getWritableDatabase();
+        SQLiteStatement update = db.compileStatement(SQL_UPDATE);
+        SQLiteStatement insert = db.compileStatement(SQL_INSERT);
+        db.beginTransaction();
+        try {
+            for (Games game : games) {
+                // Updating in place keeps the row id, which the search index refers to
+                bind(update, sectionId, game);
+                if (update.executeUpdateDelete() == 0) {
+                    bind(insert, sectionId, game);
+                    insert.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            update.close();
+            insert.close();
+        }
+    }
+
+    /**
+     * Delete the articles published before the cutoff, and then the oldest ones beyond the
+     * given number. The triggers drop them from the search index as well.
+     *
+     * @param publishedBeforeMillis is the publication time of the oldest article to keep
+     * @param maxArticles           is the number of newest articles to keep at most
+     * @return the number of articles deleted
+     */
+    public int prune(long publishedBeforeMillis, int maxArticles) {
+        SQLiteDatabase db = mHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int deleted = db.delete(TABLE_ARTICLES, COLUMN_PUBLISHED + " < ?",
+                    new String[]{String.valueOf(publishedBeforeMillis)});
+            deleted += db.delete(TABLE_ARTICLES, COLUMN_ID + " NOT IN (SELECT " + COLUMN_ID
+                    + " FROM " + TABLE_ARTICLES + " ORDER BY " + COLUMN_PUBLISHED + " DESC, "
+                    + COLUMN_URL + " DESC LIMIT " + maxArticles + ")", null);
+            db.setTransactionSuccessful();
+            return deleted;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} articles of the sections published before the anchor,
+     * newest first.
+     *
+     * @param sectionIds to list
+     * @param anchor     is the last article already shown, or null for the newest ones
+     * @param limit      is the page size
+     */
+    public List<Games> loadOlder(List<String> sectionIds, Games anchor, int limit) {
+        return query(sectionIds, anchor, false, limit);
+    }
+
+    /**
+     * Returns up to {@code limit} articles of the sections published after the anchor,
+     * newest first.
+     *
+     * @param sectionIds to list
+     * @param anchor     is the first article already shown
+     * @param limit      is the page size
+     */
+    public List<Games> loadNewer(List<String> sectionIds, Games anchor, int limit) {
+        List<Games> games = query(sectionIds, anchor, true, limit);
+        Collections.reverse(games);
+        return games;
+    }
+
+    /**
+     * Returns up to {@code limit} articles whose title, author or section contain words
+     * starting with every word of the query, newest first.
+     *
+     * @param query as typed by the user
+     * @param limit is the maximum number of results
+     */
+    public List<Games> search(String query, int limit) {
+        List<Games> games = new ArrayList<>();
+        String match = toMatchExpression(query);
+        if (match == null) {
+            return games;
+        }
+        Cursor cursor = mHelper.getReadableDatabase().rawQuery(SQL_SEARCH,
+                new String[]{match, String.valueOf(limit)});
+        try {
+            readGames(cursor, games);
+        } finally {
+            cursor.close();
+        }
+        return games;
+    }
+
+    /**
+     * Turns the user's query into an FTS expression that matches every word as a prefix,
+     * like {@code foot* cup*}. Returns null if the query has no words.
+     */
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        if (query != null) {
+            // Anything but letters and digits separates words, so no FTS syntax gets through.
+            // Lower case words can't be mistaken for the AND, OR, NOT and NEAR operators.
+            for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    if (match.length() > 0) {
+                        match.append(' ');
+                    }
+                    match.append(word).append('*');
+                }
+            }
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    private List<Games> query(List<String> sectionIds, Games anchor, boolean newer, int limit) {
+        if (sectionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> args = new ArrayList<>(sectionIds);
+        StringBuilder selection = new StringBuilder(COLUMN_SECTION_ID).append(" IN (");
+        for (int i = 0; i < sectionIds.size(); i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+        }
+        selection.append(')');
+
+        // Keyset paging on (published, url): the page starts right after the anchor
+        // instead of skipping rows with an offset
+        String compare = newer ? " > ?" : " < ?";
+        if (anchor != null) {
+            String published = String.valueOf(anchor.getPublishedMillis());
+            selection.append(" AND (").append(COLUMN_PUBLISHED).append(compare)
+                    .append(" OR (").append(COLUMN_PUBLISHED).append(" = ? AND ")
+                    .append(COLUMN_URL).append(compare).append("))");
+            args.add(published);
+            args.add(published);
+            args.add(anchor.getUrl());
+        }
+        String direction = newer ? " ASC" : " DESC";
+        String orderBy = COLUMN_PUBLISHED + direction + ", " + COLUMN_URL + direction;
+
+        List<Games> games = new ArrayList<>(limit);
+        Cursor cursor = mHelper.getReadableDatabase().query(TABLE_ARTICLES, PROJECTION,
+                selection.toString(), args.toArray(new String[args.size()]),
+                null, null, orderBy, String.valueOf(limit));
+        try {
+            readGames(cursor, games);
+        } finally {
+            cursor.close();
+        }
+        return games;
+    }
+
+    /**
+     * Reads rows with the columns of {@link #PROJECTION}.
+     */
+    private static void readGames(Cursor cursor, List<Games> games) {
+        while (cursor.moveToNext()) {
+            games.add(new Games(cursor.getString(0), cursor.getString(1),
+                    cursor.getString(2), cursor.getString(3), cursor.getString(4),
+                    cursor.getString(5), Contributor.split(cursor.getString(6))));
+        }
+    }
+
+    private static void bind(SQLiteStatement statement, String sectionId, Games game) {
+        statement.clearBindings();
+        bindString(statement, 1, sectionId);
+        bindString(statement, 2, game.getSection());
+        bindString(statement, 3, game.getAuthor());
+        bindString(statement, 4, game.getTitle());
+        bindString(statement, 5, game.getTimeAndDate());
+        statement.bindLong(6, game.getPublishedMillis());
+        bindString(statement, 7, game.getThumbnailUrl());
+        bindString(statement, 8, Contributor.join(game.getContributors()));
+        bindString(statement, 9, game.getUrl());
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Creates and upgrades the database.
+     */
+    private static final class DbHelper extends SQLiteOpenHelper {
+
+        DbHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_ARTICLES + " ("
+                    + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                    + COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                    + COLUMN_SECTION_ID + " TEXT, "
+                    + COLUMN_SECTION + " TEXT, "
+                    + COLUMN_AUTHOR + " TEXT, "
+                    + COLUMN_TITLE + " TEXT, "
+                    + COLUMN_TIME_AND_DATE + " TEXT, "
+                    + COLUMN_PUBLISHED + " INTEGER NOT NULL, "
+                    + COLUMN_THUMBNAIL + " TEXT, "
+                    + COLUMN_CONTRIBUTORS + " TEXT)");
+            // Serves the paged list of a section without sorting
+            db.execSQL("CREATE INDEX " + TABLE_ARTICLES + "_section_published ON "
+                    + TABLE_ARTICLES + " (" + COLUMN_SECTION_ID + ", " + COLUMN_PUBLISHED + ", "
+                    + COLUMN_URL + ")");
+            createSearchIndex(db);
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            if (oldVersion <= 3) {
+                if (oldVersion <= 2) {
+                    upgradeToThumbnails(db, oldVersion);
+                }
+                // Rows stored before the contributor tags were asked for get them on their
+                // next fetch
+                db.execSQL("ALTER TABLE " + TABLE_ARTICLES + " ADD COLUMN "
+                        + COLUMN_CONTRIBUTORS + " TEXT");
+            }
+        }
+
+        /**
+         * Starts over after the app was downgraded. The store only holds copies of server
+         * data, and an older app can't know what a newer schema changed.
+         */
+        @Override
+        public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_SEARCH);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLES);
+            onCreate(db);
+        }
+
+        /**
+         * Brings a database of version 1 or 2 to version 3.
+         */
+        private static void upgradeToThumbnails(SQLiteDatabase db, int oldVersion) {
+            if (oldVersion == 1) {
+                createSearchIndex(db);
+                db.execSQL("INSERT INTO " + TABLE_SEARCH + " (docid, " + COLUMN_TITLE + ", "
+                        + COLUMN_AUTHOR + ", " + COLUMN_SECTION + ") SELECT " + COLUMN_ID
+                        + ", " + COLUMN_TITLE + ", " + COLUMN_AUTHOR + ", " + COLUMN_SECTION
+                        + " FROM " + TABLE_ARTICLES);
+            }
+            // Rows stored before thumbnails were asked for get them on their next fetch
+            db.execSQL("ALTER TABLE " + TABLE_ARTICLES + " ADD COLUMN "
+                    + COLUMN_THUMBNAIL + " TEXT");
+        }
+
+        /**
+         * Creates the full text index, kept in sync with the articles table by triggers.
+         * The index rows share the row id of their article.
+         */
+        private static void createSearchIndex(SQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_SEARCH + " USING fts4("
+                    + COLUMN_TITLE + ", " + COLUMN_AUTHOR + ", " + COLUMN_SECTION + ")");
+            db.execSQL("CREATE TRIGGER " + TABLE_ARTICLES + "_ai AFTER INSERT ON "
+                    + TABLE_ARTICLES + " BEGIN INSERT INTO " + TABLE_SEARCH + " (docid, "
+                    + COLUMN_TITLE + ", " + COLUMN_AUTHOR + ", " + COLUMN_SECTION + ") VALUES (new."
+                    + COLUMN_ID + ", new." + COLUMN_TITLE + ", new." + COLUMN_AUTHOR + ", new."
+                    + COLUMN_SECTION + "); END");
+            db.execSQL("CREATE TRIGGER " + TABLE_ARTICLES + "_au AFTER UPDATE OF "
+                    + COLUMN_TITLE + ", " + COLUMN_AUTHOR + ", " + COLUMN_SECTION + " ON "
+                    + TABLE_ARTICLES + " BEGIN UPDATE " + TABLE_SEARCH + " SET "
+                    + COLUMN_TITLE + " = new." + COLUMN_TITLE + ", " + COLUMN_AUTHOR + " = new."
+                    + COLUMN_AUTHOR + ", " + COLUMN_SECTION + " = new." + COLUMN_SECTION
+                    + " WHERE docid = old." + COLUMN_ID + "; END");
+            db.execSQL("CREATE TRIGGER " + TABLE_ARTICLES + "_ad AFTER DELETE ON "
+                    + TABLE_ARTICLES + " BEGIN DELETE FROM " + TABLE_SEARCH
+                    + " WHERE docid = old." + COLUMN_ID + "; END");
+        }
+    }
+}
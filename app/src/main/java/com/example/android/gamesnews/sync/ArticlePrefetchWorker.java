@@ -0,0 +1,96 @@
+package com.example.android.gamesnews.sync;
+
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.example.android.gamesnews.FeedRequests;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+
+import java.util.Arrays;
+import java.util.List;
+
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+
+/**
+ * Prefetches the bodies of the articles around the visible part of the list into the
+ * offline reader's store, so opening one of them is a local read.
+ * <p>
+ * It only runs on an unmetered network while the battery isn't low, otherwise the bodies
+ * are fetched one by one when an article is opened. A newer prefetch replaces the one
+ * still waiting or running, the user has scrolled on.
+ */
+public class ArticlePrefetchWorker extends Worker {
+
+    /**
+     * Name of the unique work
+     */
+    private static final String WORK_NAME = "article-prefetch";
+
+    /**
+     * Key of the article URLs in the input data
+     */
+    private static final String KEY_URLS = "urls";
+
+    /**
+     * Cancelled when the work is stopped
+     */
+    private final Cancellation mCancellation = new Cancellation();
+
+    public ArticlePrefetchWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Prefetch the bodies of the given articles once the network and battery allow.
+     *
+     * @param urls of the articles, the ones most likely to be opened first
+     */
+    public static void prefetch(List<String> urls) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ArticlePrefetchWorker.class)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder()
+                        .putStringArray(KEY_URLS, urls.toArray(new String[0]))
+                        .build())
+                .build();
+
+        WorkManager.getInstance().enqueueUniqueWork(
+                WORK_NAME, ExistingWorkPolicy.REPLACE, request);
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        String[] urls = getInputData().getStringArray(KEY_URLS);
+        if (urls == null || urls.length == 0) {
+            return Result.success();
+        }
+        boolean done = FeedRequests.articleBodies(getApplicationContext())
+                .prefetch(Arrays.asList(urls), mCancellation, Priority.BACKGROUND);
+        // A failed prefetch isn't retried, the articles are fetched when opened
+        return done || isStopped() ? Result.success() : Result.failure();
+    }
+
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        mCancellation.cancel();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.android.gamesnews.sync;
+
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.example.android.gamesnews.FeedRequests;
+import com.example.android.gamesnews.data.ArticleRepository;
+import com.example.android.gamesnews.data.ArticleStore;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+
+/**
+ * Periodically refreshes every configured section into the local cache and store, so
+ * opening the app is a local read.
+ * <p>
+ * All sections are refreshed in the same run, so a sync costs a single wake-up. It only
+ * runs on an unmetered network while charging, and a run that couldn't refresh every
+ * section is retried with exponential backoff. A section the app is loading at the same
+ * time is fetched once for both, and a stopped sync drops the request it is running.
+ * Every run also prunes the articles the store no longer needs to keep offline.
+ */
+public class ArticleSyncWorker extends Worker {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleSyncWorker.class.getSimpleName();
+
+    /**
+     * Name of the unique periodic work
+     */
+    private static final String WORK_NAME = "article-sync";
+
+    private static final long SYNC_INTERVAL_HOURS = 1;
+    private static final long INITIAL_BACKOFF_SECONDS = 30;
+
+    /**
+     * Articles published longer ago, or beyond the newest ones, are deleted from the store
+     */
+    private static final long MAX_ARTICLE_AGE_DAYS = 30;
+    private static final int MAX_STORED_ARTICLES = 2000;
+
+    /**
+     * Cancelled when the work is stopped
+     */
+    private final Cancellation mCancellation = new Cancellation();
+
+    public ArticleSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule the periodic sync, keeping the existing schedule if there is one.
+     */
+    public static void schedule() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                ArticleSyncWorker.class, SYNC_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager.getInstance().enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        ArticleStore store = ArticleStore.getInstance(context);
+        ArticleRepository repository = ArticleRepository.getInstance(context.getCacheDir(),
+                store);
+
+        // The first page of the selected section and of every section of "my feed"
+        // with the page size the app would pick right now, so it finds them in the cache
+        int pageSize = FeedRequests.adaptivePageSize(context);
+        Set<String> urls = new LinkedHashSet<>();
+        urls.add(FeedRequests.sectionUrl(context, 0, pageSize));
+        urls.addAll(FeedRequests.myFeedUrls(context, pageSize).values());
+
+        int failed = 0;
+        for (String url : urls) {
+            if (isStopped()) {
+                return Result.retry();
+            }
+            // Always ask the network, the cached copy only provides the validators.
+            // Nobody waits for it, the user's own requests go first.
+            GamesResponse response = repository.fetch(url, repository.getCached(url),
+                    mCancellation, Priority.BACKGROUND);
+            if (response.getGames() == null) {
+                failed++;
+            }
+        }
+
+        // Pruned even when a section failed, the store is only a copy of the server's data
+        int pruned = store.prune(System.currentTimeMillis()
+                - TimeUnit.DAYS.toMillis(MAX_ARTICLE_AGE_DAYS), MAX_STORED_ARTICLES);
+        Log.d(LOG_TAG, "Pruned " + pruned + " articles");
+
+        if (failed > 0) {
+            Log.w(LOG_TAG, "Sync failed for " + failed + " of " + urls.size() + " sections");
+            return Result.retry();
+        }
+        return Result.success();
+    }
+
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        mCancellation.cancel();
+    }
+}
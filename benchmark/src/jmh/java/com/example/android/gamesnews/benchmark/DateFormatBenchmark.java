@@ -0,0 +1,100 @@
+package com.example.android.gamesnews.benchmark;
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+import com.example.android.gamesnews.utils.GamesJsonParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formatting the date and time of every row of a result page, as the adapter does while
+ * the list is scrolled. One operation binds the whole page.
+ */
+@State(Scope.Benchmark)
+public class DateFormatBenchmark {
+
+    private static final ArticleDateFormatter.Labels LABELS = new ArticleDateFormatter.Labels() {
+        @Override
+        public String justNow() {
+            return "just now";
+        }
+
+        @Override
+        public String minutesAgo(int minutes) {
+            return minutes + " minutes ago";
+        }
+
+        @Override
+        public String hoursAgo(int hours) {
+            return hours + " hours ago";
+        }
+
+        @Override
+        public String daysAgo(int days) {
+            return days + " days ago";
+        }
+    };
+
+    @Param({"10", "50", "200", "1000"})
+    public int results;
+
+    private List<Games> mGames;
+
+    /**
+     * The raw ISO 8601 strings of the page, as the adapter used to get them
+     */
+    private String[] mTimesAndDates;
+    private ArticleDateFormatter mFormatter;
+    private long mNow;
+
+    @Setup
+    public void setUp() throws IOException {
+        mGames = GamesJsonParser.parse(new ByteArrayInputStream(Fixtures.searchResponse(results)));
+        // Games keeps the parsed millis and formats the string on request, done here once
+        // so the baseline only measures the split
+        mTimesAndDates = new String[mGames.size()];
+        for (int i = 0; i < mTimesAndDates.length; i++) {
+            mTimesAndDates[i] = mGames.get(i).getTimeAndDate();
+        }
+        mFormatter = new ArticleDateFormatter(Locale.UK, TimeZone.getTimeZone("GMT"), LABELS);
+        mNow = System.currentTimeMillis();
+    }
+
+    /**
+     * What the adapter did before: split the raw string on every bind.
+     */
+    @Benchmark
+    public void legacySplit(Blackhole blackhole) {
+        for (String timeAndDate : mTimesAndDates) {
+            String[] dateWithoutTime = timeAndDate.split("T");
+            String publicationTime = dateWithoutTime[1];
+            blackhole.consume(dateWithoutTime[0]);
+            blackhole.consume(String.format(
+                    publicationTime.substring(0, publicationTime.length() - 4)));
+        }
+    }
+
+    /**
+     * What the adapter does now: memoized strings of the millis parsed at ingest.
+     */
+    @Benchmark
+    public void formatter(Blackhole blackhole) {
+        for (Games game : mGames) {
+            long published = game.getPublishedMillis();
+            blackhole.consume(mFormatter.formatDate(published));
+            blackhole.consume(mFormatter.formatTime(published));
+            blackhole.consume(mFormatter.formatRelative(published, mNow));
+        }
+    }
+}
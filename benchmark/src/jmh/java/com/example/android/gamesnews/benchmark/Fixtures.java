@@ -0,0 +1,152 @@
+package com.example.android.gamesnews.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Search responses used as benchmark input.
+ * <p>
+ * A response recorded from the content API with {@code show-tags=contributor} can be put
+ * on the classpath as {@code /fixtures/search-<results>.json} and is used as is.
+ * Otherwise a response of the same shape is generated: the same fields in the same order,
+ * mixed sections, articles with none, one or two contributors and titles with escapes
+ * and non-ASCII characters, so the parser does the same work it does in the app.
+ */
+final class Fixtures {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 2018-11-28T23:59:00Z
+     */
+    private static final long NEWEST_MILLIS = 1543449540000L;
+    private static final long ARTICLE_INTERVAL_MILLIS = 7 * 60 * 1000 + 13 * 1000;
+
+    private static final String[][] SECTIONS = {
+            {"football", "Football", "pillar/sport", "Sport"},
+            {"games", "Games", "pillar/arts", "Arts"},
+            {"world", "World news", "pillar/news", "News"},
+            {"travel", "Travel", "pillar/lifestyle", "Lifestyle"},
+            {"food", "Food", "pillar/lifestyle", "Lifestyle"},
+            {"fashion", "Fashion", "pillar/lifestyle", "Lifestyle"},
+    };
+
+    private static final String[][] CONTRIBUTORS = {
+            {"keith-stuart", "Keith Stuart", "Keith", "Stuart"},
+            {"jacob-steinberg", "Jacob Steinberg", "Jacob", "Steinberg"},
+            {"zoe-williams", "Zo\u00eb Williams", "Zo\u00eb", "Williams"},
+            {"felicity-cloake", "Felicity Cloake", "Felicity", "Cloake"},
+    };
+
+    private static final String[] TITLES = {
+            "PlayStation Classic review \u2013 Sony's nostalgia trip misses the magic",
+            "Premier League: 10 talking points from the weekend's action",
+            "\"We won't give up\": protesters return to the streets",
+            "How to make the perfect cr\u00e8me br\u00fbl\u00e9e",
+            "The 10 best winter breaks in Europe \u2013 readers' tips",
+            "Paris fashion week: the key looks from the catwalk",
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns the uncompressed body of a response with the given number of results.
+     */
+    static byte[] searchResponse(int results) throws IOException {
+        InputStream recorded = Fixtures.class.getResourceAsStream(
+                "/fixtures/search-" + results + ".json");
+        if (recorded != null) {
+            try {
+                return readFully(recorded);
+            } finally {
+                recorded.close();
+            }
+        }
+        return generate(results).getBytes(UTF_8);
+    }
+
+    /**
+     * Returns the body gzip compressed, the way it arrives over the network.
+     */
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write(body);
+        gzip.close();
+        return compressed.toByteArray();
+    }
+
+    private static String generate(int results) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        StringBuilder json = new StringBuilder(results * 1200);
+        json.append("{\"response\":{\"status\":\"ok\",\"userTier\":\"developer\",\"total\":")
+                .append(results * 25).append(",\"startIndex\":1,\"pageSize\":").append(results)
+                .append(",\"currentPage\":1,\"pages\":25,\"orderBy\":\"newest\",\"results\":[");
+        for (int i = 0; i < results; i++) {
+            String[] section = SECTIONS[i % SECTIONS.length];
+            String slug = "article-" + i;
+            // Newest first, a few minutes apart
+            String date = dateFormat.format(new Date(NEWEST_MILLIS - i * ARTICLE_INTERVAL_MILLIS));
+
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(section[0]).append("/2018/nov/28/").append(slug)
+                    .append("\",\"type\":\"article\",\"sectionId\":\"").append(section[0])
+                    .append("\",\"sectionName\":\"").append(section[1])
+                    .append("\",\"webPublicationDate\":\"").append(date)
+                    .append("\",\"webTitle\":\"").append(escape(TITLES[i % TITLES.length]))
+                    .append(' ').append(i)
+                    .append("\",\"webUrl\":\"https://www.theguardian.com/").append(section[0])
+                    .append("/2018/nov/28/").append(slug)
+                    .append("\",\"apiUrl\":\"https://content.guardianapis.com/").append(section[0])
+                    .append("/2018/nov/28/").append(slug)
+                    .append("\",\"tags\":[");
+            int contributors = i % 5 == 0 ? 0 : (i % 7 == 0 ? 2 : 1);
+            for (int c = 0; c < contributors; c++) {
+                String[] contributor = CONTRIBUTORS[(i + c) % CONTRIBUTORS.length];
+                if (c > 0) {
+                    json.append(',');
+                }
+                json.append("{\"id\":\"profile/").append(contributor[0])
+                        .append("\",\"type\":\"contributor\",\"webTitle\":\"").append(contributor[1])
+                        .append("\",\"webUrl\":\"https://www.theguardian.com/profile/")
+                        .append(contributor[0])
+                        .append("\",\"apiUrl\":\"https://content.guardianapis.com/profile/")
+                        .append(contributor[0])
+                        .append("\",\"bio\":\"<p>").append(contributor[1])
+                        .append(" writes for the Guardian</p>\",\"firstName\":\"")
+                        .append(contributor[2]).append("\",\"lastName\":\"").append(contributor[3])
+                        .append("\"}");
+            }
+            json.append("],\"isHosted\":false,\"pillarId\":\"").append(section[2])
+                    .append("\",\"pillarName\":\"").append(section[3]).append("\"}");
+        }
+        json.append("]}}");
+        return json.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.android.gamesnews.benchmark;
+
+import com.example.android.gamesnews.Games;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The body reading and parsing of QueryUtils before the streaming parser, kept as the
+ * baseline the current code is measured against.
+ */
+final class LegacyQueryUtils {
+
+    private LegacyQueryUtils() {
+    }
+
+    /**
+     * Convert the {@link InputStream} into a String which contains the
+     * whole JSON response from the server.
+     */
+    static String readFromStream(InputStream inputStream) throws IOException {
+        StringBuilder output = new StringBuilder();
+        if (inputStream != null) {
+            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Fixtures.UTF_8);
+            BufferedReader reader = new BufferedReader(inputStreamReader);
+            String line = reader.readLine();
+            while (line != null) {
+                output.append(line);
+                line = reader.readLine();
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Return a list of {@link Games} objects that has been built up from
+     * parsing the given JSON response.
+     */
+    static List<Games> extractFeatureFromJson(String gameJSON) throws JSONException {
+        List<Games> games = new ArrayList<>();
+        JSONArray gameArray = new JSONObject(gameJSON)
+                .getJSONObject("response").getJSONArray("results");
+        for (int i = 0; i < gameArray.length(); i++) {
+            JSONObject currentGame = gameArray.getJSONObject(i);
+            JSONArray tags = currentGame.getJSONArray("tags");
+            String author = null;
+            for (int b = 0; b < tags.length(); b++) {
+                author = tags.getJSONObject(b).optString("webTitle");
+            }
+            games.add(new Games(currentGame.optString("sectionName"), author,
+                    currentGame.optString("webPublicationDate"),
+                    currentGame.optString("webTitle"), currentGame.optString("webUrl")));
+        }
+        return games;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.android.gamesnews.benchmark;
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.GamesJsonParser;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reading and parsing a search response, the old way (whole body into a String, then an
+ * org.json tree) and the current way (streaming straight from the body).
+ */
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"10", "50", "200", "1000"})
+    public int results;
+
+    private byte[] mBody;
+    private byte[] mGzippedBody;
+    private String mBodyString;
+
+    @Setup
+    public void setUp() throws IOException {
+        mBody = Fixtures.searchResponse(results);
+        mGzippedBody = Fixtures.gzip(mBody);
+        mBodyString = new String(mBody, Fixtures.UTF_8);
+    }
+
+    /**
+     * The old readFromStream: the whole body as a String.
+     */
+    @Benchmark
+    public String legacyReadFromStream() throws IOException {
+        return LegacyQueryUtils.readFromStream(new ByteArrayInputStream(mBody));
+    }
+
+    /**
+     * The old extractFeatureFromJson: an org.json tree of the body read before.
+     */
+    @Benchmark
+    public List<Games> legacyExtractFeatureFromJson() throws JSONException {
+        return LegacyQueryUtils.extractFeatureFromJson(mBodyString);
+    }
+
+    /**
+     * Both old steps together, as a response was handled before.
+     */
+    @Benchmark
+    public List<Games> legacyReadAndExtract() throws IOException, JSONException {
+        return LegacyQueryUtils.extractFeatureFromJson(
+                LegacyQueryUtils.readFromStream(new ByteArrayInputStream(mBody)));
+    }
+
+    /**
+     * The current path: parse while reading the body.
+     */
+    @Benchmark
+    public List<Games> streamingParse() throws IOException {
+        return GamesJsonParser.parse(new ByteArrayInputStream(mBody));
+    }
+
+    /**
+     * The current path including gzip decoding, as the body arrives over the network.
+     */
+    @Benchmark
+    public List<Games> streamingParseGzip() throws IOException {
+        return GamesJsonParser.parse(new GZIPInputStream(new ByteArrayInputStream(mGzippedBody)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.android.gamesnews;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Contributor} is one of the people credited for an article, from its contributor
+ * tags: the id of the tag, like "profile/keza-macdonald", and the name it shows.
+ */
+public final class Contributor {
+
+    /**
+     * Separators of the text form, neither appears in a tag id or a name
+     */
+    private static final char FIELD_SEPARATOR = '\t';
+    private static final char CONTRIBUTOR_SEPARATOR = '\n';
+
+    private final String mId;
+    private final String mName;
+
+    /**
+     * Constructs a new {@link Contributor}.
+     *
+     * @param id   of the contributor tag
+     * @param name shown for the contributor
+     */
+    public Contributor(String id, String name) {
+        mId = id;
+        mName = name;
+    }
+
+    /**
+     * Returns the id of the contributor tag.
+     */
+    public String getId() {
+        return mId;
+    }
+
+    /**
+     * Returns the name shown for the contributor.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Returns the contributors as one string, to be stored in a single column, or null if
+     * there are none.
+     */
+    public static String join(List<Contributor> contributors) {
+        if (contributors.isEmpty()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Contributor contributor : contributors) {
+            if (text.length() > 0) {
+                text.append(CONTRIBUTOR_SEPARATOR);
+            }
+            text.append(contributor.mId).append(FIELD_SEPARATOR).append(contributor.mName);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the contributors of a string made by {@link #join(List)}.
+     */
+    public static List<Contributor> split(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Contributor> contributors = new ArrayList<>(1);
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf(CONTRIBUTOR_SEPARATOR, start);
+            if (end < 0) {
+                end = text.length();
+            }
+            int separator = text.indexOf(FIELD_SEPARATOR, start);
+            if (separator > start && separator < end) {
+                contributors.add(new Contributor(text.substring(start, separator),
+                        text.substring(separator + 1, end)));
+            }
+            start = end + 1;
+        }
+        return contributors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Contributor)) {
+            return false;
+        }
+        Contributor other = (Contributor) o;
+        return mId.equals(other.mId) && mName.equals(other.mName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mId.hashCode() + mName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
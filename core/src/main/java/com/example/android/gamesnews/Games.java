@@ -0,0 +1,258 @@
+package com.example.android.gamesnews;
+
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+import com.example.android.gamesnews.utils.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An {@link Games} object contains information related to a game.
+ * <p>
+ * Thousands of them can be held at once, so they are kept small: section and author names
+ * repeat across articles and are stored once in a dictionary, and the publication date is
+ * only kept as a number. Contributors are kept the same way, as the ids of their tag id
+ * and name.
+ * <p>
+ * The dictionaries only grow, so a process that keeps creating articles, like the crawler,
+ * starts new ones with {@link #newDictionaries()}. Every article keeps the dictionaries it
+ * was created with, and old ones are collected with the last article using them.
+ */
+public class Games {
+
+    /**
+     * Dictionaries of the articles created from now on
+     */
+    private static volatile Dictionaries sDictionaries = new Dictionaries();
+
+    private static final int[] NO_CONTRIBUTORS = new int[0];
+
+    /**
+     * Dictionaries the ids of this article refer to
+     */
+    private final Dictionaries mDictionaries;
+
+    /**
+     * Id of the name of the section
+     */
+    private final int mSectionId;
+
+    /**
+     * Id of the name of the author
+     */
+    private final int mAuthorId;
+
+    /**
+     * Ids of the tag id and of the name of every contributor, one pair after the other
+     */
+    private final int[] mContributors;
+
+    /**
+     * web title of the section
+     */
+    private final String mTitle;
+
+    /**
+     * Time and date parsed once, in milliseconds since the epoch
+     */
+    private final long mPublishedMillis;
+
+    /**
+     * Time and date as received, only kept if it couldn't be parsed
+     */
+    private final String mUnparsedTimeAndDate;
+
+    /**
+     * Website URL of the game
+     */
+    private final String mUrl;
+
+    /**
+     * URL of the thumbnail image, or null if the article has none
+     */
+    private final String mThumbnailUrl;
+
+    /**
+     * Constructs a new {@link Games} object.
+     *
+     * @param section     is the name of the section
+     * @param author      is the name of the author
+     * @param title       is the title of the website URL
+     * @param timeAndDate is current time and date for that event
+     * @param url         is the website URL to find more details about that game
+     */
+    public Games(String section, String author, String timeAndDate, String title, String url) {
+        this(section, author, timeAndDate, title, url, null);
+    }
+
+    /**
+     * Constructs a new {@link Games} object with a thumbnail.
+     *
+     * @param thumbnailUrl is the URL of the thumbnail image, or null
+     */
+    public Games(String section, String author, String timeAndDate, String title, String url,
+                 String thumbnailUrl) {
+        this(section, author, timeAndDate, title, url, thumbnailUrl,
+                Collections.<Contributor>emptyList());
+    }
+
+    /**
+     * Constructs a new {@link Games} object with a thumbnail and the people credited for it.
+     *
+     * @param thumbnailUrl is the URL of the thumbnail image, or null
+     * @param contributors of the article, in the order of its tags
+     */
+    public Games(String section, String author, String timeAndDate, String title, String url,
+                 String thumbnailUrl, List<Contributor> contributors) {
+        Dictionaries dictionaries = sDictionaries;
+        mDictionaries = dictionaries;
+        mSectionId = dictionaries.mSections.idOf(section);
+        mAuthorId = dictionaries.mAuthors.idOf(author);
+        if (contributors.isEmpty()) {
+            mContributors = NO_CONTRIBUTORS;
+        } else {
+            mContributors = new int[2 * contributors.size()];
+            for (int i = 0; i < contributors.size(); i++) {
+                Contributor contributor = contributors.get(i);
+                mContributors[2 * i] = dictionaries.mContributorIds.idOf(contributor.getId());
+                mContributors[2 * i + 1] =
+                        dictionaries.mContributorNames.idOf(contributor.getName());
+            }
+        }
+        mTitle = title;
+        mUrl = url;
+        mThumbnailUrl = thumbnailUrl;
+        mPublishedMillis = ArticleDateFormatter.parseIso8601(timeAndDate);
+        mUnparsedTimeAndDate = mPublishedMillis == ArticleDateFormatter.UNKNOWN ? timeAndDate : null;
+    }
+
+    /**
+     * Create the articles from now on with empty dictionaries, so the names only the
+     * articles created so far use are collected with them. Articles of different
+     * dictionaries still compare by their names.
+     */
+    public static void newDictionaries() {
+        sDictionaries = new Dictionaries();
+    }
+
+    /**
+     * Returns the name of that section. Articles of the same dictionaries share the instance.
+     */
+    public String getSection() {
+        return mDictionaries.mSections.get(mSectionId);
+    }
+
+    /**
+     * Returns the author name. Articles of the same dictionaries share the instance.
+     */
+    public String getAuthor() {
+        return mDictionaries.mAuthors.get(mAuthorId);
+    }
+
+    /**
+     * Returns the people credited for the article, empty if it has no contributor tags.
+     */
+    public List<Contributor> getContributors() {
+        if (mContributors.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Contributor> contributors = new ArrayList<>(mContributors.length / 2);
+        for (int i = 0; i < mContributors.length; i += 2) {
+            contributors.add(new Contributor(mDictionaries.mContributorIds.get(mContributors[i]),
+                    mDictionaries.mContributorNames.get(mContributors[i + 1])));
+        }
+        return contributors;
+    }
+
+    /**
+     * Returns the title of the website.
+     */
+    public String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * Returns the time and date related for the newest news, in the format of the API.
+     */
+    public String getTimeAndDate() {
+        return mUnparsedTimeAndDate != null
+                ? mUnparsedTimeAndDate : ArticleDateFormatter.formatIso8601(mPublishedMillis);
+    }
+
+    /**
+     * Returns the publication time in milliseconds since the epoch, or
+     * {@link ArticleDateFormatter#UNKNOWN} if it couldn't be parsed.
+     */
+    public long getPublishedMillis() {
+        return mPublishedMillis;
+    }
+
+    /**
+     * Returns the website URL to find more information about that game.
+     */
+    public String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * Returns the URL of the thumbnail image, or null if the article has none.
+     */
+    public String getThumbnailUrl() {
+        return mThumbnailUrl;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Games)) {
+            return false;
+        }
+        Games other = (Games) o;
+        return mPublishedMillis == other.mPublishedMillis
+                && equal(mTitle, other.mTitle)
+                && equal(mUnparsedTimeAndDate, other.mUnparsedTimeAndDate)
+                && equal(mUrl, other.mUrl)
+                && equal(mThumbnailUrl, other.mThumbnailUrl)
+                && hasSameNames(other);
+    }
+
+    /**
+     * Compares the ids if both articles use the same dictionaries, the names otherwise.
+     */
+    private boolean hasSameNames(Games other) {
+        if (mDictionaries == other.mDictionaries) {
+            return mSectionId == other.mSectionId
+                    && mAuthorId == other.mAuthorId
+                    && Arrays.equals(mContributors, other.mContributors);
+        }
+        return equal(getSection(), other.getSection())
+                && equal(getAuthor(), other.getAuthor())
+                && getContributors().equals(other.getContributors());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mUrl != null ? mUrl.hashCode() : 0;
+        result = 31 * result + (mTitle != null ? mTitle.hashCode() : 0);
+        result = 31 * result + (int) (mPublishedMillis ^ (mPublishedMillis >>> 32));
+        return result;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Every section, author, contributor tag id and contributor name, by id
+     */
+    private static final class Dictionaries {
+        final StringDictionary mSections = new StringDictionary();
+        final StringDictionary mAuthors = new StringDictionary();
+        final StringDictionary mContributorIds = new StringDictionary();
+        final StringDictionary mContributorNames = new StringDictionary();
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.android.gamesnews.crawler;
+
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.data.ArticleCache;
+import com.example.android.gamesnews.data.ArticleSource;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.GuardianUrls;
+import com.example.android.gamesnews.utils.Logging;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+
+/**
+ * Headless crawler that fetches every page of a set of sections into an
+ * {@link ArticleCache}, so the clients sharing that cache start warm.
+ * <p>
+ * Pages are fetched concurrently on the given executor. The first page of every section is
+ * requested up front; once it reports how many pages the section has, the remaining pages
+ * are queued. At most a fixed number of pages are queued or running at any time and a
+ * page's articles are dropped as soon as they are in the cache, so memory stays bounded
+ * however many sections and pages are crawled. Every run starts with empty name
+ * dictionaries, see {@link Games#newDictionaries()}.
+ */
+public final class Crawler {
+
+    private static final String LOG_TAG = Crawler.class.getSimpleName();
+
+    private final ArticleSource mSource;
+    private final ExecutorService mExecutor;
+    private final Semaphore mInFlight;
+
+    /**
+     * Constructs a new {@link Crawler}.
+     *
+     * @param source        fetching pages through the shared cache
+     * @param executor      running the page fetches, its size bounds the concurrency
+     * @param maxPagesQueued is the number of pages that may be queued or running at once
+     */
+    public Crawler(ArticleSource source, ExecutorService executor, int maxPagesQueued) {
+        mSource = source;
+        mExecutor = executor;
+        mInFlight = new Semaphore(maxPagesQueued);
+    }
+
+    /**
+     * Crawl the given sections and block until every page is done.
+     *
+     * @param apiKey   of the guardians API
+     * @param sections ids to crawl, like "football"
+     * @param orderBy  is "newest", "oldest" or "relevance"
+     * @param pageSize is the number of articles per page
+     * @param maxPages is the number of pages crawled per section at most
+     */
+    public Summary crawl(String apiKey, List<String> sections, String orderBy, int pageSize,
+                         int maxPages) throws InterruptedException {
+        // The names of the articles of earlier runs go with them
+        Games.newDictionaries();
+
+        CompletionService<Page> completion = new ExecutorCompletionService<>(mExecutor);
+        Summary summary = new Summary();
+        int pending = 0;
+
+        // The first page of every section tells how many pages there are. It's requested
+        // without a page parameter, like the app does.
+        for (String section : sections) {
+            submit(completion, new Page(section, 1,
+                    GuardianUrls.section(apiKey, section, orderBy, pageSize, 0)));
+            pending++;
+        }
+
+        while (pending > 0) {
+            Page page = take(completion);
+            pending--;
+            summary.add(page);
+
+            if (page.mNumber == 1 && page.mState != Page.FAILED) {
+                int last = Math.min(page.mPages, maxPages);
+                for (int number = 2; number <= last; number++) {
+                    submit(completion, new Page(page.mSection, number,
+                            GuardianUrls.section(apiKey, page.mSection, orderBy, pageSize, number)));
+                    pending++;
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Queue a page, waiting while too many pages are queued or running.
+     */
+    private void submit(CompletionService<Page> completion, final Page page)
+            throws InterruptedException {
+        mInFlight.acquire();
+        try {
+            completion.submit(new Callable<Page>() {
+                @Override
+                public Page call() {
+                    try {
+                        return fetch(page);
+                    } finally {
+                        mInFlight.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            mInFlight.release();
+            throw e;
+        }
+    }
+
+    private static Page take(CompletionService<Page> completion) throws InterruptedException {
+        try {
+            return completion.take().get();
+        } catch (ExecutionException e) {
+            // fetch() doesn't throw, so this is a bug
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Fetch one page into the cache. Only its state and counts are kept.
+     */
+    private Page fetch(Page page) {
+        try {
+            ArticleCache.Entry cached = mSource.getCached(page.mUrl);
+            GamesResponse response;
+            if (cached != null && !cached.isStale(System.currentTimeMillis())) {
+                page.mState = Page.FRESH;
+                response = cached.toResponse();
+            } else {
+                response = mSource.fetch(page.mUrl, cached);
+                page.mState = response.getGames() != null ? Page.FETCHED : Page.FAILED;
+            }
+            if (response.getGames() != null) {
+                page.mArticles = response.getGames().size();
+                page.mPages = response.getPages();
+            }
+        } catch (RuntimeException e) {
+            Logging.e(LOG_TAG, "Problem crawling " + page.mSection + " page " + page.mNumber, e);
+            page.mState = Page.FAILED;
+        }
+        return page;
+    }
+
+    /**
+     * A page to crawl and, once crawled, its outcome.
+     */
+    private static final class Page {
+        static final int FETCHED = 0;
+        static final int FRESH = 1;
+        static final int FAILED = 2;
+
+        final String mSection;
+        final int mNumber;
+        final String mUrl;
+        int mState;
+        int mPages;
+        int mArticles;
+
+        Page(String section, int number, String url) {
+            mSection = section;
+            mNumber = number;
+            mUrl = url;
+        }
+    }
+
+    /**
+     * Totals of a crawl.
+     */
+    public static final class Summary {
+        private int mFetched;
+        private int mFresh;
+        private int mFailed;
+        private long mArticles;
+
+        void add(Page page) {
+            switch (page.mState) {
+                case Page.FETCHED:
+                    mFetched++;
+                    break;
+                case Page.FRESH:
+                    mFresh++;
+                    break;
+                default:
+                    mFailed++;
+                    break;
+            }
+            mArticles += page.mArticles;
+        }
+
+        /**
+         * Returns the number of pages fetched or revalidated over the network.
+         */
+        public int getFetched() {
+            return mFetched;
+        }
+
+        /**
+         * Returns the number of pages skipped because the cached copy was still fresh.
+         */
+        public int getFresh() {
+            return mFresh;
+        }
+
+        /**
+         * Returns the number of pages that couldn't be fetched.
+         */
+        public int getFailed() {
+            return mFailed;
+        }
+
+        /**
+         * Returns the number of articles on all pages crawled.
+         */
+        public long getArticles() {
+            return mArticles;
+        }
+
+        @Override
+        public String toString() {
+            return mFetched + " pages fetched, " + mFresh + " fresh, " + mFailed + " failed, "
+                    + mArticles + " articles";
+        }
+    }
+}
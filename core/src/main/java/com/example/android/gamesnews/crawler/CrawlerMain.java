@@ -0,0 +1,78 @@
+package com.example.android.gamesnews.crawler;
+
+
+import com.example.android.gamesnews.data.ArticleCache;
+import com.example.android.gamesnews.data.ArticleSink;
+import com.example.android.gamesnews.data.ArticleSource;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.QueryUtils;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Command line entry point of the {@link Crawler}:
+ * <pre>
+ * ./gradlew :core:run --args="--api-key KEY --cache-dir /srv/articles"
+ * </pre>
+ * Other options, with their defaults: {@code --sections football,world,games,travel,food,fashion},
+ * {@code --order-by newest}, {@code --page-size 50}, {@code --pages 10}, {@code --threads 8}
+ * and {@code --cache-mb 64}.
+ */
+public final class CrawlerMain {
+
+    private CrawlerMain() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        options.put("sections", "football,world,games,travel,food,fashion");
+        options.put("order-by", "newest");
+        options.put("page-size", "50");
+        options.put("pages", "10");
+        options.put("threads", "8");
+        options.put("cache-mb", "64");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                usage("Unexpected argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (!options.containsKey("api-key") || !options.containsKey("cache-dir")) {
+            usage("--api-key and --cache-dir are required");
+        }
+
+        int threads = Integer.parseInt(options.get("threads"));
+        ArticleCache cache = new ArticleCache(new File(options.get("cache-dir")),
+                Long.parseLong(options.get("cache-mb")) * 1024 * 1024);
+        ArticleSource source = new ArticleSource(QueryUtils.defaultTransport(), cache,
+                ArticleSink.NONE);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Crawler crawler = new Crawler(source, executor, threads * 2);
+            long start = System.nanoTime();
+            Crawler.Summary summary = crawler.crawl(options.get("api-key"),
+                    Arrays.asList(options.get("sections").split(",")), options.get("order-by"),
+                    Integer.parseInt(options.get("page-size")),
+                    Integer.parseInt(options.get("pages")));
+            System.out.println(summary + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+            Metrics.dump(new PrintWriter(System.out));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: CrawlerMain --api-key KEY --cache-dir DIR [--sections a,b]"
+                + " [--order-by newest] [--page-size 50] [--pages 10] [--threads 8]"
+                + " [--cache-mb 64]");
+        System.exit(2);
+    }
+}
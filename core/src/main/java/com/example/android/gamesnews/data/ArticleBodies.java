@@ -0,0 +1,132 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesJsonParser;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.GuardianUrls;
+import com.example.android.gamesnews.utils.HttpTransport;
+import com.example.android.gamesnews.utils.Logging;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.QueryUtils;
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Serves the bodies of articles for the offline reader from an {@link ArticleBodyStore},
+ * and fills the store ahead of time.
+ * <p>
+ * Bodies are prefetched in batches: one request with the ids of every article that isn't
+ * stored yet asks for their body field, and each body is stored as soon as it's parsed.
+ */
+public final class ArticleBodies {
+
+    private static final String LOG_TAG = ArticleBodies.class.getSimpleName();
+
+    private static ArticleBodies sInstance;
+
+    private final HttpTransport mTransport;
+    private final ArticleBodyStore mStore;
+    private final String mApiKey;
+
+    /**
+     * Returns the process wide instance, storing the bodies below the given directory.
+     *
+     * @param dir    holding the {@link ArticleBodyStore}
+     * @param apiKey of the guardians API
+     */
+    public static synchronized ArticleBodies getInstance(File dir, String apiKey) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodies(ArticleBodyStore.getInstance(dir), apiKey);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructs a new {@link ArticleBodies} using the shared HTTP client.
+     *
+     * @param store  holding the bodies
+     * @param apiKey of the guardians API
+     */
+    public ArticleBodies(ArticleBodyStore store, String apiKey) {
+        this(QueryUtils.defaultTransport(), store, apiKey);
+    }
+
+    /**
+     * Constructs a new {@link ArticleBodies}.
+     *
+     * @param transport performing the requests
+     * @param store     holding the bodies
+     * @param apiKey    of the guardians API
+     */
+    public ArticleBodies(HttpTransport transport, ArticleBodyStore store, String apiKey) {
+        mTransport = transport;
+        mStore = store;
+        mApiKey = apiKey;
+    }
+
+    /**
+     * Returns the stored body of the article, or null if it isn't stored.
+     */
+    public String getStored(String url) {
+        String body = mStore.get(url);
+        Metrics.counter(body != null ? Metrics.BODY_HIT : Metrics.BODY_MISS).increment();
+        return body;
+    }
+
+    /**
+     * Returns the body of the article, fetching it first if it isn't stored.
+     *
+     * @param cancellation of the caller, or null if it can't be cancelled
+     * @return the body, or null if it can't be had
+     */
+    public String load(String url, Cancellation cancellation) {
+        String body = getStored(url);
+        if (body == null) {
+            prefetch(Collections.singletonList(url), cancellation, Priority.USER);
+            body = mStore.get(url);
+        }
+        return body;
+    }
+
+    /**
+     * Fetch and store the bodies of the articles that aren't stored yet, in one request.
+     *
+     * @param urls         of the articles
+     * @param cancellation of the prefetch, or null if it can't be cancelled
+     * @param priority     of the request in the API quota
+     * @return false if the request failed, true if it succeeded or wasn't needed
+     */
+    public boolean prefetch(List<String> urls, Cancellation cancellation, Priority priority) {
+        List<String> missing = new ArrayList<>();
+        for (String url : urls) {
+            if (!mStore.contains(url) && !missing.contains(url)) {
+                missing.add(url);
+            }
+        }
+        if (missing.isEmpty()) {
+            return true;
+        }
+
+        GamesResponse response = QueryUtils.fetchBodies(mTransport,
+                GuardianUrls.bodies(mApiKey, missing), cancellation,
+                new GamesJsonParser.BodyCallback() {
+                    @Override
+                    public void onBody(String url, String body) {
+                        try {
+                            mStore.put(url, body);
+                            Metrics.counter(Metrics.BODY_PREFETCHED).increment();
+                        } catch (IOException e) {
+                            Logging.e(LOG_TAG, "Problem storing the body of " + url, e);
+                        }
+                    }
+                }, priority);
+        return response.getGames() != null;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.android.gamesnews.data;
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Persistent, size limited store of article bodies for the offline reader.
+ * <p>
+ * Every body is one gzip compressed file, named after the hash of the article's URL. The
+ * HTML of an article compresses to about a quarter of its size, so the store holds four
+ * times as many articles as it would uncompressed. Like {@link ImageDiskCache}, files are
+ * evicted least recently used first once the directory grows beyond its limit.
+ */
+public final class ArticleBodyStore {
+
+    /**
+     * Name of the directory holding the store files
+     */
+    public static final String DIRECTORY = "bodies";
+
+    /**
+     * Upper bound of the size of all store files together
+     */
+    private static final long MAX_SIZE_BYTES = 5 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static ArticleBodyStore sInstance;
+
+    private final File mDirectory;
+
+    /**
+     * Sizes and access order of the files
+     */
+    private final DiskLruIndex mIndex;
+
+    /**
+     * Returns the process wide store kept below the given directory.
+     */
+    public static synchronized ArticleBodyStore getInstance(File dir) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodyStore(new File(dir, DIRECTORY), MAX_SIZE_BYTES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructs a new {@link ArticleBodyStore}.
+     *
+     * @param directory    holding one file per article
+     * @param maxSizeBytes is the limit after which least recently read articles are evicted
+     */
+    public ArticleBodyStore(File directory, long maxSizeBytes) {
+        mDirectory = directory;
+        mIndex = new DiskLruIndex(directory, maxSizeBytes);
+    }
+
+    /**
+     * Returns true if the body of the article is stored, without reading it.
+     */
+    public synchronized boolean contains(String url) {
+        return mIndex.contains(ArticleCache.fileName(url));
+    }
+
+    /**
+     * Returns the body of the article, or null if it isn't stored.
+     */
+    public synchronized String get(String url) {
+        String fileName = ArticleCache.fileName(url);
+        if (!mIndex.touch(fileName)) {
+            return null;
+        }
+        File file = new File(mDirectory, fileName);
+        try (Reader in = new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), UTF_8)) {
+            StringBuilder body = new StringBuilder();
+            char[] buffer = new char[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.append(buffer, 0, read);
+            }
+            // Keep the access order across process restarts
+            file.setLastModified(System.currentTimeMillis());
+            return body.toString();
+        } catch (IOException e) {
+            mIndex.remove(fileName);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the body of the article, compressed, and evicts least recently read articles
+     * if needed.
+     */
+    public synchronized void put(String url, String body) throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Can't create " + mDirectory);
+        }
+        String fileName = ArticleCache.fileName(url);
+        File file = new File(mDirectory, fileName);
+        File tmp = new File(mDirectory, fileName + DiskLruIndex.TMP_SUFFIX);
+        try (Writer out = new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(tmp), BUFFER_SIZE), UTF_8)) {
+            out.write(body);
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Can't store " + file);
+        }
+        mIndex.add(fileName);
+    }
+
+    /**
+     * Removes every article.
+     */
+    public synchronized void clear() {
+        mIndex.clear();
+    }
+
+    /**
+     * Returns the size of all stored articles together, compressed, in bytes.
+     */
+    public synchronized long size() {
+        return mIndex.size();
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.GamesResponse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Persistent, size limited cache of parsed {@link Games} pages.
+ * <p>
+ * Every entry is one file in the cache directory, keyed by the normalized request URL.
+ * Entries are evicted least recently used first once the directory grows beyond its limit,
+ * and every section has its own time to live after which an entry is served stale while
+ * it is being revalidated.
+ */
+public final class ArticleCache {
+
+    /**
+     * Name of the directory holding the cache files
+     */
+    public static final String DIRECTORY = "articles";
+
+    /**
+     * Upper bound of the size of all cache files together
+     */
+    private static final long MAX_SIZE_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * Bump when the file layout changes so old files are ignored
+     */
+    private static final int FORMAT_VERSION = 5;
+
+    private static final long MINUTE_MILLIS = 60 * 1000;
+    private static final long DEFAULT_TTL_MILLIS = 15 * MINUTE_MILLIS;
+
+    /**
+     * Fast moving sections go stale sooner than the slow ones.
+     */
+    private static final Map<String, Long> SECTION_TTL_MILLIS = new HashMap<>();
+
+    static {
+        SECTION_TTL_MILLIS.put("football", 5 * MINUTE_MILLIS);
+        SECTION_TTL_MILLIS.put("world", 5 * MINUTE_MILLIS);
+        SECTION_TTL_MILLIS.put("games", 30 * MINUTE_MILLIS);
+        SECTION_TTL_MILLIS.put("travel", 60 * MINUTE_MILLIS);
+        SECTION_TTL_MILLIS.put("food", 60 * MINUTE_MILLIS);
+        SECTION_TTL_MILLIS.put("fashion", 60 * MINUTE_MILLIS);
+    }
+
+    /**
+     * Query parameters that don't change the content of the response
+     */
+    private static final List<String> IGNORED_PARAMETERS = Arrays.asList("api-key");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static ArticleCache sInstance;
+
+    private final File mDirectory;
+
+    /**
+     * Sizes and access order of the files
+     */
+    private final DiskLruIndex mIndex;
+
+    /**
+     * Returns the process wide cache stored below the given cache directory.
+     */
+    public static synchronized ArticleCache getInstance(File cacheDir) {
+        if (sInstance == null) {
+            sInstance = new ArticleCache(new File(cacheDir, DIRECTORY), MAX_SIZE_BYTES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructs a new {@link ArticleCache}.
+     *
+     * @param directory    holding one file per entry
+     * @param maxSizeBytes is the limit after which least recently used entries are evicted
+     */
+    public ArticleCache(File directory, long maxSizeBytes) {
+        mDirectory = directory;
+        mIndex = new DiskLruIndex(directory, maxSizeBytes);
+    }
+
+    /**
+     * Returns the cache key for the given request URL. Parameters are sorted and the
+     * api-key is dropped, so equivalent requests share the same entry.
+     */
+    public static String keyFor(String requestUrl) {
+        int queryStart = requestUrl.indexOf('?');
+        if (queryStart < 0) {
+            return requestUrl;
+        }
+        List<String> parameters = new ArrayList<>();
+        for (String parameter : requestUrl.substring(queryStart + 1).split("&")) {
+            if (parameter.isEmpty() || IGNORED_PARAMETERS.contains(parameterName(parameter))) {
+                continue;
+            }
+            parameters.add(parameter);
+        }
+        Collections.sort(parameters);
+
+        StringBuilder key = new StringBuilder(requestUrl.substring(0, queryStart)).append('?');
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                key.append('&');
+            }
+            key.append(parameters.get(i));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the value of the given query parameter of the URL, or null if it's missing.
+     */
+    public static String queryParameter(String requestUrl, String name) {
+        int queryStart = requestUrl.indexOf('?');
+        if (queryStart < 0) {
+            return null;
+        }
+        for (String parameter : requestUrl.substring(queryStart + 1).split("&")) {
+            if (name.equals(parameterName(parameter))) {
+                return parameter.substring(Math.min(parameter.length(), name.length() + 1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns how long entries of the given section are considered fresh.
+     */
+    public static long ttlForSection(String section) {
+        Long ttl = section != null ? SECTION_TTL_MILLIS.get(section) : null;
+        return ttl != null ? ttl : DEFAULT_TTL_MILLIS;
+    }
+
+    /**
+     * Returns the entry stored for the key, or null if there is none.
+     */
+    public synchronized Entry get(String key) {
+        String fileName = fileName(key);
+        if (!mIndex.touch(fileName)) {
+            return null;
+        }
+        File file = new File(mDirectory, fileName);
+        try {
+            Entry entry = read(file);
+            if (key.equals(entry.mKey)) {
+                // Keep the access order across process restarts
+                file.setLastModified(System.currentTimeMillis());
+                return entry;
+            }
+        } catch (IOException e) {
+            // Unreadable or outdated entry, drop it below
+        }
+        mIndex.remove(fileName);
+        return null;
+    }
+
+    /**
+     * Stores the response for the key and evicts least recently used entries if needed.
+     */
+    public synchronized void put(String key, GamesResponse response) {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            return;
+        }
+        String fileName = fileName(key);
+        File file = new File(mDirectory, fileName);
+        File tmp = new File(mDirectory, fileName + DiskLruIndex.TMP_SUFFIX);
+        try {
+            write(tmp, new Entry(key, System.currentTimeMillis(), response.getGames(),
+                    response.getEtag(), response.getLastModified(), response.getPages()));
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return;
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        mIndex.add(fileName);
+    }
+
+    /**
+     * Marks the entry as fresh again, after the server confirmed it's still current.
+     */
+    public synchronized void revalidated(Entry entry) {
+        put(entry.mKey, entry.toResponse());
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        mIndex.clear();
+    }
+
+    private static Entry read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown cache format " + file);
+            }
+            String key = in.readUTF();
+            long fetchedAt = in.readLong();
+            String etag = readString(in);
+            String lastModified = readString(in);
+            int pages = in.readInt();
+            int count = in.readInt();
+            List<Games> games = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String section = readString(in);
+                String author = readString(in);
+                String timeAndDate = readString(in);
+                String title = readString(in);
+                String url = readString(in);
+                String thumbnailUrl = readString(in);
+                int contributorCount = in.readInt();
+                List<Contributor> contributors = new ArrayList<>(contributorCount);
+                for (int j = 0; j < contributorCount; j++) {
+                    contributors.add(new Contributor(in.readUTF(), in.readUTF()));
+                }
+                games.add(new Games(section, author, timeAndDate, title, url, thumbnailUrl,
+                        contributors));
+            }
+            return new Entry(key, fetchedAt, games, etag, lastModified, pages);
+        }
+    }
+
+    private static void write(File file, Entry entry) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(entry.mKey);
+            out.writeLong(entry.mFetchedAt);
+            writeString(out, entry.mEtag);
+            writeString(out, entry.mLastModified);
+            out.writeInt(entry.mPages);
+            out.writeInt(entry.mGames.size());
+            for (Games game : entry.mGames) {
+                writeString(out, game.getSection());
+                writeString(out, game.getAuthor());
+                writeString(out, game.getTimeAndDate());
+                writeString(out, game.getTitle());
+                writeString(out, game.getUrl());
+                writeString(out, game.getThumbnailUrl());
+                List<Contributor> contributors = game.getContributors();
+                out.writeInt(contributors.size());
+                for (Contributor contributor : contributors) {
+                    out.writeUTF(contributor.getId());
+                    out.writeUTF(contributor.getName());
+                }
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String parameterName(String parameter) {
+        int equals = parameter.indexOf('=');
+        return equals < 0 ? parameter : parameter.substring(0, equals);
+    }
+
+    /**
+     * Hash the key, so any URL maps to a valid file name.
+     */
+    static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+
+    /**
+     * A cached list of {@link Games}, the time it was fetched and its HTTP validators.
+     */
+    public static final class Entry {
+
+        private final String mKey;
+        private final long mFetchedAt;
+        private final List<Games> mGames;
+        private final String mEtag;
+        private final String mLastModified;
+        private final int mPages;
+
+        Entry(String key, long fetchedAt, List<Games> games, String etag, String lastModified,
+              int pages) {
+            mKey = key;
+            mFetchedAt = fetchedAt;
+            mGames = games;
+            mEtag = etag;
+            mLastModified = lastModified;
+            mPages = pages;
+        }
+
+        /**
+         * Returns the cached games as a response for the page of the key.
+         */
+        public GamesResponse toResponse() {
+            String page = queryParameter(mKey, "page");
+            int currentPage = page != null && !page.isEmpty() ? Integer.parseInt(page) : 1;
+            return new GamesResponse(mGames, false, mEtag, mLastModified, currentPage, mPages);
+        }
+
+        /**
+         * Returns the cached games.
+         */
+        public List<Games> getGames() {
+            return mGames;
+        }
+
+        /**
+         * Returns the time the games were fetched from the network, in milliseconds.
+         */
+        public long getFetchedAt() {
+            return mFetchedAt;
+        }
+
+        /**
+         * Returns the ETag of the cached response, or null.
+         */
+        public String getEtag() {
+            return mEtag;
+        }
+
+        /**
+         * Returns the Last-Modified date of the cached response, or null.
+         */
+        public String getLastModified() {
+            return mLastModified;
+        }
+
+        /**
+         * Returns true once the time to live of the entry's section has passed.
+         */
+        public boolean isStale(long now) {
+            return now - mFetchedAt > ttlForSection(queryParameter(mKey, "section"));
+        }
+    }
+}
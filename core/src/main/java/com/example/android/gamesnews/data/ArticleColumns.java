@@ -0,0 +1,191 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A read-only list of articles stored by column, for the list to bind from.
+ * <p>
+ * Every field is an array with an entry per row: the publication time as a long, and the
+ * section, author, title, URL and thumbnail URL as the very strings the articles hold, so
+ * building the columns copies no text and binding a row reads the arrays without
+ * allocating. Section and author names are shared by the articles through their
+ * dictionary, so comparing them rarely looks at their characters.
+ */
+public final class ArticleColumns {
+
+    /**
+     * The list without rows
+     */
+    public static final ArticleColumns EMPTY = of(Collections.<Games>emptyList());
+
+    private final int mSize;
+    private final String[] mSections;
+    private final String[] mAuthors;
+    private final long[] mPublishedMillis;
+
+    /**
+     * Number of other articles telling the same story each row stands for, see
+     * {@link StoryClusterer}
+     */
+    private final int[] mRelated;
+
+    private final String[] mTitles;
+    private final String[] mUrls;
+    private final String[] mThumbnailUrls;
+
+    /**
+     * Dates that couldn't be parsed by row, or null if every date was parsed
+     */
+    private final String[] mUnparsedDates;
+
+    private ArticleColumns(int size, boolean unparsedDates, int[] related) {
+        mSize = size;
+        mSections = new String[size];
+        mAuthors = new String[size];
+        mPublishedMillis = new long[size];
+        mRelated = related;
+        mTitles = new String[size];
+        mUrls = new String[size];
+        mThumbnailUrls = new String[size];
+        mUnparsedDates = unparsedDates ? new String[size] : null;
+    }
+
+    /**
+     * Returns the columns of the given articles, in the same order.
+     */
+    public static ArticleColumns of(List<Games> games) {
+        return of(games, new int[games.size()]);
+    }
+
+    /**
+     * Returns the columns of the given articles, in the same order, each standing for the
+     * given number of other articles.
+     *
+     * @param related has an entry per article, which the columns keep
+     */
+    public static ArticleColumns of(List<Games> games, int[] related) {
+        int size = games.size();
+        boolean unparsedDates = false;
+        for (int i = 0; i < size; i++) {
+            unparsedDates |= games.get(i).getPublishedMillis() == ArticleDateFormatter.UNKNOWN;
+        }
+
+        ArticleColumns columns = new ArticleColumns(size, unparsedDates, related);
+        for (int i = 0; i < size; i++) {
+            Games game = games.get(i);
+            columns.mSections[i] = game.getSection();
+            columns.mAuthors[i] = game.getAuthor();
+            columns.mPublishedMillis[i] = game.getPublishedMillis();
+            if (unparsedDates && game.getPublishedMillis() == ArticleDateFormatter.UNKNOWN) {
+                columns.mUnparsedDates[i] = game.getTimeAndDate();
+            }
+            columns.mTitles[i] = game.getTitle();
+            columns.mUrls[i] = game.getUrl();
+            columns.mThumbnailUrls[i] = game.getThumbnailUrl();
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the name of the section of the row.
+     */
+    public String getSection(int row) {
+        return mSections[row];
+    }
+
+    /**
+     * Returns the name of the author of the row.
+     */
+    public String getAuthor(int row) {
+        return mAuthors[row];
+    }
+
+    /**
+     * Returns the publication time of the row, or {@link ArticleDateFormatter#UNKNOWN}.
+     */
+    public long getPublishedMillis(int row) {
+        return mPublishedMillis[row];
+    }
+
+    /**
+     * Returns the number of other articles telling the same story the row stands for.
+     */
+    public int getRelated(int row) {
+        return mRelated[row];
+    }
+
+    /**
+     * Returns the publication time of the row in the format of the API, or as received if
+     * it couldn't be parsed.
+     */
+    public String getTimeAndDate(int row) {
+        String unparsed = unparsedDate(row);
+        return unparsed != null
+                ? unparsed : ArticleDateFormatter.formatIso8601(mPublishedMillis[row]);
+    }
+
+    /**
+     * Returns the title of the row.
+     */
+    public String getTitle(int row) {
+        return mTitles[row];
+    }
+
+    /**
+     * Returns the web URL of the row, the instance its article holds.
+     */
+    public String getUrl(int row) {
+        return mUrls[row];
+    }
+
+    /**
+     * Returns the thumbnail URL of the row, or null if it has none.
+     */
+    public String getThumbnailUrl(int row) {
+        return mThumbnailUrls[row];
+    }
+
+    /**
+     * Returns true if the row and the row of the other list are the same article, which is
+     * when they share the web URL.
+     */
+    public boolean isSameArticle(int row, ArticleColumns other, int otherRow) {
+        return equal(mUrls[row], other.mUrls[otherRow]);
+    }
+
+    /**
+     * Returns true if every field of the row equals the row of the other list.
+     */
+    public boolean isSameContent(int row, ArticleColumns other, int otherRow) {
+        // Shared names are the same instance, so they rarely need to be compared char by char
+        return equal(mSections[row], other.mSections[otherRow])
+                && equal(mAuthors[row], other.mAuthors[otherRow])
+                && mPublishedMillis[row] == other.mPublishedMillis[otherRow]
+                && mRelated[row] == other.mRelated[otherRow]
+                && equal(unparsedDate(row), other.unparsedDate(otherRow))
+                && equal(mTitles[row], other.mTitles[otherRow])
+                && equal(mUrls[row], other.mUrls[otherRow])
+                && equal(mThumbnailUrls[row], other.mThumbnailUrls[otherRow]);
+    }
+
+    private String unparsedDate(int row) {
+        return mUnparsedDates != null ? mUnparsedDates[row] : null;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.RequestBudget.Prioritized;
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Process wide entry point for result pages, shared by the loaders and the background sync.
+ * <p>
+ * Overlapping requests for the same page are coalesced: the first one starts a single
+ * fetch on the repository's threads and the later ones wait for its result, so a second
+ * loader or the sync asking at the same time doesn't send the request again. A caller that
+ * is cancelled only stops waiting. The fetch itself, connection and parse, is cancelled
+ * once nobody waits for it anymore. A fetch a user waits for takes its request from the
+ * API quota as a user request, even if background work started it.
+ */
+public final class ArticleRepository {
+
+    /**
+     * Number of pages fetched at the same time
+     */
+    private static final int MAX_PARALLEL_FETCHES = 4;
+
+    /**
+     * How long an idle fetch thread is kept
+     */
+    private static final long IDLE_SECONDS = 30;
+
+    private static ArticleRepository sInstance;
+
+    private final ArticleSource mSource;
+    private final ExecutorService mExecutor;
+
+    /**
+     * Fetches in flight by cache key, guarded by itself
+     */
+    private final Map<String, Call> mCalls = new HashMap<>();
+
+    /**
+     * Returns the process wide repository, backed by the shared {@link ArticleCache} below
+     * the given cache directory.
+     *
+     * @param cacheDir of the application
+     * @param sink     receiving every fetched article
+     */
+    public static synchronized ArticleRepository getInstance(File cacheDir, ArticleSink sink) {
+        if (sInstance == null) {
+            sInstance = new ArticleRepository(
+                    new ArticleSource(ArticleCache.getInstance(cacheDir), sink),
+                    newFetchExecutor());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructs a new {@link ArticleRepository}.
+     *
+     * @param source   performing the fetches
+     * @param executor running the fetches
+     */
+    public ArticleRepository(ArticleSource source, ExecutorService executor) {
+        mSource = source;
+        mExecutor = executor;
+    }
+
+    /**
+     * Returns the cached entry for the request URL, or null if there is none.
+     */
+    public ArticleCache.Entry getCached(String requestUrl) {
+        return mSource.getCached(requestUrl);
+    }
+
+    /**
+     * Returns the cached response if it's still fresh, otherwise fetches it. If the
+     * fetch fails, a stale cached response is still better than nothing.
+     *
+     * @param cancellation of the caller, or null if it can't be cancelled
+     */
+    public GamesResponse load(String requestUrl, Cancellation cancellation) {
+        ArticleCache.Entry entry = getCached(requestUrl);
+        if (entry != null && !entry.isStale(System.currentTimeMillis())) {
+            Metrics.counter(Metrics.CACHE_HIT).increment();
+            return entry.toResponse();
+        }
+        GamesResponse response = fetch(requestUrl, entry, cancellation);
+        if (response.getGames() == null && entry != null && !isCancelled(cancellation)) {
+            return entry.toResponse();
+        }
+        return response;
+    }
+
+    /**
+     * Fetch the page from the network, or wait for the fetch of the same page that is
+     * already running. See {@link ArticleSource#fetch(String, ArticleCache.Entry)}.
+     *
+     * @param requestUrl   to load data from
+     * @param cached       entry for the URL, or null
+     * @param cancellation of the caller, or null if it can't be cancelled
+     * @return the response, without games if the fetch failed or the caller was cancelled
+     */
+    public GamesResponse fetch(String requestUrl, ArticleCache.Entry cached,
+                               Cancellation cancellation) {
+        return fetch(requestUrl, cached, cancellation, Priority.USER);
+    }
+
+    /**
+     * Same as {@link #fetch(String, ArticleCache.Entry, Cancellation)} with the given
+     * priority in the API quota. A user joining a background fetch of the same page raises
+     * its priority, also while it waits for the quota.
+     *
+     * @param priority of the caller in the API quota
+     */
+    public GamesResponse fetch(String requestUrl, ArticleCache.Entry cached,
+                               Cancellation cancellation, Priority priority) {
+        String key = ArticleCache.keyFor(requestUrl);
+        Call call;
+        boolean start;
+        synchronized (mCalls) {
+            call = mCalls.get(key);
+            start = call == null;
+            if (start) {
+                call = new Call(key, requestUrl, cached, priority);
+                mCalls.put(key, call);
+            } else {
+                Metrics.counter(Metrics.COALESCED).increment();
+                if (priority == Priority.USER) {
+                    call.mPriority = Priority.USER;
+                }
+            }
+            call.mWaiters++;
+        }
+        if (start) {
+            mExecutor.execute(call);
+        }
+        return call.await(cancellation);
+    }
+
+    /**
+     * Returns a response without games.
+     */
+    private static GamesResponse failed() {
+        return new GamesResponse(null, false, null, null, 1, 1);
+    }
+
+    private static boolean isCancelled(Cancellation cancellation) {
+        return cancellation != null && cancellation.isCancelled();
+    }
+
+    /**
+     * Daemon threads, so the repository never keeps a JVM alive.
+     */
+    private static ExecutorService newFetchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_PARALLEL_FETCHES, MAX_PARALLEL_FETCHES, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "article-fetch-" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A single fetch and the callers waiting for it.
+     */
+    private final class Call implements Runnable, Prioritized {
+
+        private final String mKey;
+        private final String mUrl;
+        private final ArticleCache.Entry mCached;
+        private final Cancellation mCancellation = new Cancellation();
+
+        /**
+         * Number of callers waiting, guarded by mCalls
+         */
+        private int mWaiters;
+
+        /**
+         * Highest priority of the callers, raised when a user joins background work. The
+         * budget reads it again while the fetch waits for its turn.
+         */
+        private volatile Priority mPriority;
+
+        private GamesResponse mResponse;
+        private boolean mDone;
+
+        Call(String key, String url, ArticleCache.Entry cached, Priority priority) {
+            mKey = key;
+            mUrl = url;
+            mCached = cached;
+            mPriority = priority;
+        }
+
+        /**
+         * This is on a fetch thread.
+         */
+        @Override
+        public void run() {
+            GamesResponse response = null;
+            try {
+                response = mSource.fetch(mUrl, mCached, mCancellation, this);
+            } finally {
+                synchronized (mCalls) {
+                    if (mCalls.get(mKey) == this) {
+                        mCalls.remove(mKey);
+                    }
+                }
+                synchronized (this) {
+                    mResponse = response != null ? response : failed();
+                    mDone = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public Priority getPriority() {
+            return mPriority;
+        }
+
+        /**
+         * Wait until the fetch is done or the caller is cancelled or interrupted.
+         */
+        GamesResponse await(Cancellation cancellation) {
+            Runnable wakeUp = new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (Call.this) {
+                        Call.this.notifyAll();
+                    }
+                }
+            };
+            if (cancellation != null) {
+                cancellation.addListener(wakeUp);
+            }
+            try {
+                synchronized (this) {
+                    while (!mDone && !isCancelled(cancellation)) {
+                        wait();
+                    }
+                    if (mDone && !isCancelled(cancellation)) {
+                        return mResponse;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (cancellation != null) {
+                    cancellation.removeListener(wakeUp);
+                }
+                leave();
+            }
+            return failed();
+        }
+
+        /**
+         * Stop waiting. The last caller to leave cancels the fetch if it's still running,
+         * and the next request for the page starts a new one.
+         */
+        private void leave() {
+            boolean last;
+            synchronized (mCalls) {
+                last = --mWaiters == 0;
+                if (last && mCalls.get(mKey) == this) {
+                    mCalls.remove(mKey);
+                }
+            }
+            if (last) {
+                mCancellation.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Games;
+
+import java.util.List;
+
+
+/**
+ * Receives every batch of articles fetched by an {@link ArticleSource}, like the app's
+ * local database.
+ */
+public interface ArticleSink {
+
+    /**
+     * Does nothing, for sources that only fill the cache.
+     */
+    ArticleSink NONE = new ArticleSink() {
+        @Override
+        public void upsert(String sectionId, List<Games> games) {
+        }
+    };
+
+    /**
+     * Store the articles of one response.
+     *
+     * @param sectionId is the section the articles were requested for, like "football", or
+     *                  null if unknown
+     * @param games     to store
+     */
+    void upsert(String sectionId, List<Games> games);
+}
@@ -0,0 +1,233 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.GuardianUrls;
+import com.example.android.gamesnews.utils.HttpTransport;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.QueryUtils;
+import com.example.android.gamesnews.utils.RequestBudget.Prioritized;
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Loads result pages through the {@link ArticleCache}: fresh entries are served without
+ * touching the network, stale ones are revalidated with a conditional request and new
+ * responses are stored for the next time. New articles are also handed to an
+ * {@link ArticleSink}, like the app's database that keeps them for offline use.
+ * <p>
+ * The first page of a section listed newest first is refreshed with a delta instead: only
+ * the articles published since the newest cached one are requested, and merged into the
+ * cached page. Usually that's a handful of articles rather than a full page.
+ */
+public final class ArticleSource {
+
+    /**
+     * Order of the lists that can be refreshed with a delta
+     */
+    private static final String ORDER_BY_NEWEST = "newest";
+
+    private final HttpTransport mTransport;
+    private final ArticleCache mCache;
+    private final ArticleSink mSink;
+
+    /**
+     * Constructs a new {@link ArticleSource} using the shared HTTP client.
+     *
+     * @param cache holding previous responses
+     * @param sink  receiving every fetched article
+     */
+    public ArticleSource(ArticleCache cache, ArticleSink sink) {
+        this(QueryUtils.defaultTransport(), cache, sink);
+    }
+
+    /**
+     * Constructs a new {@link ArticleSource}.
+     *
+     * @param transport performing the requests
+     * @param cache     holding previous responses
+     * @param sink      receiving every fetched article
+     */
+    public ArticleSource(HttpTransport transport, ArticleCache cache, ArticleSink sink) {
+        mTransport = transport;
+        mCache = cache;
+        mSink = sink;
+    }
+
+    /**
+     * Returns the cached entry for the request URL, or null if there is none.
+     */
+    public ArticleCache.Entry getCached(String requestUrl) {
+        return mCache.get(ArticleCache.keyFor(requestUrl));
+    }
+
+    /**
+     * Returns the cached response if it's still fresh, otherwise fetches it. If the
+     * fetch fails, a stale cached response is still better than nothing.
+     */
+    public GamesResponse load(String requestUrl) {
+        ArticleCache.Entry entry = getCached(requestUrl);
+        if (entry != null && !entry.isStale(System.currentTimeMillis())) {
+            Metrics.counter(Metrics.CACHE_HIT).increment();
+            return entry.toResponse();
+        }
+        GamesResponse response = fetch(requestUrl, entry);
+        if (response.getGames() == null && entry != null) {
+            return entry.toResponse();
+        }
+        return response;
+    }
+
+    /**
+     * Perform the network request, parse the response, and extract a list of games.
+     * A conditional request lets the server answer 304 if the cached copy is current,
+     * in which case the cached games are returned.
+     *
+     * @param requestUrl to load data from
+     * @param cached     entry for the URL, or null
+     */
+    public GamesResponse fetch(String requestUrl, ArticleCache.Entry cached) {
+        return fetch(requestUrl, cached, null);
+    }
+
+    /**
+     * Same as {@link #fetch(String, ArticleCache.Entry)}, abandoned once the given
+     * cancellation is cancelled. Nothing is stored for a cancelled request.
+     *
+     * @param cancellation of the request, or null if it can't be cancelled
+     */
+    public GamesResponse fetch(String requestUrl, ArticleCache.Entry cached,
+                               Cancellation cancellation) {
+        return fetch(requestUrl, cached, cancellation, Priority.USER);
+    }
+
+    /**
+     * Same as {@link #fetch(String, ArticleCache.Entry, Cancellation)}, taking the request
+     * from the API quota with the given priority.
+     *
+     * @param priority of the request in the API quota, read again while it waits there
+     */
+    public GamesResponse fetch(String requestUrl, ArticleCache.Entry cached,
+                               Cancellation cancellation, Prioritized priority) {
+        if (cached == null) {
+            Metrics.counter(Metrics.CACHE_MISS).increment();
+        } else {
+            long newest = newestPublished(requestUrl, cached);
+            if (newest != ArticleDateFormatter.UNKNOWN) {
+                return fetchDelta(requestUrl, cached, newest, cancellation, priority);
+            }
+        }
+        GamesResponse response = cached != null
+                ? QueryUtils.fetchGamesData(mTransport, requestUrl,
+                        cached.getEtag(), cached.getLastModified(), cancellation, priority)
+                : QueryUtils.fetchGamesData(mTransport, requestUrl, null, null, cancellation,
+                        priority);
+        if (response.isNotModified()) {
+            Metrics.counter(Metrics.CACHE_REVALIDATED).increment();
+            mCache.revalidated(cached);
+            return cached.toResponse();
+        }
+
+        List<Games> games = response.getGames();
+        if (games != null && !games.isEmpty()) {
+            mCache.put(ArticleCache.keyFor(requestUrl), response);
+            mSink.upsert(ArticleCache.queryParameter(requestUrl, "section"), games);
+        }
+        return response;
+    }
+
+    /**
+     * Fetch the articles published since the newest cached one and merge them into the
+     * cached page. The merged page has no validators, its next refresh is a delta again.
+     *
+     * @param newest is the publication time of the newest cached article
+     */
+    private GamesResponse fetchDelta(String requestUrl, ArticleCache.Entry cached, long newest,
+                                     Cancellation cancellation, Prioritized priority) {
+        GamesResponse delta = QueryUtils.fetchGamesData(mTransport,
+                GuardianUrls.fromDate(requestUrl, newest), null, null, cancellation, priority);
+        List<Games> fresh = delta.getGames();
+        if (fresh == null) {
+            return delta;
+        }
+        Metrics.counter(Metrics.DELTA).increment();
+        Metrics.counter(Metrics.DELTA_ARTICLES).add(fresh.size());
+
+        List<Games> merged = merge(fresh, cached.getGames(), pageSize(requestUrl, cached));
+        if (merged.equals(cached.getGames())) {
+            Metrics.counter(Metrics.CACHE_REVALIDATED).increment();
+            mCache.revalidated(cached);
+            return cached.toResponse();
+        }
+
+        GamesResponse response = new GamesResponse(merged, false, null, null, 1,
+                Math.max(cached.toResponse().getPages(), delta.getPages()));
+        mCache.put(ArticleCache.keyFor(requestUrl), response);
+        mSink.upsert(ArticleCache.queryParameter(requestUrl, "section"), fresh);
+        return response;
+    }
+
+    /**
+     * Returns the new articles followed by the cached ones, without duplicates and no
+     * more than the limit. Both lists are newest first and every new article is at least
+     * as new as the cached ones, so the merged list is too.
+     */
+    static List<Games> merge(List<Games> fresh, List<Games> cached, int limit) {
+        List<Games> merged = new ArrayList<>(limit);
+        Set<String> urls = new HashSet<>();
+        for (Games game : fresh) {
+            if (merged.size() < limit && urls.add(game.getUrl())) {
+                merged.add(game);
+            }
+        }
+        for (Games game : cached) {
+            if (merged.size() < limit && urls.add(game.getUrl())) {
+                merged.add(game);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the publication time of the newest cached article if the request can be
+     * refreshed with a delta: the first page of a section, newest first. Otherwise
+     * {@link ArticleDateFormatter#UNKNOWN}.
+     */
+    private static long newestPublished(String requestUrl, ArticleCache.Entry cached) {
+        if (ArticleCache.queryParameter(requestUrl, "section") == null
+                || ArticleCache.queryParameter(requestUrl, "page") != null
+                || !ORDER_BY_NEWEST.equals(ArticleCache.queryParameter(requestUrl, "order-by"))
+                || cached.getGames() == null) {
+            return ArticleDateFormatter.UNKNOWN;
+        }
+        long newest = ArticleDateFormatter.UNKNOWN;
+        for (Games game : cached.getGames()) {
+            long published = game.getPublishedMillis();
+            if (published != ArticleDateFormatter.UNKNOWN
+                    && (newest == ArticleDateFormatter.UNKNOWN || published > newest)) {
+                newest = published;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Returns the page size of the request, or the size of the cached page if it has none.
+     */
+    private static int pageSize(String requestUrl, ArticleCache.Entry cached) {
+        String pageSize = ArticleCache.queryParameter(requestUrl, "page-size");
+        try {
+            return Integer.parseInt(pageSize);
+        } catch (NumberFormatException e) {
+            return Math.max(1, cached.getGames().size());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.android.gamesnews.data;
+
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Size and access order of the files of a disk cache, evicting the least recently used
+ * files once they grow beyond a limit. Shared by {@link ArticleCache}, {@link ImageDiskCache}
+ * and {@link ArticleBodyStore}, which write and read the files themselves.
+ * <p>
+ * The access order survives process restarts as the modification times of the files, which
+ * the caches bump on every read. Not thread safe, the caches call it under their own lock.
+ */
+final class DiskLruIndex {
+
+    /**
+     * Suffix of the files still being written, they are dropped when the index is loaded
+     */
+    static final String TMP_SUFFIX = ".tmp";
+
+    private static final Comparator<File> OLDEST_FIRST = new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+            long left = a.lastModified();
+            long right = b.lastModified();
+            return left < right ? -1 : (left == right ? 0 : 1);
+        }
+    };
+
+    private final File mDirectory;
+    private final long mMaxSizeBytes;
+
+    /**
+     * File sizes in access order, the eldest entry is the first to be evicted
+     */
+    private final LinkedHashMap<String, Long> mSizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long mSize;
+
+    /**
+     * Constructs a new {@link DiskLruIndex} of the files already in the directory, oldest
+     * first.
+     *
+     * @param directory    holding the files
+     * @param maxSizeBytes is the limit after which least recently used files are deleted
+     */
+    DiskLruIndex(File directory, long maxSizeBytes) {
+        mDirectory = directory;
+        mMaxSizeBytes = maxSizeBytes;
+        load();
+    }
+
+    /**
+     * Returns true if the file is indexed, making it the most recently used one.
+     */
+    boolean touch(String fileName) {
+        // get(), unlike containsKey(), moves the entry to the end of the access order
+        return mSizes.get(fileName) != null;
+    }
+
+    /**
+     * Returns true if the file is indexed, without changing the access order.
+     */
+    boolean contains(String fileName) {
+        return mSizes.containsKey(fileName);
+    }
+
+    /**
+     * Index the file just written as the most recently used one, and delete the least
+     * recently used files if the limit is exceeded.
+     */
+    void add(String fileName) {
+        long length = new File(mDirectory, fileName).length();
+        Long previous = mSizes.put(fileName, length);
+        mSize += length - (previous != null ? previous : 0);
+        trimToSize();
+    }
+
+    /**
+     * Delete the file and drop it from the index.
+     */
+    void remove(String fileName) {
+        Long size = mSizes.remove(fileName);
+        if (size != null) {
+            mSize -= size;
+        }
+        new File(mDirectory, fileName).delete();
+    }
+
+    /**
+     * Delete every indexed file.
+     */
+    void clear() {
+        for (String fileName : new ArrayList<>(mSizes.keySet())) {
+            remove(fileName);
+        }
+    }
+
+    /**
+     * Returns the size of all indexed files together, in bytes.
+     */
+    long size() {
+        return mSize;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> eldest = mSizes.entrySet().iterator();
+        while (mSize > mMaxSizeBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            new File(mDirectory, entry.getKey()).delete();
+            mSize -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Rebuild the access order from the file modification times.
+     */
+    private void load() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, OLDEST_FIRST);
+        for (File file : files) {
+            if (file.getName().endsWith(TMP_SUFFIX)) {
+                file.delete();
+                continue;
+            }
+            mSizes.put(file.getName(), file.length());
+            mSize += file.length();
+        }
+        trimToSize();
+    }
+}
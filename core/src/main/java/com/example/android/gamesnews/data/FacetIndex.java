@@ -0,0 +1,288 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Counts the articles seen so far by author and by section, and lists them, so the list
+ * can be filtered without asking the API again.
+ * <p>
+ * Articles are added as pages arrive. Every article is indexed once, by web URL, so adding
+ * a page only costs its new and changed articles; a changed article replaces the one
+ * indexed before. An article is listed under each of its contributors, or under its byline
+ * if it has no contributor tags. The articles of the pages dropped from memory are removed
+ * with {@link #retain(Collection)}, so the index is no bigger than the pages.
+ */
+public final class FacetIndex {
+
+    /**
+     * What a facet groups the articles by.
+     */
+    public enum Kind {
+        AUTHOR,
+        SECTION
+    }
+
+    /**
+     * An author or section with the number of its articles.
+     */
+    public static final class Facet {
+        private final Kind mKind;
+        private final String mKey;
+        private final String mName;
+        private final int mCount;
+
+        Facet(Kind kind, String key, String name, int count) {
+            mKind = kind;
+            mKey = key;
+            mName = name;
+            mCount = count;
+        }
+
+        /**
+         * Returns whether this is an author or a section.
+         */
+        public Kind getKind() {
+            return mKind;
+        }
+
+        /**
+         * Returns the contributor tag id, the byline or the section name the facet is
+         * looked up with.
+         */
+        public String getKey() {
+            return mKey;
+        }
+
+        /**
+         * Returns the name shown for the facet.
+         */
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Returns the number of articles of the facet.
+         */
+        public int getCount() {
+            return mCount;
+        }
+    }
+
+    /**
+     * The articles of one author or section, in the order they were added.
+     */
+    private static final class Postings {
+        /**
+         * Name given by the article added last, so a corrected name replaces the old one
+         */
+        String mName;
+        final List<Games> mGames = new ArrayList<>();
+
+        Postings(String name) {
+            mName = name;
+        }
+    }
+
+    private static final Comparator<Games> NEWEST_FIRST = new Comparator<Games>() {
+        @Override
+        public int compare(Games a, Games b) {
+            long left = a.getPublishedMillis();
+            long right = b.getPublishedMillis();
+            return left > right ? -1 : (left == right ? 0 : 1);
+        }
+    };
+
+    private static final Comparator<Facet> MOST_ARTICLES_FIRST = new Comparator<Facet>() {
+        @Override
+        public int compare(Facet a, Facet b) {
+            if (a.mCount != b.mCount) {
+                return a.mCount > b.mCount ? -1 : 1;
+            }
+            return a.mName.compareToIgnoreCase(b.mName);
+        }
+    };
+
+    /**
+     * Every article indexed, by web URL
+     */
+    private final Map<String, Games> mArticles = new HashMap<>();
+
+    private final Map<String, Postings> mAuthors = new HashMap<>();
+    private final Map<String, Postings> mSections = new HashMap<>();
+
+    /**
+     * Index the articles that weren't indexed yet, and the new versions of the ones that
+     * changed since they were, like an article whose byline was corrected.
+     *
+     * @return the number of articles added or replaced
+     */
+    public synchronized int add(List<Games> games) {
+        int added = 0;
+        for (Games game : games) {
+            String url = game.getUrl();
+            if (url == null) {
+                continue;
+            }
+            Games indexed = mArticles.get(url);
+            if (game.equals(indexed)) {
+                continue;
+            }
+            if (indexed != null) {
+                unpost(indexed);
+            }
+            mArticles.put(url, game);
+            added++;
+
+            List<Contributor> contributors = game.getContributors();
+            if (!contributors.isEmpty()) {
+                for (Contributor contributor : contributors) {
+                    post(mAuthors, contributor.getId(), contributor.getName(), game);
+                }
+            } else if (game.getAuthor() != null && !game.getAuthor().isEmpty()) {
+                post(mAuthors, game.getAuthor(), game.getAuthor(), game);
+            }
+            if (game.getSection() != null && !game.getSection().isEmpty()) {
+                post(mSections, game.getSection(), game.getSection(), game);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Forget the articles that aren't among the given ones, like those of the pages dropped
+     * from memory.
+     *
+     * @return the number of articles forgotten
+     */
+    public synchronized int retain(Collection<Games> games) {
+        Set<String> urls = new HashSet<>(games.size() * 2);
+        for (Games game : games) {
+            urls.add(game.getUrl());
+        }
+        int removed = 0;
+        Iterator<Map.Entry<String, Games>> articles = mArticles.entrySet().iterator();
+        while (articles.hasNext()) {
+            Map.Entry<String, Games> article = articles.next();
+            if (!urls.contains(article.getKey())) {
+                unpost(article.getValue());
+                articles.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the indexed article with the given web URL, or null.
+     */
+    public synchronized Games get(String url) {
+        return mArticles.get(url);
+    }
+
+    /**
+     * Returns the number of indexed articles.
+     */
+    public synchronized int size() {
+        return mArticles.size();
+    }
+
+    /**
+     * Returns the authors or sections, the ones with the most articles first.
+     */
+    public synchronized List<Facet> getFacets(Kind kind) {
+        Map<String, Postings> postings = postings(kind);
+        List<Facet> facets = new ArrayList<>(postings.size());
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            Postings value = entry.getValue();
+            facets.add(new Facet(kind, entry.getKey(), value.mName, value.mGames.size()));
+        }
+        Collections.sort(facets, MOST_ARTICLES_FIRST);
+        return facets;
+    }
+
+    /**
+     * Returns the articles of the author or section with the given key, newest first.
+     */
+    public synchronized List<Games> filter(Kind kind, String key) {
+        Postings postings = postings(kind).get(key);
+        if (postings == null) {
+            return new ArrayList<>();
+        }
+        List<Games> games = new ArrayList<>(postings.mGames);
+        Collections.sort(games, NEWEST_FIRST);
+        return games;
+    }
+
+    /**
+     * Forget every article.
+     */
+    public synchronized void clear() {
+        mArticles.clear();
+        mAuthors.clear();
+        mSections.clear();
+    }
+
+    private Map<String, Postings> postings(Kind kind) {
+        return kind == Kind.AUTHOR ? mAuthors : mSections;
+    }
+
+    /**
+     * Remove the article from the postings it was added to.
+     */
+    private void unpost(Games game) {
+        List<Contributor> contributors = game.getContributors();
+        if (!contributors.isEmpty()) {
+            for (Contributor contributor : contributors) {
+                unpost(mAuthors, contributor.getId(), game);
+            }
+        } else if (game.getAuthor() != null) {
+            unpost(mAuthors, game.getAuthor(), game);
+        }
+        if (game.getSection() != null) {
+            unpost(mSections, game.getSection(), game);
+        }
+    }
+
+    private static void unpost(Map<String, Postings> index, String key, Games game) {
+        Postings postings = index.get(key);
+        if (postings == null) {
+            return;
+        }
+        // By identity, a replaced article may equal another version of itself
+        Iterator<Games> games = postings.mGames.iterator();
+        while (games.hasNext()) {
+            if (games.next() == game) {
+                games.remove();
+                break;
+            }
+        }
+        if (postings.mGames.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static void post(Map<String, Postings> index, String key, String name, Games game) {
+        Postings postings = index.get(key);
+        if (postings == null) {
+            postings = new Postings(name);
+            index.put(key, postings);
+        } else {
+            postings.mName = name;
+        }
+        postings.mGames.add(game);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Games;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Fetches several sections concurrently and merges them into one feed, newest first.
+ * <p>
+ * Every section runs on the given bounded executor and is cancelled once it has been
+ * running for longer than the per-section timeout. The per-section lists are already
+ * ordered by publication time, so they are combined with a k-way merge, and articles
+ * that appear in more than one section are only listed once. A partial feed is reported
+ * each time a section arrives, so one slow section doesn't hold back the others.
+ */
+public final class FeedAggregator {
+
+    /**
+     * Loads the games of one section, ordered newest first.
+     */
+    public interface SectionFetcher {
+        List<Games> fetch(String section) throws Exception;
+    }
+
+    /**
+     * Receives the merged feed every time another section has arrived.
+     */
+    public interface Listener {
+        void onPartialFeed(List<Games> feed, int sectionsDone, int sectionsTotal);
+    }
+
+    private final ExecutorService mExecutor;
+    private final ScheduledExecutorService mTimeouts;
+    private final long mTimeoutMillis;
+
+    /**
+     * Constructs a new {@link FeedAggregator}.
+     *
+     * @param executor      running the section fetches, its size bounds the concurrency
+     * @param timeouts      used to cancel sections that run for too long
+     * @param timeoutMillis is how long a single section may run
+     */
+    public FeedAggregator(ExecutorService executor, ScheduledExecutorService timeouts,
+                          long timeoutMillis) {
+        mExecutor = executor;
+        mTimeouts = timeouts;
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Fetch all sections and return the merged feed. Sections that fail or time out
+     * are left out.
+     *
+     * @param sections to fetch
+     * @param fetcher  loading a single section
+     * @param listener notified with the partial feed as sections arrive, may be null
+     */
+    public List<Games> fetch(List<String> sections, final SectionFetcher fetcher, Listener listener)
+            throws InterruptedException {
+        CompletionService<List<Games>> completion = new ExecutorCompletionService<>(mExecutor);
+        List<Future<List<Games>>> futures = new ArrayList<>(sections.size());
+        for (final String section : sections) {
+            final AtomicReference<Future<List<Games>>> self = new AtomicReference<>();
+            Future<List<Games>> future = completion.submit(new Callable<List<Games>>() {
+                @Override
+                public List<Games> call() throws Exception {
+                    // The timeout starts when the section starts, not while it's queued
+                    ScheduledFuture<?> timeout = mTimeouts.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            Future<List<Games>> running = self.get();
+                            if (running != null) {
+                                running.cancel(true);
+                            }
+                        }
+                    }, mTimeoutMillis, TimeUnit.MILLISECONDS);
+                    try {
+                        return fetcher.fetch(section);
+                    } finally {
+                        timeout.cancel(false);
+                    }
+                }
+            });
+            self.set(future);
+            futures.add(future);
+        }
+
+        List<List<Games>> arrived = new ArrayList<>();
+        List<Games> feed = Collections.emptyList();
+        try {
+            for (int done = 1; done <= sections.size(); done++) {
+                Future<List<Games>> future = completion.take();
+                List<Games> games = null;
+                try {
+                    games = future.get();
+                } catch (ExecutionException | CancellationException e) {
+                    // A failed or timed out section doesn't stop the others
+                }
+                if (games != null && !games.isEmpty()) {
+                    arrived.add(games);
+                    feed = merge(arrived);
+                }
+                if (listener != null) {
+                    listener.onPartialFeed(feed, done, sections.size());
+                }
+            }
+        } finally {
+            for (Future<List<Games>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return feed;
+    }
+
+    /**
+     * Merge lists that are each ordered newest first into one list ordered newest first,
+     * keeping only the first occurrence of every web URL.
+     */
+    public static List<Games> merge(List<List<Games>> sortedLists) {
+        int total = 0;
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                NEWEST_FIRST);
+        for (List<Games> list : sortedLists) {
+            total += list.size();
+            if (!list.isEmpty()) {
+                heads.add(new Cursor(list));
+            }
+        }
+
+        List<Games> merged = new ArrayList<>(total);
+        Set<String> urls = new HashSet<>(total * 2);
+        while (!heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            Games game = cursor.current();
+            if (urls.add(game.getUrl())) {
+                merged.add(game);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final Comparator<Cursor> NEWEST_FIRST = new Comparator<Cursor>() {
+        @Override
+        public int compare(Cursor a, Cursor b) {
+            long left = a.current().getPublishedMillis();
+            long right = b.current().getPublishedMillis();
+            return left > right ? -1 : (left == right ? 0 : 1);
+        }
+    };
+
+    /**
+     * Position in one of the lists being merged.
+     */
+    private static final class Cursor {
+        private final List<Games> mList;
+        private int mIndex;
+
+        Cursor(List<Games> list) {
+            mList = list;
+        }
+
+        Games current() {
+            return mList.get(mIndex);
+        }
+
+        boolean advance() {
+            return ++mIndex < mList.size();
+        }
+    }
+}
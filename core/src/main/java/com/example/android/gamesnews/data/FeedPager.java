@@ -0,0 +1,183 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Games;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/**
+ * Keeps a window of consecutive result pages in memory.
+ * <p>
+ * Once more than the allowed number of pages are held, the page furthest away from the
+ * one just added is dropped, so memory stays bounded however far the user scrolls.
+ * Articles that show up on more than one page (the feed moves while we page through it)
+ * are only listed once, identified by their web URL.
+ */
+public final class FeedPager {
+
+    /**
+     * Loaded pages by page number, in ascending order
+     */
+    private final TreeMap<Integer, List<Games>> mPages = new TreeMap<>();
+
+    /**
+     * Maximum number of pages kept in memory
+     */
+    private final int mMaxPages;
+
+    /**
+     * Number of pages available for the query, as reported by the last response
+     */
+    private int mTotalPages;
+
+    /**
+     * The de-duplicated concatenation of all loaded pages
+     */
+    private List<Games> mGames = Collections.emptyList();
+
+    /**
+     * Constructs a new {@link FeedPager}.
+     *
+     * @param maxPages is the number of pages kept in memory
+     */
+    public FeedPager(int maxPages) {
+        mMaxPages = maxPages;
+    }
+
+    /**
+     * Drops every page.
+     */
+    public void clear() {
+        mPages.clear();
+        mTotalPages = 0;
+        mGames = Collections.emptyList();
+    }
+
+    /**
+     * Adds or replaces a page and returns the new list of games.
+     *
+     * @param page       is the number of the page, starting at 1
+     * @param games      on that page
+     * @param totalPages is the number of pages available for the query
+     */
+    public List<Games> putPage(int page, List<Games> games, int totalPages) {
+        mPages.put(page, games != null ? games : Collections.<Games>emptyList());
+        mTotalPages = totalPages;
+
+        while (mPages.size() > mMaxPages) {
+            // Drop the page furthest away from the one just loaded
+            if (page - mPages.firstKey() > mPages.lastKey() - page) {
+                mPages.pollFirstEntry();
+            } else {
+                mPages.pollLastEntry();
+            }
+        }
+
+        mGames = flatten();
+        return mGames;
+    }
+
+    /**
+     * Drops every page but the given one, under memory pressure. The dropped pages are
+     * loaded again when the user scrolls to them, like pages dropped for being too far.
+     *
+     * @return the numbers of the pages dropped
+     */
+    public List<Integer> trimTo(int page) {
+        List<Integer> dropped = new ArrayList<>();
+        for (Integer number : mPages.keySet()) {
+            if (number != page) {
+                dropped.add(number);
+            }
+        }
+        if (!dropped.isEmpty()) {
+            mPages.keySet().removeAll(dropped);
+            mGames = flatten();
+        }
+        return dropped;
+    }
+
+    /**
+     * Returns the number of the first page in memory listing the article with the given
+     * web URL, 0 if there is none.
+     */
+    public int getPageOf(String url) {
+        for (Map.Entry<Integer, List<Games>> page : mPages.entrySet()) {
+            for (Games game : page.getValue()) {
+                if (game.getUrl() != null && game.getUrl().equals(url)) {
+                    return page.getKey();
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the de-duplicated games of all pages in memory.
+     */
+    public List<Games> getGames() {
+        return mGames;
+    }
+
+    /**
+     * Returns true if no page is loaded.
+     */
+    public boolean isEmpty() {
+        return mPages.isEmpty();
+    }
+
+    /**
+     * Returns the number of the first page in memory, 0 if there is none.
+     */
+    public int getFirstPage() {
+        return mPages.isEmpty() ? 0 : mPages.firstKey();
+    }
+
+    /**
+     * Returns the number of the last page in memory, 0 if there is none.
+     */
+    public int getLastPage() {
+        return mPages.isEmpty() ? 0 : mPages.lastKey();
+    }
+
+    /**
+     * Returns the number of pages available for the query, as reported by the last response.
+     */
+    public int getTotalPages() {
+        return mTotalPages;
+    }
+
+    /**
+     * Returns true if there are more results after the last page in memory.
+     */
+    public boolean hasNextPage() {
+        return !mPages.isEmpty() && getLastPage() < mTotalPages;
+    }
+
+    /**
+     * Returns true if a page before the first one in memory was dropped.
+     */
+    public boolean hasPreviousPage() {
+        return !mPages.isEmpty() && getFirstPage() > 1;
+    }
+
+    private List<Games> flatten() {
+        List<Games> games = new ArrayList<>();
+        Set<String> urls = new HashSet<>();
+        for (Map.Entry<Integer, List<Games>> page : mPages.entrySet()) {
+            for (Games game : page.getValue()) {
+                if (urls.add(game.getUrl())) {
+                    games.add(game);
+                }
+            }
+        }
+        return games;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.utils.Cancellation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+
+/**
+ * Persistent, size limited cache of downloaded images, as they came from the server.
+ * <p>
+ * Every image is one file in the cache directory, named after the hash of its URL. Like
+ * {@link ArticleCache}, files are evicted least recently used first once the directory
+ * grows beyond its limit. Images don't change once published, so entries never expire.
+ */
+public final class ImageDiskCache {
+
+    /**
+     * Name of the directory holding the cache files
+     */
+    public static final String DIRECTORY = "images";
+
+    /**
+     * Upper bound of the size of all cache files together
+     */
+    private static final long MAX_SIZE_BYTES = 10 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static ImageDiskCache sInstance;
+
+    private final File mDirectory;
+
+    /**
+     * Sizes and access order of the files
+     */
+    private final DiskLruIndex mIndex;
+
+    /**
+     * Returns the process wide cache stored below the given cache directory.
+     */
+    public static synchronized ImageDiskCache getInstance(File cacheDir) {
+        if (sInstance == null) {
+            sInstance = new ImageDiskCache(new File(cacheDir, DIRECTORY), MAX_SIZE_BYTES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructs a new {@link ImageDiskCache}.
+     *
+     * @param directory    holding one file per image
+     * @param maxSizeBytes is the limit after which least recently used images are evicted
+     */
+    public ImageDiskCache(File directory, long maxSizeBytes) {
+        mDirectory = directory;
+        mIndex = new DiskLruIndex(directory, maxSizeBytes);
+    }
+
+    /**
+     * Returns the file holding the image of the URL, or null if it isn't cached.
+     */
+    public synchronized File get(String url) {
+        String fileName = ArticleCache.fileName(url);
+        if (!mIndex.touch(fileName)) {
+            return null;
+        }
+        File file = new File(mDirectory, fileName);
+        if (!file.isFile()) {
+            mIndex.remove(fileName);
+            return null;
+        }
+        // Keep the access order across process restarts
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Stores the image of the URL, read from the stream, and evicts least recently used
+     * images if needed. Nothing is stored if the download fails or is cancelled halfway.
+     *
+     * @param cancellation of the download, or null if it can't be cancelled
+     * @return the file holding the image
+     */
+    public File put(String url, InputStream in, Cancellation cancellation) throws IOException {
+        String fileName = ArticleCache.fileName(url);
+        File tmp;
+        synchronized (this) {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                throw new IOException("Can't create " + mDirectory);
+            }
+            // Several downloads of the same image may run at once, each gets its own file
+            tmp = File.createTempFile(fileName, DiskLruIndex.TMP_SUFFIX, mDirectory);
+        }
+
+        // Download outside of the lock, so a slow image doesn't hold up the others
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (cancellation != null) {
+                    cancellation.throwIfCancelled();
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+
+        synchronized (this) {
+            File file = new File(mDirectory, fileName);
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Can't store " + file);
+            }
+            mIndex.add(fileName);
+            return file;
+        }
+    }
+
+    /**
+     * Removes every image.
+     */
+    public synchronized void clear() {
+        mIndex.clear();
+    }
+
+    /**
+     * Returns the size of all cached images together, in bytes.
+     */
+    public synchronized long size() {
+        return mIndex.size();
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.android.gamesnews.data;
+
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.MemoryTiers;
+import com.example.android.gamesnews.utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+
+/**
+ * Groups the articles of a feed that tell the same story, like a story that runs in several
+ * sections with a slightly different title each time.
+ * <p>
+ * Every title is cut into overlapping character shingles and summed up by a MinHash
+ * signature, whose share of equal values estimates how much two titles overlap. The
+ * signature is split into bands and articles that agree on a whole band land in the same
+ * bucket. Only the articles of a shared bucket are compared, so a feed is grouped in
+ * linear time rather than by comparing every pair.
+ * <p>
+ * Articles are added once and stay grouped, so when the next page arrives only its new
+ * articles are hashed and looked up. Each group is shown as its newest article, with the
+ * number of other articles it stands for. Under memory pressure the groups are forgotten
+ * with {@link #trim()} and the next feed is grouped from scratch.
+ */
+public final class StoryClusterer {
+
+    /**
+     * Length of the shingles, in characters of the normalized title
+     */
+    private static final int SHINGLE_LENGTH = 3;
+
+    /**
+     * The signature is this many bands of this many rows. Titles that overlap by about
+     * half or more share a band with good odds: 1 - (1 - s^4)^16 is 0.64 for s = 0.5 and
+     * 0.99 for s = 0.7.
+     */
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+
+    /**
+     * Share of equal signature values above which two articles tell the same story
+     */
+    private static final double SIMILARITY_THRESHOLD = 0.6;
+
+    /**
+     * Number of articles a bucket keeps to compare new ones with
+     */
+    private static final int MAX_BUCKET_SIZE = 8;
+
+    /**
+     * Number of articles remembered, everything is forgotten past that and the next feed
+     * is grouped from scratch
+     */
+    private static final int MAX_ARTICLES = 4000;
+
+    /**
+     * Name of the groups in the memory metrics
+     */
+    public static final String TIER = "clusters";
+
+    /**
+     * Seeds of the hash functions, the same in every process so groups are stable
+     */
+    private static final int[] SEEDS = new int[HASHES];
+
+    static {
+        Random random = new Random(0x5eed);
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = random.nextInt() | 1;
+        }
+    }
+
+    /**
+     * Signature of every article added, by web URL
+     */
+    private final Map<String, int[]> mSignatures = new HashMap<>();
+
+    /**
+     * Articles by the hash of a band of their signature, keyed by band and hash
+     */
+    private final Map<Long, List<String>> mBuckets = new HashMap<>();
+
+    /**
+     * Union-find of the groups: the parent of every article, a group's root is its own
+     * parent
+     */
+    private final Map<String, String> mParents = new HashMap<>();
+
+    /**
+     * Whether the groups were forgotten by {@link #trim()} and not grouped again yet
+     */
+    private boolean mTrimmed;
+
+    /**
+     * Returns the feed with every group collapsed into its first article, which is the
+     * newest one for a feed ordered newest first. The other articles of a group follow it
+     * only if the group is expanded.
+     *
+     * @param feed     to group, new articles are added to the groups
+     * @param expanded web URLs of the articles whose group is shown in full
+     */
+    public synchronized ArticleColumns collapse(List<Games> feed, Set<String> expanded) {
+        long start = System.nanoTime();
+        if (mSignatures.size() + feed.size() > MAX_ARTICLES) {
+            mSignatures.clear();
+            mBuckets.clear();
+            mParents.clear();
+        }
+
+        for (Games game : feed) {
+            if (game.getUrl() != null) {
+                add(game);
+            }
+        }
+
+        // Grouped once every article is in, a late one may have joined two groups
+        Map<Object, List<Games>> groups = new LinkedHashMap<>();
+        for (Games game : feed) {
+            Object root = game.getUrl() != null ? find(game.getUrl()) : game;
+            List<Games> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<>(1);
+                groups.put(root, group);
+            }
+            group.add(game);
+        }
+
+        List<Games> rows = new ArrayList<>(groups.size());
+        List<Integer> related = new ArrayList<>(groups.size());
+        for (List<Games> group : groups.values()) {
+            Games first = group.get(0);
+            rows.add(first);
+            related.add(group.size() - 1);
+            if (group.size() > 1 && expanded.contains(first.getUrl())) {
+                for (int i = 1; i < group.size(); i++) {
+                    rows.add(group.get(i));
+                    related.add(0);
+                }
+            }
+        }
+        int[] counts = new int[related.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = related.get(i);
+        }
+        ArticleColumns columns = ArticleColumns.of(rows, counts);
+        Metrics.timer(Metrics.CLUSTER).stop(start);
+        if (mTrimmed) {
+            mTrimmed = false;
+            MemoryTiers.rehydrated(TIER, start);
+        }
+        return columns;
+    }
+
+    /**
+     * Forget every article and group, to free memory.
+     *
+     * @return the number of articles forgotten
+     */
+    public synchronized int trim() {
+        int forgotten = mSignatures.size();
+        mSignatures.clear();
+        mBuckets.clear();
+        mParents.clear();
+        mTrimmed = forgotten > 0;
+        return forgotten;
+    }
+
+    /**
+     * Adds the article if it's new, joining the groups of the similar articles found in
+     * its buckets.
+     */
+    private void add(Games game) {
+        String url = game.getUrl();
+        if (mSignatures.containsKey(url)) {
+            return;
+        }
+        int[] signature = signature(game.getTitle());
+        mSignatures.put(url, signature);
+        mParents.put(url, url);
+        if (signature == null) {
+            // Too short to compare, it's a group of its own
+            return;
+        }
+
+        for (int band = 0; band < BANDS; band++) {
+            Long key = bandKey(signature, band);
+            List<String> bucket = mBuckets.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>(1);
+                mBuckets.put(key, bucket);
+            }
+            for (String other : bucket) {
+                if (similarity(signature, mSignatures.get(other)) >= SIMILARITY_THRESHOLD) {
+                    union(url, other);
+                }
+            }
+            if (bucket.size() < MAX_BUCKET_SIZE) {
+                bucket.add(url);
+            }
+        }
+    }
+
+    /**
+     * Returns the MinHash signature of the title, or null if it has no shingle.
+     */
+    static int[] signature(String title) {
+        String text = normalize(title);
+        if (text.length() < SHINGLE_LENGTH) {
+            return null;
+        }
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            signature[i] = Integer.MAX_VALUE;
+        }
+        for (int start = 0; start + SHINGLE_LENGTH <= text.length(); start++) {
+            int shingle = 0;
+            for (int i = start; i < start + SHINGLE_LENGTH; i++) {
+                shingle = 31 * shingle + text.charAt(i);
+            }
+            for (int i = 0; i < HASHES; i++) {
+                int hash = mix(shingle * SEEDS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the share of equal values of two signatures, which estimates the Jaccard
+     * similarity of the shingles of the titles.
+     */
+    static double similarity(int[] a, int[] b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    /**
+     * Lower case letters and digits, with a single space between words, so case and
+     * punctuation don't tell titles apart.
+     */
+    private static String normalize(String title) {
+        if (title == null) {
+            return "";
+        }
+        String lower = title.toLowerCase(Locale.ROOT);
+        StringBuilder text = new StringBuilder(lower.length());
+        boolean space = true;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                text.append(c);
+                space = false;
+            } else if (!space) {
+                text.append(' ');
+                space = true;
+            }
+        }
+        int length = text.length();
+        return space && length > 0 ? text.substring(0, length - 1) : text.toString();
+    }
+
+    private static Long bandKey(int[] signature, int band) {
+        int hash = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            hash = 31 * hash + signature[i];
+        }
+        return ((long) band << 32) | (hash & 0xffffffffL);
+    }
+
+    /**
+     * Spreads the bits of the value, the finalizer of MurmurHash3.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private String find(String url) {
+        String root = url;
+        while (!root.equals(mParents.get(root))) {
+            root = mParents.get(root);
+        }
+        // Point the path straight at the root, so the next find is quick
+        while (!url.equals(root)) {
+            String parent = mParents.get(url);
+            mParents.put(url, root);
+            url = parent;
+        }
+        return root;
+    }
+
+    private void union(String a, String b) {
+        String rootA = find(a);
+        String rootB = find(b);
+        if (!rootA.equals(rootB)) {
+            mParents.put(rootA, rootB);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+
+/**
+ * Parses publication dates once at ingest and formats them for display without
+ * allocating on every bind.
+ * <p>
+ * Formatted dates are memoized per day, times per minute and relative times per
+ * bucket ("5 minutes ago"), so scrolling over a feed only hits the small caches.
+ */
+public final class ArticleDateFormatter {
+
+    /**
+     * Returned by {@link #parseIso8601(String)} when the date can't be read.
+     */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    /**
+     * Supplies the localized relative time strings.
+     */
+    public interface Labels {
+        String justNow();
+
+        String minutesAgo(int minutes);
+
+        String hoursAgo(int hours);
+
+        String daysAgo(int days);
+    }
+
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    /**
+     * Relative times are used up to a week, after that only the date is meaningful
+     */
+    private static final int MAX_RELATIVE_DAYS = 7;
+
+    /**
+     * Number of distinct days and minutes remembered before the caches start over
+     */
+    private static final int DATE_CACHE_SIZE = 256;
+    private static final int TIME_CACHE_SIZE = 2048;
+
+    private final DateFormat mDateFormat;
+    private final DateFormat mTimeFormat;
+    private final TimeZone mTimeZone;
+    private final Labels mLabels;
+
+    private final StringCache mDates = new StringCache(DATE_CACHE_SIZE);
+    private final StringCache mTimes = new StringCache(TIME_CACHE_SIZE);
+
+    private final String[] mMinutesAgo = new String[60];
+    private final String[] mHoursAgo = new String[24];
+    private final String[] mDaysAgo = new String[MAX_RELATIVE_DAYS];
+    private String mJustNow;
+
+    /**
+     * Constructs a new {@link ArticleDateFormatter}.
+     *
+     * @param locale   used for the date and time patterns
+     * @param timeZone the dates and times are shown in
+     * @param labels   for relative times
+     */
+    public ArticleDateFormatter(Locale locale, TimeZone timeZone, Labels labels) {
+        mDateFormat = DateFormat.getDateInstance(DateFormat.MEDIUM, locale);
+        mDateFormat.setTimeZone(timeZone);
+        mTimeFormat = DateFormat.getTimeInstance(DateFormat.SHORT, locale);
+        mTimeFormat.setTimeZone(timeZone);
+        mTimeZone = timeZone;
+        mLabels = labels;
+    }
+
+    /**
+     * Parse a date like "2018-11-28T11:13:53Z" into milliseconds since the epoch.
+     * A missing time is read as midnight and a numeric offset is honoured.
+     *
+     * @return the milliseconds, or {@link #UNKNOWN} if the text isn't such a date
+     */
+    public static long parseIso8601(String text) {
+        if (text == null || text.length() < 10
+                || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return UNKNOWN;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return UNKNOWN;
+        }
+
+        long millis = daysFromCivil(year, month, day) * DAY_MILLIS;
+        if (text.length() == 10) {
+            return millis;
+        }
+        if (text.length() < 19 || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return UNKNOWN;
+        }
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return UNKNOWN;
+        }
+        millis += hour * HOUR_MILLIS + minute * MINUTE_MILLIS + second * 1000L;
+
+        // Skip fractional seconds, then apply the zone designator
+        int i = 19;
+        if (i < text.length() && text.charAt(i) == '.') {
+            i++;
+            while (i < text.length() && Character.isDigit(text.charAt(i))) {
+                i++;
+            }
+        }
+        if (i == text.length() || text.charAt(i) == 'Z') {
+            return millis;
+        }
+        char sign = text.charAt(i);
+        if ((sign != '+' && sign != '-') || text.length() < i + 6 || text.charAt(i + 3) != ':') {
+            return UNKNOWN;
+        }
+        int offsetHours = digits(text, i + 1, 2);
+        int offsetMinutes = digits(text, i + 4, 2);
+        if (offsetHours < 0 || offsetMinutes < 0) {
+            return UNKNOWN;
+        }
+        long offset = offsetHours * HOUR_MILLIS + offsetMinutes * MINUTE_MILLIS;
+        return sign == '+' ? millis - offset : millis + offset;
+    }
+
+    /**
+     * Returns the given time as an ISO 8601 date in UTC, like "2018-11-28T09:30:00Z", the
+     * format the guardians API uses. Parsing the result gives the same time back, down to
+     * the second.
+     */
+    public static String formatIso8601(long millis) {
+        long days = floorDiv(millis, DAY_MILLIS);
+        long millisOfDay = millis - days * DAY_MILLIS;
+
+        // The inverse of daysFromCivil
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        StringBuilder text = new StringBuilder(20);
+        pad(text, year, 4).append('-');
+        pad(text, month, 2).append('-');
+        pad(text, day, 2).append('T');
+        pad(text, millisOfDay / HOUR_MILLIS, 2).append(':');
+        pad(text, millisOfDay % HOUR_MILLIS / MINUTE_MILLIS, 2).append(':');
+        pad(text, millisOfDay % MINUTE_MILLIS / 1000, 2).append('Z');
+        return text.toString();
+    }
+
+    private static StringBuilder pad(StringBuilder text, long value, int width) {
+        String digits = String.valueOf(value);
+        for (int i = digits.length(); i < width; i++) {
+            text.append('0');
+        }
+        return text.append(digits);
+    }
+
+    /**
+     * Returns the localized date of the given time, like "28 Nov 2018".
+     */
+    public String formatDate(long millis) {
+        long day = floorDiv(millis + mTimeZone.getOffset(millis), DAY_MILLIS);
+        String date = mDates.get(day);
+        if (date == null) {
+            date = mDateFormat.format(new Date(millis));
+            mDates.put(day, date);
+        }
+        return date;
+    }
+
+    /**
+     * Returns the localized time of the given time, like "11:13".
+     */
+    public String formatTime(long millis) {
+        long minute = floorDiv(millis, MINUTE_MILLIS);
+        String time = mTimes.get(minute);
+        if (time == null) {
+            time = mTimeFormat.format(new Date(millis));
+            mTimes.put(minute, time);
+        }
+        return time;
+    }
+
+    /**
+     * Returns how long ago the given time was, like "5 minutes ago", or the date once
+     * it's more than a week old.
+     */
+    public String formatRelative(long millis, long now) {
+        long elapsed = now - millis;
+        if (elapsed < MINUTE_MILLIS) {
+            if (mJustNow == null) {
+                mJustNow = mLabels.justNow();
+            }
+            return mJustNow;
+        }
+        if (elapsed < HOUR_MILLIS) {
+            int minutes = (int) (elapsed / MINUTE_MILLIS);
+            if (mMinutesAgo[minutes] == null) {
+                mMinutesAgo[minutes] = mLabels.minutesAgo(minutes);
+            }
+            return mMinutesAgo[minutes];
+        }
+        if (elapsed < DAY_MILLIS) {
+            int hours = (int) (elapsed / HOUR_MILLIS);
+            if (mHoursAgo[hours] == null) {
+                mHoursAgo[hours] = mLabels.hoursAgo(hours);
+            }
+            return mHoursAgo[hours];
+        }
+        int days = (int) (elapsed / DAY_MILLIS);
+        if (days < MAX_RELATIVE_DAYS) {
+            if (mDaysAgo[days] == null) {
+                mDaysAgo[days] = mLabels.daysAgo(days);
+            }
+            return mDaysAgo[days];
+        }
+        return formatDate(millis);
+    }
+
+    /**
+     * Parse a run of ASCII digits, returning -1 if any character isn't a digit.
+     */
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? quotient - 1 : quotient;
+    }
+
+    /**
+     * Days since 1970-01-01 of the given proleptic Gregorian date.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Open addressing map from long keys to strings, so lookups don't box the key.
+     * It's cleared once it's more than half full, which keeps the probe sequences short.
+     */
+    private static final class StringCache {
+
+        private final long[] mKeys;
+        private final String[] mValues;
+        private int mSize;
+
+        StringCache(int maxSize) {
+            int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+            mKeys = new long[capacity];
+            mValues = new String[capacity];
+        }
+
+        String get(long key) {
+            int mask = mKeys.length - 1;
+            for (int i = slot(key, mask); mValues[i] != null; i = (i + 1) & mask) {
+                if (mKeys[i] == key) {
+                    return mValues[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, String value) {
+            if (mSize >= mKeys.length / 2) {
+                Arrays.fill(mValues, null);
+                mSize = 0;
+            }
+            int mask = mKeys.length - 1;
+            int i = slot(key, mask);
+            while (mValues[i] != null && mKeys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (mValues[i] == null) {
+                mSize++;
+            }
+            mKeys[i] = key;
+            mValues[i] = value;
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Lets a caller abandon a request that is still running, like {@code android.os.CancellationSignal}
+ * but usable on the plain JVM.
+ * <p>
+ * Cancelling runs the listeners once, on the cancelling thread. A request uses them to drop
+ * its connection, so a thread blocked on the network wakes up right away, and checks
+ * {@link #throwIfCancelled()} while it parses. One cancellation can cover several requests
+ * running at the same time.
+ */
+public final class Cancellation {
+
+    private volatile boolean mCancelled;
+    private final List<Runnable> mListeners = new ArrayList<>();
+
+    /**
+     * Returns true once {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Throws if the request was cancelled, so it stops at the next read.
+     */
+    public void throwIfCancelled() throws InterruptedIOException {
+        if (mCancelled) {
+            throw new InterruptedIOException("Cancelled");
+        }
+    }
+
+    /**
+     * Cancel the request. Only the first call has an effect.
+     */
+    public void cancel() {
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            listeners = new ArrayList<>(mListeners);
+            mListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Add an action run when the request is cancelled. It is run right away if the
+     * request was already cancelled.
+     */
+    public void addListener(Runnable listener) {
+        synchronized (this) {
+            if (!mCancelled) {
+                mListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * Remove an action added with {@link #addListener(Runnable)}.
+     */
+    public synchronized void removeListener(Runnable listener) {
+        mListeners.remove(listener);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.android.gamesnews.utils;
+
+
+/**
+ * Stops sending requests to a server that keeps failing, so a broken or rate limiting API
+ * isn't hammered and callers fall back to cached data right away instead of waiting for
+ * timeouts.
+ * <p>
+ * The breaker opens after a number of failures in a row, or right away when the server asks
+ * to wait with Retry-After. While it's open requests are refused. Once the wait is over a
+ * single trial request is let through: if it succeeds the breaker closes, if it fails the
+ * breaker opens again.
+ */
+public final class CircuitBreaker {
+
+    private final int mFailureThreshold;
+    private final long mOpenMillis;
+
+    private int mFailures;
+
+    /**
+     * Time until which requests are refused, 0 while closed
+     */
+    private long mOpenUntil;
+
+    /**
+     * True while the trial request of a half open breaker runs
+     */
+    private boolean mTrialRunning;
+
+    /**
+     * Constructs a new {@link CircuitBreaker}.
+     *
+     * @param failureThreshold is the number of failures in a row that open the breaker
+     * @param openMillis       is how long the breaker stays open unless the server says
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+    }
+
+    /**
+     * Returns true if a request may be sent. Every allowed request must be followed by
+     * {@link #onSuccess()}, {@link #onFailure(long)} or {@link #onAbandoned()}.
+     */
+    public synchronized boolean allowRequest() {
+        if (mOpenUntil == 0) {
+            return true;
+        }
+        if (mTrialRunning || System.currentTimeMillis() < mOpenUntil) {
+            return false;
+        }
+        mTrialRunning = true;
+        return true;
+    }
+
+    /**
+     * The server answered the request.
+     */
+    public synchronized void onSuccess() {
+        mFailures = 0;
+        mOpenUntil = 0;
+        mTrialRunning = false;
+    }
+
+    /**
+     * The server failed the request.
+     *
+     * @param retryAfterMillis is how long the server asked to wait, or -1
+     */
+    public synchronized void onFailure(long retryAfterMillis) {
+        mFailures++;
+        boolean trialFailed = mTrialRunning;
+        mTrialRunning = false;
+        long now = System.currentTimeMillis();
+        if (retryAfterMillis >= 0) {
+            mOpenUntil = Math.max(mOpenUntil, now + Math.max(1, retryAfterMillis));
+        } else if (trialFailed || mFailures >= mFailureThreshold) {
+            mOpenUntil = now + mOpenMillis;
+        }
+    }
+
+    /**
+     * The request was cancelled before the server answered, which says nothing about it.
+     */
+    public synchronized void onAbandoned() {
+        mTrialRunning = false;
+    }
+
+    /**
+     * Returns true while requests are refused.
+     */
+    public synchronized boolean isOpen() {
+        return mOpenUntil != 0 && (mTrialRunning || System.currentTimeMillis() < mOpenUntil);
+    }
+
+    /**
+     * Close the breaker and forget past failures.
+     */
+    public synchronized void reset() {
+        mFailures = 0;
+        mOpenUntil = 0;
+        mTrialRunning = false;
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.android.gamesnews.utils;
+
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Streaming parser for the guardians search response.
+ * <p>
+ * The response is read token by token straight from the {@link InputStream}, so the raw
+ * body is never held in memory and every {@link Games} object is handed out as soon as
+ * its entry in the "results" array is closed. Fields that {@link Games} does not use
+ * (apiUrl, id, pillarName, ...) are skipped without being materialized.
+ */
+public final class GamesJsonParser {
+
+    /**
+     * Receives every {@link Games} object as soon as it has been parsed.
+     */
+    public interface Callback {
+        void onGame(Games game);
+
+        /**
+         * Called once the "response" object is closed with its paging fields.
+         */
+        void onPage(int currentPage, int pages);
+    }
+
+    /**
+     * Receives the body of every article whose "body" field was asked for. Bodies are
+     * handed out separately, a {@link Games} object never holds one.
+     */
+    public interface BodyCallback {
+        void onBody(String url, String body);
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Type of the tags naming the people credited for an article
+     */
+    private static final String CONTRIBUTOR_TYPE = "contributor";
+
+    /**
+     * Create a private constructor because no one should ever create a {@link GamesJsonParser} object.
+     */
+    private GamesJsonParser() {
+    }
+
+    /**
+     * Parse the given stream and return the list of {@link Games} it contains.
+     */
+    public static List<Games> parse(InputStream inputStream) throws IOException {
+        final List<Games> games = new ArrayList<>();
+        parse(inputStream, new Callback() {
+            @Override
+            public void onGame(Games game) {
+                games.add(game);
+            }
+
+            @Override
+            public void onPage(int currentPage, int pages) {
+            }
+        });
+        return games;
+    }
+
+    /**
+     * Parse the given stream and hand every {@link Games} object to the callback.
+     * Malformed input, or a document without a response object, is reported as an
+     * {@link IOException}; the games delivered before the problem was found are already
+     * handed to the callback.
+     */
+    public static void parse(InputStream inputStream, Callback callback) throws IOException {
+        parse(inputStream, callback, null);
+    }
+
+    /**
+     * Same as {@link #parse(InputStream, Callback)}, also handing the article bodies to
+     * the given callback.
+     *
+     * @param bodies receives the bodies, or null to skip them
+     */
+    public static void parse(InputStream inputStream, Callback callback, BodyCallback bodies)
+            throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, UTF_8));
+        try {
+            boolean found = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("response".equals(reader.nextName())) {
+                    readResponse(reader, callback, bodies);
+                    found = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (!found) {
+                throw new IOException("No response object in the games JSON results");
+            }
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader reports an unexpected token with an unchecked exception
+            throw new IOException("Problem parsing the games JSON results", e);
+        }
+    }
+
+    /**
+     * Read the object associated with the key called "response".
+     */
+    private static void readResponse(JsonReader reader, Callback callback, BodyCallback bodies)
+            throws IOException {
+        int currentPage = 1;
+        int pages = 1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "results":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        callback.onGame(readGame(reader, bodies));
+                    }
+                    reader.endArray();
+                    break;
+                case "currentPage":
+                    currentPage = reader.nextInt();
+                    break;
+                case "pages":
+                    pages = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        callback.onPage(currentPage, pages);
+    }
+
+    /**
+     * Read a single entry of the "results" array.
+     */
+    private static Games readGame(JsonReader reader, BodyCallback bodies) throws IOException {
+        String section = "";
+        String dateAndTime = "";
+        String title = "";
+        String url = "";
+        String byline = null;
+        String thumbnail = null;
+        List<Contributor> contributors = Collections.emptyList();
+        String body = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "sectionName":
+                    section = nextString(reader);
+                    break;
+                case "webPublicationDate":
+                    dateAndTime = nextString(reader);
+                    break;
+                case "webTitle":
+                    title = nextString(reader);
+                    break;
+                case "webUrl":
+                    url = nextString(reader);
+                    break;
+                case "fields":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "byline":
+                                byline = nextString(reader);
+                                break;
+                            case "thumbnail":
+                                thumbnail = nextString(reader);
+                                break;
+                            case "body":
+                                if (bodies != null) {
+                                    body = nextString(reader);
+                                } else {
+                                    reader.skipValue();
+                                }
+                                break;
+                            default:
+                                reader.skipValue();
+                                break;
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "tags":
+                    contributors = readContributors(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (body != null && !body.isEmpty()) {
+            bodies.onBody(url, body);
+        }
+
+        // Without a byline every contributor is credited, not just one of them
+        String author = byline != null && !byline.isEmpty() ? byline : names(contributors);
+        return new Games(section, author, dateAndTime, title, url,
+                thumbnail != null && !thumbnail.isEmpty() ? thumbnail : null, contributors);
+    }
+
+    /**
+     * Read the "tags" array and return every contributor tag in it, in order. Tags of other
+     * types are skipped, tags without a type are taken as contributors.
+     */
+    private static List<Contributor> readContributors(JsonReader reader) throws IOException {
+        List<Contributor> contributors = new ArrayList<>(1);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String id = null;
+            String type = null;
+            String webTitle = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        id = nextString(reader);
+                        break;
+                    case "type":
+                        type = nextString(reader);
+                        break;
+                    case "webTitle":
+                        webTitle = nextString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            if ((type == null || CONTRIBUTOR_TYPE.equals(type))
+                    && id != null && !id.isEmpty() && webTitle != null && !webTitle.isEmpty()) {
+                contributors.add(new Contributor(id, webTitle));
+            }
+        }
+        reader.endArray();
+        return contributors;
+    }
+
+    /**
+     * Returns the names of the contributors separated by commas, or null if there are none.
+     */
+    private static String names(List<Contributor> contributors) {
+        if (contributors.isEmpty()) {
+            return null;
+        }
+        StringBuilder names = new StringBuilder();
+        for (Contributor contributor : contributors) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(contributor.getName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Same as {@link JsonReader#nextString()} but tolerates null values like optString did.
+     */
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        return reader.nextString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.android.gamesnews.utils;
+
+
+import com.example.android.gamesnews.Games;
+
+import java.util.List;
+
+
+/**
+ * Outcome of a single request to the guardians API.
+ */
+public final class GamesResponse {
+
+    /**
+     * Games parsed from the body, null if the request failed or nothing changed
+     */
+    private final List<Games> mGames;
+
+    /**
+     * True if the server confirmed that the cached copy is still current
+     */
+    private final boolean mNotModified;
+
+    /**
+     * Validators to send with the next conditional request
+     */
+    private final String mEtag;
+    private final String mLastModified;
+
+    /**
+     * Page of the results this response holds, and the number of pages available
+     */
+    private final int mCurrentPage;
+    private final int mPages;
+
+    /**
+     * Constructs a new {@link GamesResponse}.
+     *
+     * @param games        parsed from the body, or null
+     * @param notModified  is true if the server answered 304 Not Modified
+     * @param etag         validator of the response, or null
+     * @param lastModified validator of the response, or null
+     * @param currentPage  is the page of the results held by this response
+     * @param pages        is the number of pages available for the query
+     */
+    public GamesResponse(List<Games> games, boolean notModified, String etag, String lastModified,
+                         int currentPage, int pages) {
+        mGames = games;
+        mNotModified = notModified;
+        mEtag = etag;
+        mLastModified = lastModified;
+        mCurrentPage = currentPage;
+        mPages = pages;
+    }
+
+    /**
+     * Returns the parsed games, or null if there are none.
+     */
+    public List<Games> getGames() {
+        return mGames;
+    }
+
+    /**
+     * Returns true if the server answered 304 Not Modified.
+     */
+    public boolean isNotModified() {
+        return mNotModified;
+    }
+
+    /**
+     * Returns the ETag of the response, or null.
+     */
+    public String getEtag() {
+        return mEtag;
+    }
+
+    /**
+     * Returns the Last-Modified date of the response, or null.
+     */
+    public String getLastModified() {
+        return mLastModified;
+    }
+
+    /**
+     * Returns the page of the results held by this response, starting at 1.
+     */
+    public int getCurrentPage() {
+        return mCurrentPage;
+    }
+
+    /**
+     * Returns the number of pages available for the query.
+     */
+    public int getPages() {
+        return mPages;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.List;
+
+
+/**
+ * Builds the query URLs of the guardians content API.
+ * <p>
+ * The app and the crawler both build their URLs here, so the same request always gets the
+ * same URL and they share cache entries.
+ * <p>
+ * Results are asked with the byline and thumbnail fields, and with the contributor tags:
+ * the byline is what the list shows, the tags credit every person of a co-authored piece
+ * by id. They are the only things {@link com.example.android.gamesnews.Games} uses beyond
+ * the fields every result has.
+ */
+public final class GuardianUrls {
+
+    /**
+     * URL of the search endpoint of the guardians dataset
+     */
+    private static final String SEARCH_URL = "https://content.guardianapis.com/search";
+
+    /**
+     * Optional fields asked for every result, a comma is fine in a query so it isn't encoded
+     */
+    private static final String FIELDS = "byline,thumbnail";
+
+    /**
+     * Tags asked for every result
+     */
+    private static final String TAGS = "contributor";
+
+    /**
+     * Field holding the HTML of an article, only asked for by {@link #bodies}
+     */
+    private static final String BODY_FIELD = "body";
+
+    /**
+     * Create a private constructor because no one should ever create a {@link GuardianUrls} object.
+     */
+    private GuardianUrls() {
+    }
+
+    /**
+     * Returns the query URL of the given page of a section.
+     *
+     * @param apiKey   of the guardians API
+     * @param section  id, like "football"
+     * @param orderBy  is "newest", "oldest" or "relevance"
+     * @param pageSize is the number of articles per page
+     * @param page     to request, 0 for the first page without an explicit page parameter
+     */
+    public static String section(String apiKey, String section, String orderBy, int pageSize,
+                                 int page) {
+        StringBuilder url = start(apiKey);
+        append(url, "section", section);
+        append(url, "order-by", orderBy);
+        url.append("&show-fields=").append(FIELDS);
+        url.append("&show-tags=").append(TAGS);
+        append(url, "page-size", String.valueOf(pageSize));
+        if (page > 0) {
+            append(url, "page", String.valueOf(page));
+        }
+        return url.toString();
+    }
+
+    /**
+     * Returns the query URL of a search for the given words.
+     *
+     * @param apiKey   of the guardians API
+     * @param query    words to search for
+     * @param orderBy  is "newest", "oldest" or "relevance"
+     * @param pageSize is the number of articles per page
+     */
+    public static String search(String apiKey, String query, String orderBy, int pageSize) {
+        StringBuilder url = start(apiKey);
+        append(url, "q", query);
+        append(url, "order-by", orderBy);
+        url.append("&show-fields=").append(FIELDS);
+        url.append("&show-tags=").append(TAGS);
+        append(url, "page-size", String.valueOf(pageSize));
+        return url.toString();
+    }
+
+    /**
+     * Returns the query URL of the bodies of the given articles, all in one response.
+     *
+     * @param apiKey  of the guardians API
+     * @param webUrls of the articles, as listed by the other queries
+     */
+    public static String bodies(String apiKey, List<String> webUrls) {
+        StringBuilder url = start(apiKey);
+        url.append("&ids=");
+        for (int i = 0; i < webUrls.size(); i++) {
+            if (i > 0) {
+                url.append(',');
+            }
+            url.append(encode(idOf(webUrls.get(i))));
+        }
+        url.append("&show-fields=").append(BODY_FIELD);
+        append(url, "page-size", String.valueOf(webUrls.size()));
+        return url.toString();
+    }
+
+    /**
+     * Returns the content id of an article, the path of its web URL, like
+     * "games/2019/may/01/title".
+     */
+    public static String idOf(String webUrl) {
+        int hostStart = webUrl.indexOf("://");
+        int pathStart = webUrl.indexOf('/', hostStart < 0 ? 0 : hostStart + 3);
+        return pathStart < 0 ? webUrl : webUrl.substring(pathStart + 1);
+    }
+
+    /**
+     * Returns the query URL limited to the articles published at or after the given time.
+     * Asked newest first with the page size of the list, it holds only what's new since
+     * that time, or the newest page if more than a page is new.
+     *
+     * @param url    built by {@link #section}
+     * @param millis is the publication time of the newest article already known
+     */
+    public static String fromDate(String url, long millis) {
+        StringBuilder delta = new StringBuilder(url);
+        append(delta, "from-date", ArticleDateFormatter.formatIso8601(millis));
+        return delta.toString();
+    }
+
+    /**
+     * Returns the name of the projection the query asks for, like "fields=byline" or
+     * "tags=contributor", to compare their response sizes.
+     */
+    public static String projectionOf(String query) {
+        StringBuilder projection = new StringBuilder();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("show-")) {
+                    if (projection.length() > 0) {
+                        projection.append(',');
+                    }
+                    projection.append(parameter.substring("show-".length()));
+                }
+            }
+        }
+        return projection.length() > 0 ? projection.toString() : "none";
+    }
+
+    private static StringBuilder start(String apiKey) {
+        StringBuilder url = new StringBuilder(SEARCH_URL).append('?');
+        url.append("api-key=").append(encode(apiKey));
+        return url;
+    }
+
+    private static void append(StringBuilder url, String name, String value) {
+        url.append('&').append(name).append('=').append(encode(value));
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value != null ? value : "", "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // Every JVM supports UTF-8
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+
+
+/**
+ * Small HTTP layer on top of {@link HttpURLConnection}.
+ * <p>
+ * It asks for gzip compressed content, sends conditional requests when validators from a
+ * previous response are known and only calls {@link HttpURLConnection#disconnect()} when a
+ * request is aborted: the body is drained and closed instead, so the underlying socket goes
+ * back to the keep-alive pool and the next request to the same host skips the TCP and TLS
+ * handshakes.
+ * <p>
+ * The time to connect (DNS, TCP and TLS, close to zero for a pooled connection), the
+ * time to the first byte of the response, the time spent waiting for the body and the
+ * bytes received are recorded in {@link Metrics}.
+ */
+public final class HttpClient implements HttpTransport {
+
+    /**
+     * Number of idle connections kept alive per host
+     */
+    private static final String MAX_IDLE_CONNECTIONS = "5";
+
+    private static final int DRAIN_BUFFER_SIZE = 4096;
+
+    /**
+     * Runs the disconnects of aborted requests. The JDK's connection only disconnects once
+     * a read blocked on it returns, so the aborting thread must not wait for it.
+     */
+    private static final Executor ABORT_EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "http-abort");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", MAX_IDLE_CONNECTIONS);
+    }
+
+    private final int mConnectTimeout;
+    private final int mReadTimeout;
+
+    /**
+     * Constructs a new {@link HttpClient}.
+     *
+     * @param connectTimeout in milliseconds
+     * @param readTimeout    in milliseconds
+     */
+    public HttpClient(int connectTimeout, int readTimeout) {
+        mConnectTimeout = connectTimeout;
+        mReadTimeout = readTimeout;
+    }
+
+    @Override
+    public Response get(URL url, String etag, String lastModified) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        urlConnection.setReadTimeout(mReadTimeout /* milliseconds */);
+        urlConnection.setConnectTimeout(mConnectTimeout /* milliseconds */);
+        urlConnection.setRequestMethod("GET");
+        urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+        if (etag != null) {
+            urlConnection.setRequestProperty("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            urlConnection.setRequestProperty("If-Modified-Since", lastModified);
+        }
+        urlConnection.connect();
+        Metrics.timer(Metrics.HTTP_CONNECT).stop(start);
+        return new Response(urlConnection, start);
+    }
+
+    /**
+     * Response of a single request. Closing it returns the connection to the pool.
+     */
+    public static final class Response implements HttpResponse {
+
+        private final HttpURLConnection mConnection;
+        private final int mCode;
+        private final long mStart;
+        private final long mFirstByteMillis;
+        private final CountingInputStream mRawBody;
+        private InputStream mBody;
+        private long mElapsedMillis = -1;
+        private volatile boolean mAborted;
+
+        Response(HttpURLConnection connection, long start) throws IOException {
+            mConnection = connection;
+            mStart = start;
+            long firstByte = System.nanoTime();
+            mCode = connection.getResponseCode();
+            Metrics.timer(Metrics.HTTP_FIRST_BYTE).stop(firstByte);
+            mFirstByteMillis = (System.nanoTime() - start) / 1000000;
+
+            InputStream raw = mCode < HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getInputStream() : connection.getErrorStream();
+            mRawBody = raw != null ? new CountingInputStream(raw) : null;
+        }
+
+        @Override
+        public int getCode() {
+            return mCode;
+        }
+
+        @Override
+        public boolean isSuccessful() {
+            return mCode == HttpURLConnection.HTTP_OK;
+        }
+
+        @Override
+        public boolean isNotModified() {
+            return mCode == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return mConnection.getHeaderField(name);
+        }
+
+        @Override
+        public String getEtag() {
+            return mConnection.getHeaderField("ETag");
+        }
+
+        @Override
+        public String getLastModified() {
+            return mConnection.getHeaderField("Last-Modified");
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (mBody == null) {
+                if (mRawBody == null) {
+                    throw new IOException("Response " + mCode + " has no body");
+                }
+                mBody = "gzip".equalsIgnoreCase(mConnection.getContentEncoding())
+                        ? new GZIPInputStream(mRawBody) : mRawBody;
+            }
+            return mBody;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return mRawBody != null ? mRawBody.getCount() : 0;
+        }
+
+        @Override
+        public long getReadNanos() {
+            return mRawBody != null ? mRawBody.getReadNanos() : 0;
+        }
+
+        @Override
+        public long getFirstByteMillis() {
+            return mFirstByteMillis;
+        }
+
+        @Override
+        public long getElapsedMillis() {
+            return mElapsedMillis >= 0 ? mElapsedMillis : (System.nanoTime() - mStart) / 1000000;
+        }
+
+        /**
+         * Drain and close the body so the connection can be reused.
+         */
+        @Override
+        public void close() throws IOException {
+            if (mElapsedMillis >= 0) {
+                return;
+            }
+            try {
+                if (mRawBody != null && !mAborted) {
+                    byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+                    while (mRawBody.read(buffer) != -1) {
+                        // Discard what the caller didn't read
+                    }
+                    mRawBody.close();
+                }
+            } finally {
+                mElapsedMillis = (System.nanoTime() - mStart) / 1000000;
+                Metrics.timer(Metrics.HTTP_BODY_READ).record(getReadNanos());
+                Metrics.counter(Metrics.HTTP_BYTES).add(getBytesReceived());
+            }
+        }
+
+        /**
+         * Disconnect, which closes the socket instead of returning it to the pool.
+         */
+        @Override
+        public void abort() {
+            mAborted = true;
+            ABORT_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mConnection.disconnect();
+                }
+            });
+        }
+    }
+
+    /**
+     * Counts the bytes read through it and the time spent reading them.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long mCount;
+        private long mReadNanos;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return mCount;
+        }
+
+        long getReadNanos() {
+            return mReadNanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            mReadNanos += System.nanoTime() - start;
+            if (b != -1) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int read = super.read(buffer, offset, length);
+            mReadNanos += System.nanoTime() - start;
+            if (read > 0) {
+                mCount += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            mCount += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Response of a single {@link HttpTransport} request. Closing it releases the connection,
+ * aborting it drops the connection.
+ */
+public interface HttpResponse extends Closeable {
+
+    /**
+     * Returns the HTTP status code.
+     */
+    int getCode();
+
+    /**
+     * Returns true if the server answered with 200.
+     */
+    boolean isSuccessful();
+
+    /**
+     * Returns true if the copy sent in the conditional request is still current.
+     */
+    boolean isNotModified();
+
+    /**
+     * Returns the value of the given response header, or null.
+     */
+    String getHeader(String name);
+
+    /**
+     * Returns the ETag validator of the response, or null.
+     */
+    String getEtag();
+
+    /**
+     * Returns the Last-Modified validator of the response, or null.
+     */
+    String getLastModified();
+
+    /**
+     * Returns the decompressed response body.
+     */
+    InputStream getBody() throws IOException;
+
+    /**
+     * Returns the number of bytes received over the wire so far, before decompression.
+     */
+    long getBytesReceived();
+
+    /**
+     * Returns the time spent waiting for body bytes so far, in nanoseconds.
+     */
+    long getReadNanos();
+
+    /**
+     * Returns the time from sending the request until the status line arrived, the
+     * latency of the request.
+     */
+    long getFirstByteMillis();
+
+    /**
+     * Returns the time from sending the request until the response was closed,
+     * or until now while it is still open.
+     */
+    long getElapsedMillis();
+
+    /**
+     * Drop the connection without reading the rest of the body, so a reader blocked on
+     * it fails. Can be called from any thread and doesn't block.
+     */
+    void abort();
+}
@@ -0,0 +1,51 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.IOException;
+
+
+/**
+ * The server answered, but with an error status.
+ */
+public final class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int mCode;
+    private final long mRetryAfterMillis;
+
+    /**
+     * Constructs a new {@link HttpStatusException}.
+     *
+     * @param code             is the HTTP status code
+     * @param retryAfterMillis is how long the server asked to wait, or -1 if it didn't
+     */
+    public HttpStatusException(int code, long retryAfterMillis) {
+        super("Error response code: " + code);
+        mCode = code;
+        mRetryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns the HTTP status code.
+     */
+    public int getCode() {
+        return mCode;
+    }
+
+    /**
+     * Returns how long the server asked to wait before the next request, from its
+     * Retry-After header, or -1 if it didn't say.
+     */
+    public long getRetryAfterMillis() {
+        return mRetryAfterMillis;
+    }
+
+    /**
+     * Returns true if the same request may succeed later: the server is overloaded,
+     * rate limiting or failing, rather than refusing this request.
+     */
+    public boolean isRetryable() {
+        return mCode == 408 || mCode == 429 || mCode >= 500;
+    }
+}
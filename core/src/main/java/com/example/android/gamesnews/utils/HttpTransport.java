@@ -0,0 +1,22 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.IOException;
+import java.net.URL;
+
+
+/**
+ * Performs the HTTP requests of the data layer. {@link HttpClient} is the implementation
+ * used by the app and the crawler; tests can plug in their own.
+ */
+public interface HttpTransport {
+
+    /**
+     * Perform a GET request. The returned {@link HttpResponse} must be closed.
+     *
+     * @param url          to request
+     * @param etag         of the copy we already have, or null
+     * @param lastModified of the copy we already have, or null
+     */
+    HttpResponse get(URL url, String etag, String lastModified) throws IOException;
+}
@@ -0,0 +1,15 @@
+package com.example.android.gamesnews.utils;
+
+
+/**
+ * Destination of the log messages of the data layer, so it doesn't depend on
+ * {@code android.util.Log}. Install one with {@link Logging#setLogger(Logger)}.
+ */
+public interface Logger {
+
+    void d(String tag, String message);
+
+    void w(String tag, String message);
+
+    void e(String tag, String message, Throwable error);
+}
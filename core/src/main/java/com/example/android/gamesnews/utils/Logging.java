@@ -0,0 +1,56 @@
+package com.example.android.gamesnews.utils;
+
+
+/**
+ * Static entry point for logging from the data layer, forwarding to the installed
+ * {@link Logger}. Until one is installed warnings and errors go to standard error and
+ * debug messages are dropped.
+ */
+public final class Logging {
+
+    private static final Logger STANDARD_ERROR = new Logger() {
+        @Override
+        public void d(String tag, String message) {
+        }
+
+        @Override
+        public void w(String tag, String message) {
+            System.err.println("W/" + tag + ": " + message);
+        }
+
+        @Override
+        public void e(String tag, String message, Throwable error) {
+            System.err.println("E/" + tag + ": " + message);
+            if (error != null) {
+                error.printStackTrace();
+            }
+        }
+    };
+
+    private static volatile Logger sLogger = STANDARD_ERROR;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link Logging} object.
+     */
+    private Logging() {
+    }
+
+    /**
+     * Send every following message to the given logger, or back to standard error if null.
+     */
+    public static void setLogger(Logger logger) {
+        sLogger = logger != null ? logger : STANDARD_ERROR;
+    }
+
+    public static void d(String tag, String message) {
+        sLogger.d(tag, message);
+    }
+
+    public static void w(String tag, String message) {
+        sLogger.w(tag, message);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        sLogger.e(tag, message, error);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+/**
+ * Process wide registry of the memory held for speed only, like decoded images or pages
+ * that are also on disk.
+ * <p>
+ * Every holder registers as a {@link Tier}. When the system runs short of memory,
+ * {@link #trim(Pressure)} asks each tier to demote what it holds to a cheaper form, on disk
+ * or not at all, the harder the higher the pressure. A tier restores what it dropped only
+ * when it's needed again, and reports what that cost to {@link #rehydrated(String, long)}.
+ * Evictions and restores are counted in {@link Metrics} by tier name.
+ */
+public final class MemoryTiers {
+
+    /**
+     * How short of memory the process is, from mild to severe. Each level includes the
+     * ones below it.
+     */
+    public enum Pressure {
+        /**
+         * The process runs in the foreground but the system is getting low on memory
+         */
+        RUNNING_LOW,
+
+        /**
+         * The user left the app, memory only needed to draw it can go
+         */
+        UI_HIDDEN,
+
+        /**
+         * The process is in the background and will be killed to free memory at some point
+         */
+        BACKGROUND,
+
+        /**
+         * The process is among the next to be killed, or the system is out of memory
+         */
+        CRITICAL
+    }
+
+    /**
+     * Something that holds memory it can get back later.
+     */
+    public interface Tier {
+
+        /**
+         * Returns the name the evictions and restores of the tier are counted under.
+         */
+        String getName();
+
+        /**
+         * Release what isn't needed at the given pressure. Called on the main thread.
+         *
+         * @return the number of items dropped
+         */
+        int trim(Pressure pressure);
+    }
+
+    private static final List<Tier> sTiers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create a private constructor because no one should ever create a {@link MemoryTiers}
+     * object.
+     */
+    private MemoryTiers() {
+    }
+
+    /**
+     * Ask the tier to release memory from now on. A tier that goes away, like the one of an
+     * activity, must be unregistered.
+     */
+    public static void register(Tier tier) {
+        sTiers.add(tier);
+    }
+
+    public static void unregister(Tier tier) {
+        sTiers.remove(tier);
+    }
+
+    /**
+     * Ask every tier to release memory for the given pressure.
+     *
+     * @return the number of items dropped
+     */
+    public static int trim(Pressure pressure) {
+        long start = System.nanoTime();
+        int dropped = 0;
+        for (Tier tier : sTiers) {
+            int evicted = tier.trim(pressure);
+            if (evicted > 0) {
+                Metrics.counter(Metrics.MEMORY_EVICTED + tier.getName()).add(evicted);
+                dropped += evicted;
+            }
+        }
+        Metrics.counter(Metrics.MEMORY_TRIM + pressure.name().toLowerCase(Locale.US))
+                .increment();
+        Metrics.timer(Metrics.MEMORY_TRIM_TIME).stop(start);
+        Logging.d(MemoryTiers.class.getSimpleName(), "Trimmed " + dropped + " items for "
+                + pressure);
+        return dropped;
+    }
+
+    /**
+     * Record that the tier restored something it dropped, taking from the given start until
+     * now.
+     *
+     * @param startNanos {@link System#nanoTime()} when the restore started
+     */
+    public static void rehydrated(String name, long startNanos) {
+        Metrics.timer(Metrics.MEMORY_REHYDRATE + name).stop(startNanos);
+    }
+}
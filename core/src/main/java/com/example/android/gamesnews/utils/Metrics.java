@@ -0,0 +1,349 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Process wide registry of counters and timers for the fetch pipeline.
+ * <p>
+ * Recording never takes a lock: metrics are looked up in a {@link ConcurrentHashMap} and
+ * updated with atomic operations, so the loader threads and the main thread can record
+ * without waiting on each other. The registry can be written as plain text, for
+ * {@code adb shell dumpsys activity} or to a file for offline analysis.
+ */
+public final class Metrics {
+
+    /**
+     * Network stages
+     */
+    public static final String HTTP_CONNECT = "http.connect";
+    public static final String HTTP_FIRST_BYTE = "http.first_byte";
+    public static final String HTTP_BODY_READ = "http.body_read";
+    public static final String HTTP_BYTES = "http.bytes";
+    public static final String PARSE = "parse";
+    public static final String ARTICLES_PARSED = "articles.parsed";
+
+    /**
+     * Response sizes by projection: this prefix, the projection of the query and one of the
+     * suffixes. The bytes per article of every projection are listed by {@link #dump}.
+     */
+    public static final String PROJECTION = "projection.";
+    public static final String PROJECTION_BYTES = ".bytes";
+    public static final String PROJECTION_ARTICLES = ".articles";
+
+    /**
+     * Cache and request outcomes
+     */
+    public static final String CACHE_HIT = "cache.hit";
+    public static final String CACHE_MISS = "cache.miss";
+    public static final String CACHE_REVALIDATED = "cache.revalidated";
+    public static final String DELTA = "request.delta";
+    public static final String DELTA_ARTICLES = "request.delta_articles";
+    public static final String COALESCED = "request.coalesced";
+    public static final String CANCELLED = "request.cancelled";
+    public static final String RETRY = "request.retry";
+    public static final String HEDGED = "request.hedged";
+    public static final String HEDGE_WON = "request.hedge_won";
+    public static final String CIRCUIT_OPEN = "request.circuit_open";
+
+    /**
+     * API quota, counted as these prefixes followed by the priority of the request
+     */
+    public static final String BUDGET_GRANTED = "budget.granted.";
+    public static final String BUDGET_SHED = "budget.shed.";
+
+    /**
+     * Errors, an HTTP error is counted as this prefix followed by the status code
+     */
+    public static final String ERROR_HTTP = "error.http.";
+    public static final String ERROR_IO = "error.io";
+    public static final String ERROR_PARSE = "error.parse";
+
+    /**
+     * Loader and UI stages
+     */
+    public static final String LOAD = "load";
+    public static final String DELIVER = "ui.deliver";
+    public static final String BIND = "ui.bind";
+    public static final String CLUSTER = "ui.cluster";
+
+    /**
+     * Cold start, from the process start to the first frame and to the first articles shown
+     */
+    public static final String STARTUP_FIRST_FRAME = "startup.first_frame";
+    public static final String STARTUP_CONTENT = "startup.content";
+
+    /**
+     * Thumbnail pipeline
+     */
+    public static final String IMAGE_MEMORY_HIT = "image.memory_hit";
+    public static final String IMAGE_DISK_HIT = "image.disk_hit";
+    public static final String IMAGE_DOWNLOAD = "image.download";
+    public static final String IMAGE_DECODE = "image.decode";
+    public static final String IMAGE_COALESCED = "image.coalesced";
+    public static final String IMAGE_CANCELLED = "image.cancelled";
+
+    /**
+     * Offline reader
+     */
+    public static final String BODY_HIT = "reader.body_hit";
+    public static final String BODY_MISS = "reader.body_miss";
+    public static final String BODY_PREFETCHED = "reader.body_prefetched";
+    public static final String READER_OPEN = "reader.open";
+
+    /**
+     * Memory pressure: trims counted as this prefix followed by the pressure, evictions
+     * and the time of restores as these prefixes followed by the tier
+     */
+    public static final String MEMORY_TRIM = "memory.trim.";
+    public static final String MEMORY_TRIM_TIME = "memory.trim";
+    public static final String MEMORY_EVICTED = "memory.evicted.";
+    public static final String MEMORY_REHYDRATE = "memory.rehydrate.";
+
+    private static final ConcurrentMap<String, Counter> sCounters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Timer> sTimers = new ConcurrentHashMap<>();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Create a private constructor because no one should ever create a {@link Metrics} object.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     */
+    public static Counter counter(String name) {
+        Counter counter = sCounters.get(name);
+        if (counter == null) {
+            Counter created = new Counter();
+            counter = sCounters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the timer with the given name, creating it on first use.
+     */
+    public static Timer timer(String name) {
+        Timer timer = sTimers.get(name);
+        if (timer == null) {
+            Timer created = new Timer();
+            timer = sTimers.putIfAbsent(name, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * Drop every metric.
+     */
+    public static void reset() {
+        sCounters.clear();
+        sTimers.clear();
+    }
+
+    /**
+     * Write every metric as text, one per line and sorted by name.
+     */
+    public static void dump(PrintWriter writer) {
+        writer.println("Timers (ms):");
+        for (String name : sortedKeys(sTimers.keySet())) {
+            Timer timer = sTimers.get(name);
+            writer.println(String.format(Locale.US,
+                    "  %-20s count=%d total=%.1f mean=%.2f p50<=%.1f p95<=%.1f max=%.1f",
+                    name, timer.getCount(), millis(timer.getTotalNanos()),
+                    millis(timer.getMeanNanos()), millis(timer.getPercentileNanos(0.5)),
+                    millis(timer.getPercentileNanos(0.95)), millis(timer.getMaxNanos())));
+        }
+        writer.println("Counters:");
+        for (String name : sortedKeys(sCounters.keySet())) {
+            writer.println(String.format(Locale.US, "  %-20s %d", name, sCounters.get(name).get()));
+        }
+        writer.println("Bytes per article:");
+        for (String name : sortedKeys(sCounters.keySet())) {
+            if (name.startsWith(PROJECTION) && name.endsWith(PROJECTION_BYTES)) {
+                String projection = name.substring(0, name.length() - PROJECTION_BYTES.length());
+                Counter articles = sCounters.get(projection + PROJECTION_ARTICLES);
+                long count = articles != null ? articles.get() : 0;
+                writer.println(String.format(Locale.US, "  %-20s %d",
+                        projection.substring(PROJECTION.length()),
+                        count > 0 ? sCounters.get(name).get() / count : 0));
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write every metric to the given file, replacing its content.
+     */
+    public static void exportTo(File file) throws IOException {
+        PrintWriter writer = new PrintWriter(
+                new OutputStreamWriter(new FileOutputStream(file), UTF_8));
+        try {
+            writer.println("# Metrics at " + System.currentTimeMillis());
+            dump(writer);
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Problem writing " + file);
+        }
+    }
+
+    private static List<String> sortedKeys(Iterable<String> keys) {
+        List<String> sorted = new ArrayList<>();
+        for (String key : keys) {
+            sorted.add(key);
+        }
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    /**
+     * A value that only goes up.
+     */
+    public static final class Counter {
+
+        private final AtomicLong mValue = new AtomicLong();
+
+        Counter() {
+        }
+
+        public void increment() {
+            mValue.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            mValue.addAndGet(delta);
+        }
+
+        public long get() {
+            return mValue.get();
+        }
+    }
+
+    /**
+     * Distribution of durations. Besides count, total and maximum it keeps a histogram
+     * with one bucket per power of two microseconds, which is enough to tell a 2 ms parse
+     * from a 200 ms one.
+     */
+    public static final class Timer {
+
+        private static final int BUCKETS = 40;
+
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mTotalNanos = new AtomicLong();
+        private final AtomicLong mMaxNanos = new AtomicLong();
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+
+        Timer() {
+        }
+
+        /**
+         * Returns the current time to pass to {@link #stop(long)}.
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * Record the time elapsed since the given {@link #start()}.
+         */
+        public void stop(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Record a duration.
+         */
+        public void record(long nanos) {
+            if (nanos < 0) {
+                return;
+            }
+            mCount.incrementAndGet();
+            mTotalNanos.addAndGet(nanos);
+            mBuckets.incrementAndGet(bucketOf(nanos));
+
+            long max = mMaxNanos.get();
+            while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+                max = mMaxNanos.get();
+            }
+        }
+
+        public long getCount() {
+            return mCount.get();
+        }
+
+        public long getTotalNanos() {
+            return mTotalNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return mMaxNanos.get();
+        }
+
+        public long getMeanNanos() {
+            long count = mCount.get();
+            return count > 0 ? mTotalNanos.get() / count : 0;
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given percentile, between 0 and 1.
+         */
+        public long getPercentileNanos(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += mBuckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += mBuckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBoundNanos(i), mMaxNanos.get());
+                }
+            }
+            return mMaxNanos.get();
+        }
+
+        /**
+         * Bucket 0 holds everything below a microsecond, bucket i durations below 2^i us.
+         */
+        private static int bucketOf(long nanos) {
+            long micros = nanos / 1000;
+            return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        }
+
+        private static long upperBoundNanos(int bucket) {
+            return (1L << bucket) * 1000;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.util.Locale;
+
+
+/**
+ * Estimates the latency and throughput of the network from recent responses and picks how
+ * many articles to request per page, so a page takes about the same time on any network:
+ * a few articles on a slow 2G link, many on Wi-Fi.
+ * <p>
+ * Every estimate is an exponentially weighted moving average, so it follows a change of
+ * network within a few requests while one unusual response doesn't throw it off.
+ */
+public final class NetworkQuality {
+
+    /**
+     * Bounds of the page size picked from the measurements
+     */
+    public static final int MIN_PAGE_SIZE = 5;
+    public static final int MAX_PAGE_SIZE = 50;
+
+    /**
+     * Page sizes that can be picked. Rounding down to one of them keeps the number of
+     * distinct request URLs, and so of cache entries, small.
+     */
+    private static final int[] PAGE_SIZES = {5, 10, 20, 30, 40, 50};
+
+    /**
+     * Weight of the newest sample in the averages
+     */
+    private static final double ALPHA = 0.3;
+
+    /**
+     * How long a page should take, from sending the request to the last byte
+     */
+    private static final long TARGET_PAGE_MILLIS = 1500;
+
+    /**
+     * Smaller bodies are mostly TCP slow start and say little about the throughput
+     */
+    private static final long MIN_THROUGHPUT_BYTES = 4096;
+
+    private static final NetworkQuality sInstance = new NetworkQuality();
+
+    private double mLatencyMillis;
+    private double mBytesPerSecond;
+    private double mBytesPerArticle;
+    private int mLatencySamples;
+    private int mThroughputSamples;
+
+    /**
+     * Returns the process wide estimates, fed by every request of the app.
+     */
+    public static NetworkQuality get() {
+        return sInstance;
+    }
+
+    /**
+     * Record a finished response.
+     *
+     * @param bytes            received over the wire for the body
+     * @param firstByteMillis  is the time until the status line arrived
+     * @param transferNanos    is the time spent waiting for the body
+     * @param articles         is the number of articles in the body
+     */
+    public synchronized void record(long bytes, long firstByteMillis, long transferNanos,
+                                    int articles) {
+        mLatencyMillis = average(mLatencyMillis, firstByteMillis, mLatencySamples++);
+        if (bytes >= MIN_THROUGHPUT_BYTES && transferNanos > 0) {
+            double bytesPerSecond = bytes * 1e9 / transferNanos;
+            mBytesPerSecond = average(mBytesPerSecond, bytesPerSecond, mThroughputSamples);
+            if (articles > 0) {
+                mBytesPerArticle = average(mBytesPerArticle, (double) bytes / articles,
+                        mThroughputSamples);
+            }
+            mThroughputSamples++;
+        }
+    }
+
+    /**
+     * Returns the number of articles that arrive in about {@link #TARGET_PAGE_MILLIS}, or
+     * the fallback until the throughput has been measured.
+     *
+     * @param fallback used without measurements
+     * @param max      is the largest page size to return
+     */
+    public synchronized int pageSize(int fallback, int max) {
+        if (mThroughputSamples == 0 || mBytesPerArticle <= 0) {
+            return fallback;
+        }
+        double transferMillis = Math.max(0, TARGET_PAGE_MILLIS - mLatencyMillis);
+        long articles = (long) (transferMillis / 1000 * mBytesPerSecond / mBytesPerArticle);
+        int pageSize = PAGE_SIZES[0];
+        for (int size : PAGE_SIZES) {
+            if (size <= articles) {
+                pageSize = size;
+            }
+        }
+        return Math.max(MIN_PAGE_SIZE, Math.min(pageSize, max));
+    }
+
+    /**
+     * Drop every measurement.
+     */
+    public synchronized void reset() {
+        mLatencyMillis = 0;
+        mBytesPerSecond = 0;
+        mBytesPerArticle = 0;
+        mLatencySamples = 0;
+        mThroughputSamples = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "latency=%.0fms throughput=%.1fKB/s bytes/article=%.0f (%d samples)",
+                mLatencyMillis, mBytesPerSecond / 1024, mBytesPerArticle, mThroughputSamples);
+    }
+
+    /**
+     * The first sample is taken as is, later ones are blended in.
+     */
+    private static double average(double average, double sample, int samples) {
+        return samples == 0 ? sample : average + ALPHA * (sample - average);
+    }
+}
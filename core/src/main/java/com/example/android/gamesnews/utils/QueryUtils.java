@@ -0,0 +1,608 @@
+package com.example.android.gamesnews.utils;
+
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.RequestBudget.Prioritized;
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Helper methods related to requesting and receiving game data from guardians website.
+ * <p>
+ * Failed requests are retried as the {@link RetryPolicy} says, and a request that gets no
+ * answer for unusually long is hedged with a second one. Every host has a
+ * {@link CircuitBreaker}: while a host keeps failing or rate limiting, requests to it fail
+ * right away and the callers serve their cached copies instead.
+ */
+public final class QueryUtils {
+
+    private static final int readTimeout = 10000;
+    private static final int connectTimeout = 15000;
+
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = QueryUtils.class.getSimpleName();
+
+    /**
+     * Shared client, so requests reuse pooled keep-alive connections
+     */
+    private static final HttpClient sHttpClient = new HttpClient(connectTimeout, readTimeout);
+
+    /**
+     * Failures in a row that open the circuit breaker of a host, and for how long
+     */
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    private static final long CIRCUIT_OPEN_MILLIS = 30000;
+
+    /**
+     * How often a hedged request checks whether it was cancelled
+     */
+    private static final long CANCELLATION_POLL_MILLIS = 50;
+
+    private static final ConcurrentMap<String, CircuitBreaker> sCircuitBreakers =
+            new ConcurrentHashMap<>();
+
+    private static volatile RetryPolicy sRetryPolicy = RetryPolicy.DEFAULT;
+
+    /**
+     * API quota every request is taken from, null if requests aren't limited
+     */
+    private static volatile RequestBudget sRequestBudget;
+
+    /**
+     * Runs hedged requests, and closes the responses that lost the race
+     */
+    private static final ExecutorService HEDGE_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "http-hedge");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * Returns the shared client used when no other {@link HttpTransport} is given.
+     */
+    public static HttpTransport defaultTransport() {
+        return sHttpClient;
+    }
+
+    /**
+     * Use the given policy for every following request, or the default one if null.
+     */
+    public static void setRetryPolicy(RetryPolicy policy) {
+        sRetryPolicy = policy != null ? policy : RetryPolicy.DEFAULT;
+    }
+
+    /**
+     * Take every following request from the given API quota, or don't limit them if null.
+     */
+    public static void setRequestBudget(RequestBudget budget) {
+        sRequestBudget = budget;
+    }
+
+    /**
+     * Returns the API quota requests are taken from, or null if they aren't limited.
+     */
+    public static RequestBudget getRequestBudget() {
+        return sRequestBudget;
+    }
+
+    /**
+     * Returns the circuit breaker guarding the requests to the given host.
+     */
+    public static CircuitBreaker circuitBreaker(String host) {
+        CircuitBreaker breaker = sCircuitBreakers.get(host);
+        if (breaker == null) {
+            CircuitBreaker created =
+                    new CircuitBreaker(CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_MILLIS);
+            breaker = sCircuitBreakers.putIfAbsent(host, created);
+            if (breaker == null) {
+                breaker = created;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Create a private constructor because no one should ever create a {@link QueryUtils} object.
+     * This class is only meant to hold static variables and methods, which can be accessed
+     * directly from the class name QueryUtils (and an object instance of QueryUtils is not needed).
+     */
+    private QueryUtils() {
+    }
+
+    /**
+     * Query the the guardians dataset and return a list of {@link Games} objects.
+     */
+    public static List<Games> fetchGamesData(String requestUrl) {
+        return fetchGamesData(requestUrl, null, null).getGames();
+    }
+
+    /**
+     * Query the the guardians dataset with a conditional request. If the server reports
+     * that the copy described by the validators is still current, the returned response
+     * has no games and {@link GamesResponse#isNotModified()} returns true.
+     *
+     * @param requestUrl   to load data from
+     * @param etag         of the cached copy, or null
+     * @param lastModified of the cached copy, or null
+     */
+    public static GamesResponse fetchGamesData(String requestUrl, String etag, String lastModified) {
+        return fetchGamesData(sHttpClient, requestUrl, etag, lastModified);
+    }
+
+    /**
+     * Same as {@link #fetchGamesData(String, String, String)} with the given transport.
+     */
+    public static GamesResponse fetchGamesData(HttpTransport transport, String requestUrl,
+                                               String etag, String lastModified) {
+        return fetchGamesData(transport, requestUrl, etag, lastModified, null);
+    }
+
+    /**
+     * Same as {@link #fetchGamesData(HttpTransport, String, String, String)}, abandoned as
+     * soon as the given cancellation is cancelled: the connection is dropped and the parse
+     * stops at its next read. A cancelled request returns a response without games.
+     *
+     * @param cancellation of the request, or null if it can't be cancelled
+     */
+    public static GamesResponse fetchGamesData(HttpTransport transport, String requestUrl,
+                                               String etag, String lastModified,
+                                               Cancellation cancellation) {
+        return fetchGamesData(transport, requestUrl, etag, lastModified, cancellation,
+                Priority.USER);
+    }
+
+    /**
+     * Same as {@link #fetchGamesData(HttpTransport, String, String, String, Cancellation)},
+     * taking the request from the API quota with the given priority. A request the quota
+     * sheds returns a response without games, like an unreachable server.
+     *
+     * @param priority of the request in the {@link RequestBudget}, read again while the
+     *                 request waits for its budget
+     */
+    public static GamesResponse fetchGamesData(HttpTransport transport, String requestUrl,
+                                               String etag, String lastModified,
+                                               Cancellation cancellation, Prioritized priority) {
+        return fetchGamesData(transport, requestUrl, etag, lastModified, cancellation, null,
+                priority);
+    }
+
+    /**
+     * Same as {@link #fetchGamesData(HttpTransport, String, String, String, Cancellation,
+     * Prioritized)}, also handing the body of every article to the given callback, for requests
+     * that ask for the body field.
+     *
+     * @param bodies   receives the article bodies, or null to skip them
+     * @param priority of the request in the {@link RequestBudget}
+     */
+    public static GamesResponse fetchBodies(HttpTransport transport, String requestUrl,
+                                            Cancellation cancellation,
+                                            GamesJsonParser.BodyCallback bodies,
+                                            Prioritized priority) {
+        return fetchGamesData(transport, requestUrl, null, null, cancellation, bodies, priority);
+    }
+
+    private static GamesResponse fetchGamesData(HttpTransport transport, String requestUrl,
+                                                String etag, String lastModified,
+                                                Cancellation cancellation,
+                                                GamesJsonParser.BodyCallback bodies,
+                                                Prioritized priority) {
+        // Create URL object
+        URL url = createUrl(requestUrl);
+
+        // Perform HTTP request to the URL and parse the JSON response while it is being received
+        GamesResponse response = null;
+        if (url != null) {
+            response = fetchWithRetries(transport, url, etag, lastModified, cancellation,
+                    bodies, priority);
+        }
+
+        // Return the {@link GamesResponse}
+        return response != null ? response : new GamesResponse(null, false, null, null, 1, 1);
+    }
+
+    /**
+     * Returns new URL object from the given string URL.
+     */
+    private static URL createUrl(String stringUrl) {
+        URL url = null;
+        try {
+            url = new URL(stringUrl);
+        } catch (MalformedURLException e) {
+            Logging.e(LOG_TAG, "Problem building the URL ", e);
+        }
+        return url;
+    }
+
+    /**
+     * Make the request, retrying it while it fails with an error that may go away, and
+     * return null if it doesn't succeed.
+     */
+    private static GamesResponse fetchWithRetries(HttpTransport transport, URL url, String etag,
+                                                  String lastModified, Cancellation cancellation,
+                                                  GamesJsonParser.BodyCallback bodies,
+                                                  Prioritized priority) {
+        RetryPolicy policy = sRetryPolicy;
+        RequestBudget budget = sRequestBudget;
+        CircuitBreaker breaker = circuitBreaker(url.getHost());
+        for (int attempt = 1; ; attempt++) {
+            if (!breaker.allowRequest()) {
+                Metrics.counter(Metrics.CIRCUIT_OPEN).increment();
+                Logging.d(LOG_TAG, "Circuit open, not requesting " + url.getPath());
+                return null;
+            }
+            if (budget != null && !budget.acquire(priority, cancellation)) {
+                // Nothing was sent, the host's health is unknown
+                breaker.onAbandoned();
+                Logging.d(LOG_TAG, "Over the API quota, not requesting " + url.getPath());
+                return null;
+            }
+
+            long retryAfterMillis = -1;
+            try {
+                GamesResponse response = makeHttpRequest(transport, url, etag, lastModified,
+                        policy.hedgeDelayMillis(), cancellation, bodies, budget, priority);
+                breaker.onSuccess();
+                return response;
+            } catch (HttpStatusException e) {
+                Metrics.counter(Metrics.ERROR_HTTP + e.getCode()).increment();
+                Logging.e(LOG_TAG, e.getMessage(), null);
+                if (!e.isRetryable()) {
+                    // The server is fine, it just refuses this request
+                    breaker.onSuccess();
+                    return null;
+                }
+                breaker.onFailure(e.getRetryAfterMillis());
+                retryAfterMillis = e.getRetryAfterMillis();
+            } catch (IOException e) {
+                countFailure(e, cancellation, "Problem making the HTTP request.");
+                if (isCancelled(cancellation)) {
+                    breaker.onAbandoned();
+                    return null;
+                }
+                breaker.onFailure(-1);
+            }
+
+            if (attempt >= policy.getMaxAttempts()) {
+                return null;
+            }
+            long delay = policy.delayMillis(attempt, retryAfterMillis);
+            if (delay < 0 || !sleep(delay, cancellation)) {
+                return null;
+            }
+            Metrics.counter(Metrics.RETRY).increment();
+        }
+    }
+
+    /**
+     * Make an HTTP request to the given URL and return the list of {@link Games}
+     * streamed out of the response body.
+     *
+     * @param hedgeDelayMillis is how long to wait for an answer before sending a second
+     *                         request, or {@link RetryPolicy#NO_HEDGE}
+     * @param bodies           receives the article bodies, or null
+     * @param budget           the hedge is taken from, or null if it isn't limited
+     * @throws HttpStatusException if the server answered with an error
+     */
+    private static GamesResponse makeHttpRequest(HttpTransport transport, URL url, String etag,
+                                                 String lastModified, long hedgeDelayMillis,
+                                                 Cancellation cancellation,
+                                                 GamesJsonParser.BodyCallback bodies,
+                                                 RequestBudget budget, Prioritized priority)
+            throws IOException {
+        HttpResponse response = null;
+        GamesResponse parsed = null;
+        Runnable abort = null;
+        try {
+            if (cancellation != null) {
+                cancellation.throwIfCancelled();
+            }
+            response = hedgedGet(transport, url, etag, lastModified, hedgeDelayMillis,
+                    cancellation, budget, priority);
+            if (cancellation != null) {
+                // Dropping the connection wakes up a read blocked on the network
+                final HttpResponse running = response;
+                abort = new Runnable() {
+                    @Override
+                    public void run() {
+                        running.abort();
+                    }
+                };
+                cancellation.addListener(abort);
+            }
+
+            // If the request was successful (response code 200),
+            // then parse the input stream as it arrives.
+            if (response.isSuccessful()) {
+                parsed = extractFeatureFromStream(response, cancellation,
+                        response.getEtag(), response.getLastModified(), bodies);
+                return parsed;
+            } else if (response.isNotModified()) {
+                return new GamesResponse(null, true, etag, lastModified, 1, 1);
+            } else {
+                throw new HttpStatusException(response.getCode(), RetryPolicy.parseRetryAfter(
+                        response.getHeader("Retry-After"), System.currentTimeMillis()));
+            }
+        } finally {
+            if (abort != null) {
+                cancellation.removeListener(abort);
+            }
+            if (response != null) {
+                // Closing the response could throw an IOException, which is why
+                // the makeHttpRequest(URL url) method signature specifies than an IOException
+                // could be thrown.
+                response.close();
+                Logging.d(LOG_TAG, "GET " + url.getPath() + " -> " + response.getCode() + ", "
+                        + response.getBytesReceived() + " bytes in " + response.getElapsedMillis() + " ms");
+                if (parsed != null) {
+                    recordTransfer(url, response, parsed.getGames().size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Send the request, and a second one if the first has no answer after the hedge delay.
+     * The first answer wins and the other request is dropped. Only a failure of both
+     * requests, or of the first one before the hedge was sent, is thrown. No hedge is sent
+     * if the API quota has no room for it right away.
+     */
+    private static HttpResponse hedgedGet(final HttpTransport transport, final URL url,
+                                          final String etag, final String lastModified,
+                                          long hedgeDelayMillis, Cancellation cancellation,
+                                          RequestBudget budget, Prioritized priority)
+            throws IOException {
+        if (hedgeDelayMillis == RetryPolicy.NO_HEDGE) {
+            return transport.get(url, etag, lastModified);
+        }
+
+        Callable<HttpResponse> request = new Callable<HttpResponse>() {
+            @Override
+            public HttpResponse call() throws IOException {
+                return transport.get(url, etag, lastModified);
+            }
+        };
+        CompletionService<HttpResponse> completion =
+                new ExecutorCompletionService<>(HEDGE_EXECUTOR);
+        List<Future<HttpResponse>> requests = new ArrayList<>(2);
+        Future<HttpResponse> winner = null;
+        requests.add(completion.submit(request));
+        int pending = 1;
+        boolean mayHedge = true;
+        IOException failure = null;
+        try {
+            while (pending > 0) {
+                boolean hedged = requests.size() > 1;
+                long wait = hedged || !mayHedge ? CANCELLATION_POLL_MILLIS : hedgeDelayMillis;
+                Future<HttpResponse> done = completion.poll(wait, TimeUnit.MILLISECONDS);
+                if (cancellation != null) {
+                    cancellation.throwIfCancelled();
+                }
+                if (done == null) {
+                    if (!hedged && mayHedge) {
+                        mayHedge = budget == null || budget.tryAcquireNow(priority);
+                        if (mayHedge) {
+                            Metrics.counter(Metrics.HEDGED).increment();
+                            requests.add(completion.submit(request));
+                            pending++;
+                        }
+                    }
+                    continue;
+                }
+                pending--;
+                try {
+                    HttpResponse response = done.get();
+                    winner = done;
+                    if (hedged && done == requests.get(1)) {
+                        Metrics.counter(Metrics.HEDGE_WON).increment();
+                    }
+                    return response;
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause() : new IOException(e.getCause());
+                    if (!hedged) {
+                        break;
+                    }
+                }
+            }
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted");
+        } finally {
+            for (Future<HttpResponse> lost : requests) {
+                if (lost != winner) {
+                    discard(lost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the response of a request that lost the race, once it arrives.
+     */
+    private static void discard(final Future<HttpResponse> request) {
+        HEDGE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    HttpResponse response = request.get();
+                    response.abort();
+                    response.close();
+                } catch (InterruptedException | ExecutionException | IOException e) {
+                    // Nothing to drop
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait before a retry. Returns false if the caller was cancelled or interrupted meanwhile.
+     */
+    private static boolean sleep(long millis, Cancellation cancellation) {
+        final CountDownLatch wakeUp = new CountDownLatch(1);
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                wakeUp.countDown();
+            }
+        };
+        if (cancellation != null) {
+            cancellation.addListener(listener);
+        }
+        try {
+            wakeUp.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (cancellation != null) {
+                cancellation.removeListener(listener);
+            }
+        }
+        return !isCancelled(cancellation);
+    }
+
+    private static boolean isCancelled(Cancellation cancellation) {
+        return cancellation != null && cancellation.isCancelled();
+    }
+
+    /**
+     * Return a {@link GamesResponse} holding the list of {@link Games} objects
+     * that has been built up from parsing the given JSON stream.
+     */
+    private static GamesResponse extractFeatureFromStream(HttpResponse response,
+                                                          Cancellation cancellation,
+                                                          String etag, String lastModified,
+                                                          GamesJsonParser.BodyCallback bodies)
+            throws IOException {
+        // The body is parsed while it arrives, so the parse time is the time spent in
+        // the parser minus the time spent waiting for the network
+        InputStream inputStream = response.getBody();
+        if (cancellation != null) {
+            inputStream = new CancellableInputStream(inputStream, cancellation);
+        }
+        long start = System.nanoTime();
+        long readNanosBefore = response.getReadNanos();
+
+        // Create an empty ArrayList that we can start adding games to
+        final List<Games> games = new ArrayList<>();
+        final int[] paging = {1, 1};
+
+        // Games are added one by one while the stream is read. A body that is cut short or
+        // isn't the JSON we expect, like the login page of a captive portal, fails the whole
+        // request: a partial page must not be cached with the validators of the full one.
+        try {
+            GamesJsonParser.parse(inputStream, new GamesJsonParser.Callback() {
+                @Override
+                public void onGame(Games game) {
+                    games.add(game);
+                }
+
+                @Override
+                public void onPage(int currentPage, int pages) {
+                    paging[0] = currentPage;
+                    paging[1] = pages;
+                }
+            }, bodies);
+        } catch (IOException e) {
+            boolean malformed = e instanceof MalformedJsonException
+                    || e.getCause() instanceof RuntimeException;
+            if (malformed && !isCancelled(cancellation)) {
+                Metrics.counter(Metrics.ERROR_PARSE).increment();
+            }
+            throw e;
+        }
+        // The body may have arrived in full before the cancellation, it's dropped all the same
+        if (cancellation != null) {
+            cancellation.throwIfCancelled();
+        }
+        long readNanos = response.getReadNanos() - readNanosBefore;
+        Metrics.timer(Metrics.PARSE).record(System.nanoTime() - start - readNanos);
+        Metrics.counter(Metrics.ARTICLES_PARSED).add(games.size());
+
+        // Return the list of games
+        return new GamesResponse(games, false, etag, lastModified, paging[0], paging[1]);
+    }
+
+    /**
+     * Feed the network estimates that size the next pages, and count the bytes per article
+     * of the projection the request asked for.
+     */
+    private static void recordTransfer(URL url, HttpResponse response, int articles) {
+        long bytes = response.getBytesReceived();
+        NetworkQuality.get().record(bytes, response.getFirstByteMillis(),
+                response.getReadNanos(), articles);
+
+        String projection = Metrics.PROJECTION + GuardianUrls.projectionOf(url.getQuery());
+        Metrics.counter(projection + Metrics.PROJECTION_BYTES).add(bytes);
+        Metrics.counter(projection + Metrics.PROJECTION_ARTICLES).add(articles);
+    }
+
+    /**
+     * Count and log a failed request. A cancelled request isn't an error.
+     */
+    private static void countFailure(IOException e, Cancellation cancellation, String message) {
+        if (cancellation != null && cancellation.isCancelled()) {
+            Metrics.counter(Metrics.CANCELLED).increment();
+            Logging.d(LOG_TAG, "Request cancelled");
+        } else {
+            Metrics.counter(Metrics.ERROR_IO).increment();
+            Logging.e(LOG_TAG, message, e);
+        }
+    }
+
+    /**
+     * Fails the next read once the request is cancelled, so the parser stops even if
+     * the whole body is already buffered.
+     */
+    private static final class CancellableInputStream extends FilterInputStream {
+
+        private final Cancellation mCancellation;
+
+        CancellableInputStream(InputStream in, Cancellation cancellation) {
+            super(in);
+            mCancellation = cancellation;
+        }
+
+        @Override
+        public int read() throws IOException {
+            mCancellation.throwIfCancelled();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            mCancellation.throwIfCancelled();
+            return super.read(buffer, offset, length);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,390 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Keeps the requests of the app within the rate limits of its API key: a token bucket for
+ * the requests per second, and a rolling count of the requests of the last 24 hours.
+ * <p>
+ * Requests the user waits for come first. They may wait a moment for a token and use the
+ * whole daily budget. Background work leaves some tokens and the last part of the daily
+ * budget to them, and is shed sooner. A shed request fails like an unreachable server, so
+ * the callers serve their cached copies.
+ * <p>
+ * The daily count is kept in hourly slots and written to a file when a new hour starts and
+ * every few requests, outside the lock, so it survives process restarts give or take the
+ * last few requests.
+ */
+public final class RequestBudget {
+
+    /**
+     * Who waits for a request.
+     */
+    public enum Priority implements Prioritized {
+        /**
+         * The user waits for the answer, like a refresh of the list or opening an article
+         */
+        USER,
+
+        /**
+         * Nobody waits, like the periodic sync or prefetching
+         */
+        BACKGROUND;
+
+        @Override
+        public Priority getPriority() {
+            return this;
+        }
+    }
+
+    /**
+     * The priority of a request, which may be raised while the request waits for its
+     * budget, like when the user joins a fetch the periodic sync started. A {@link Priority}
+     * is its own fixed one.
+     */
+    public interface Prioritized {
+
+        /**
+         * Returns the priority right now.
+         */
+        Priority getPriority();
+    }
+
+    /**
+     * Limits of a developer key of the guardians API
+     */
+    public static final int DEVELOPER_PER_SECOND = 12;
+    public static final int DEVELOPER_PER_DAY = 5000;
+
+    /**
+     * Share of the daily budget only the user may use
+     */
+    private static final double USER_DAILY_RESERVE = 0.2;
+
+    /**
+     * Share of the tokens background work leaves to the user
+     */
+    private static final double USER_TOKEN_RESERVE = 0.25;
+
+    /**
+     * How long a request may wait for a token before it's shed
+     */
+    private static final long USER_MAX_WAIT_MILLIS = 1000;
+    private static final long BACKGROUND_MAX_WAIT_MILLIS = 2000;
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+    private static final int HOURS_PER_DAY = 24;
+
+    /**
+     * Number of requests after which the daily count is written even within the same hour
+     */
+    static final int SAVE_EVERY_REQUESTS = 10;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int mPerSecond;
+    private final int mPerDay;
+    private final File mStateFile;
+
+    /**
+     * Tokens left in the bucket, and when it was last refilled
+     */
+    private double mTokens;
+    private long mRefilledAt;
+
+    /**
+     * Requests of the last 24 hours by hour, slot {@code hour % 24} counts the given hour
+     */
+    private final int[] mHourly = new int[HOURS_PER_DAY];
+    private long mNewestHour;
+
+    /**
+     * Newest hour and requests granted since the daily count was last handed to be written,
+     * and the number of the last state written, so an older state never overwrites a newer
+     */
+    private long mSavedHour = -1;
+    private int mUnsaved;
+    private long mStatesSaved;
+    private long mStateWritten;
+    private final Object mFileLock = new Object();
+
+    /**
+     * Requests granted and shed, by priority
+     */
+    private final long[] mGranted = new long[Priority.values().length];
+    private final long[] mShed = new long[Priority.values().length];
+
+    /**
+     * Constructs a new {@link RequestBudget}.
+     *
+     * @param perSecond is the number of requests allowed per second
+     * @param perDay    is the number of requests allowed in any 24 hours
+     * @param stateFile keeps the daily count across process restarts, or null
+     */
+    public RequestBudget(int perSecond, int perDay, File stateFile) {
+        mPerSecond = perSecond;
+        mPerDay = perDay;
+        mStateFile = stateFile;
+        mTokens = perSecond;
+        mRefilledAt = System.currentTimeMillis();
+        mNewestHour = mRefilledAt / HOUR_MILLIS;
+        load();
+    }
+
+    /**
+     * Take the budget of one request, waiting for a token if the priority allows. The
+     * priority is read again after every wait, a request raised to {@link Priority#USER}
+     * meanwhile is served as one from then on.
+     *
+     * @param requester    tells the priority of the request
+     * @param cancellation of the request, or null if it can't be cancelled
+     * @return false if the request must not be sent
+     */
+    public boolean acquire(Prioritized requester, Cancellation cancellation) {
+        Priority priority = requester.getPriority();
+        long deadline = System.currentTimeMillis() + maxWaitMillis(priority);
+        while (true) {
+            long now = System.currentTimeMillis();
+            Priority current = requester.getPriority();
+            if (current != priority) {
+                // The new priority waits as long as a request that just started
+                priority = current;
+                deadline = now + maxWaitMillis(priority);
+            }
+            long wait = tryAcquire(priority, now);
+            if (wait == 0) {
+                return true;
+            }
+            if (wait < 0 || now + wait > deadline
+                    || !sleep(wait, cancellation)) {
+                shed(priority);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Take the budget of an optional request, like a hedge, if it's there right away. It
+     * isn't counted as shed otherwise, the caller goes on without it.
+     *
+     * @return false if the request must not be sent
+     */
+    public boolean tryAcquireNow(Prioritized requester) {
+        return tryAcquire(requester.getPriority(), System.currentTimeMillis()) == 0;
+    }
+
+    /**
+     * Take the budget of one request at the given time.
+     *
+     * @return 0 if it was taken, the time until the next token, or -1 if the daily budget
+     * of the priority is used up
+     */
+    long tryAcquire(Priority priority, long now) {
+        String state;
+        long number;
+        synchronized (this) {
+            long wait = grant(priority, now);
+            if (wait != 0 || mStateFile == null
+                    || (mNewestHour == mSavedHour && mUnsaved < SAVE_EVERY_REQUESTS)) {
+                return wait;
+            }
+            state = state();
+            number = ++mStatesSaved;
+            mSavedHour = mNewestHour;
+            mUnsaved = 0;
+        }
+        // The file is written without holding up the other requests
+        write(state, number);
+        return 0;
+    }
+
+    /**
+     * Same as {@link #tryAcquire(Priority, long)} without writing the file, called with the
+     * lock held.
+     */
+    private long grant(Priority priority, long now) {
+        boolean user = priority == Priority.USER;
+        int dailyLimit = user ? mPerDay : (int) (mPerDay * (1 - USER_DAILY_RESERVE));
+        if (usedToday(now) >= dailyLimit) {
+            return -1;
+        }
+
+        refill(now);
+        double needed = user ? 1 : 1 + Math.floor(mPerSecond * USER_TOKEN_RESERVE);
+        if (mTokens < needed) {
+            return Math.max(1, (long) Math.ceil((needed - mTokens) * 1000 / mPerSecond));
+        }
+        mTokens -= 1;
+        mHourly[(int) (mNewestHour % HOURS_PER_DAY)]++;
+        mGranted[priority.ordinal()]++;
+        Metrics.counter(Metrics.BUDGET_GRANTED + name(priority)).increment();
+        mUnsaved++;
+        return 0;
+    }
+
+    /**
+     * Returns the number of requests of the last 24 hours.
+     */
+    public synchronized int usedToday() {
+        return usedToday(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the number of requests of the given priority that were shed.
+     */
+    public synchronized long getShed(Priority priority) {
+        return mShed[priority.ordinal()];
+    }
+
+    @Override
+    public synchronized String toString() {
+        refill(System.currentTimeMillis());
+        StringBuilder text = new StringBuilder(String.format(Locale.US,
+                "today=%d/%d tokens=%.1f/%d", usedToday(System.currentTimeMillis()), mPerDay,
+                mTokens, mPerSecond));
+        for (Priority priority : Priority.values()) {
+            text.append(' ').append(name(priority)).append("=")
+                    .append(mGranted[priority.ordinal()]).append(" granted/")
+                    .append(mShed[priority.ordinal()]).append(" shed");
+        }
+        return text.toString();
+    }
+
+    private synchronized void shed(Priority priority) {
+        mShed[priority.ordinal()]++;
+        Metrics.counter(Metrics.BUDGET_SHED + name(priority)).increment();
+    }
+
+    private void refill(long now) {
+        if (now > mRefilledAt) {
+            mTokens = Math.min(mPerSecond, mTokens + (now - mRefilledAt) * mPerSecond / 1000.0);
+            mRefilledAt = now;
+        }
+    }
+
+    /**
+     * Returns the requests of the 24 hours up to now, after dropping the hours that fell
+     * out of the window.
+     */
+    private int usedToday(long now) {
+        long hour = now / HOUR_MILLIS;
+        if (hour > mNewestHour) {
+            long passed = Math.min(HOURS_PER_DAY, hour - mNewestHour);
+            for (long h = 1; h <= passed; h++) {
+                mHourly[(int) ((mNewestHour + h) % HOURS_PER_DAY)] = 0;
+            }
+            mNewestHour = hour;
+        }
+        int used = 0;
+        for (int count : mHourly) {
+            used += count;
+        }
+        return used;
+    }
+
+    private static long maxWaitMillis(Priority priority) {
+        return priority == Priority.USER ? USER_MAX_WAIT_MILLIS : BACKGROUND_MAX_WAIT_MILLIS;
+    }
+
+    private static String name(Priority priority) {
+        return priority.name().toLowerCase(Locale.US);
+    }
+
+    /**
+     * Wait for a token. Returns false if the caller was cancelled or interrupted meanwhile.
+     */
+    private static boolean sleep(long millis, Cancellation cancellation) {
+        final CountDownLatch wakeUp = new CountDownLatch(1);
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                wakeUp.countDown();
+            }
+        };
+        if (cancellation != null) {
+            cancellation.addListener(listener);
+        }
+        try {
+            wakeUp.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (cancellation != null) {
+                cancellation.removeListener(listener);
+            }
+        }
+        return cancellation == null || !cancellation.isCancelled();
+    }
+
+    /**
+     * Returns the newest hour and the hourly counts, one line.
+     */
+    private String state() {
+        StringBuilder state = new StringBuilder(Long.toString(mNewestHour));
+        for (int count : mHourly) {
+            state.append(' ').append(count);
+        }
+        return state.toString();
+    }
+
+    /**
+     * Write the state to the file, unless a newer one was written meanwhile.
+     *
+     * @param number of the state, states are numbered in the order they were taken
+     */
+    private void write(String state, long number) {
+        synchronized (mFileLock) {
+            if (number <= mStateWritten) {
+                return;
+            }
+            mStateWritten = number;
+            File tmp = new File(mStateFile.getPath() + ".tmp");
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), UTF_8)) {
+                out.write(state);
+            } catch (IOException e) {
+                tmp.delete();
+                return;
+            }
+            if (!tmp.renameTo(mStateFile)) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private void load() {
+        if (mStateFile == null || !mStateFile.isFile()) {
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(mStateFile), UTF_8))) {
+            String line = in.readLine();
+            String[] fields = line != null ? line.trim().split(" ") : new String[0];
+            if (fields.length != HOURS_PER_DAY + 1) {
+                return;
+            }
+            long newestHour = Long.parseLong(fields[0]);
+            for (int i = 0; i < HOURS_PER_DAY; i++) {
+                mHourly[i] = Integer.parseInt(fields[i + 1]);
+            }
+            // The hours that passed since are dropped with the first count
+            mNewestHour = Math.min(newestHour, mNewestHour);
+        } catch (IOException | NumberFormatException e) {
+            Logging.w(RequestBudget.class.getSimpleName(), "Ignoring the request budget state: "
+                    + e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+
+/**
+ * How often and when a failed request is tried again, and when a slow one gets a second,
+ * hedged request.
+ * <p>
+ * Retries wait an exponentially growing, randomly jittered delay ("full jitter"), so clients
+ * that failed together don't all come back at the same moment. A Retry-After sent by the
+ * server is honored if it's short enough to wait for, otherwise the request gives up and
+ * the {@link CircuitBreaker} keeps the following requests away until then.
+ */
+public final class RetryPolicy {
+
+    /**
+     * Hedge after the 95th percentile of the measured response latency
+     */
+    public static final long HEDGE_AT_P95 = -1;
+
+    /**
+     * Never hedge
+     */
+    public static final long NO_HEDGE = 0;
+
+    /**
+     * Three attempts in about a second and a half at most, hedged at the 95th percentile
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 250, 2000, HEDGE_AT_P95);
+
+    /**
+     * Latencies measured before the percentile is trusted for hedging
+     */
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    /**
+     * Never hedge sooner than this, a fast network doesn't need it
+     */
+    private static final long MIN_HEDGE_DELAY_MILLIS = 100;
+
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+    private final long mHedgeDelayMillis;
+    private final Random mRandom = new Random();
+
+    /**
+     * Constructs a new {@link RetryPolicy}.
+     *
+     * @param maxAttempts      is the number of attempts including the first one
+     * @param baseDelayMillis  is the upper bound of the delay before the first retry
+     * @param maxDelayMillis   is the longest delay waited before a retry, also for Retry-After
+     * @param hedgeDelayMillis is how long to wait for a response before sending a second
+     *                         request, {@link #HEDGE_AT_P95} or {@link #NO_HEDGE}
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+                       long hedgeDelayMillis) {
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mHedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    /**
+     * Returns the number of attempts including the first one.
+     */
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * Returns how long to wait before the given retry, or -1 if the wait the server asked
+     * for is too long.
+     *
+     * @param retry            is the number of the retry, starting at 1
+     * @param retryAfterMillis is the wait the server asked for, or -1
+     */
+    public long delayMillis(int retry, long retryAfterMillis) {
+        if (retryAfterMillis > mMaxDelayMillis) {
+            return -1;
+        }
+        long ceiling = Math.min(mMaxDelayMillis, mBaseDelayMillis << Math.min(retry - 1, 20));
+        long jittered;
+        synchronized (mRandom) {
+            jittered = (long) (mRandom.nextDouble() * ceiling);
+        }
+        // The circuit breaker stays open for at least a millisecond after a Retry-After,
+        // a retry sent sooner would be refused
+        return Math.max(retryAfterMillis >= 0 ? Math.max(1, retryAfterMillis) : 0, jittered);
+    }
+
+    /**
+     * Returns how long to wait for a response before hedging, or {@link #NO_HEDGE}.
+     */
+    public long hedgeDelayMillis() {
+        if (mHedgeDelayMillis != HEDGE_AT_P95) {
+            return mHedgeDelayMillis;
+        }
+        Metrics.Timer latency = Metrics.timer(Metrics.HTTP_FIRST_BYTE);
+        if (latency.getCount() < MIN_HEDGE_SAMPLES) {
+            return NO_HEDGE;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, latency.getPercentileNanos(0.95) / 1000000);
+    }
+
+    /**
+     * Returns the wait asked for by a Retry-After header, in seconds or as an HTTP date,
+     * or -1 if there is none or it can't be read.
+     */
+    public static long parseRetryAfter(String retryAfter, long now) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, try a date below
+        }
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, format.parse(value).getTime() - now);
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
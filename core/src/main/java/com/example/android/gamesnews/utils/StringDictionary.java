@@ -0,0 +1,66 @@
+package com.example.android.gamesnews.utils;
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Dictionary encoding for strings that repeat a lot, like section and author names: every
+ * distinct string is kept once and referred to by a small int id.
+ * <p>
+ * Adding takes a lock, looking up an id doesn't, so the main thread can read names while
+ * the loaders are adding new ones. Entries are never removed, the whole dictionary is
+ * dropped instead once nothing refers to its ids anymore.
+ */
+public final class StringDictionary {
+
+    /**
+     * Id of null
+     */
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> mIds = new HashMap<>();
+
+    /**
+     * Strings by id. Replaced after every addition, so readers see the new entry.
+     */
+    private volatile String[] mStrings = new String[16];
+    private int mSize;
+
+    /**
+     * Returns the id of the given string, adding it if it's new.
+     */
+    public synchronized int idOf(String string) {
+        if (string == null) {
+            return NONE;
+        }
+        Integer id = mIds.get(string);
+        if (id != null) {
+            return id;
+        }
+        String[] strings = mStrings;
+        if (mSize == strings.length) {
+            strings = Arrays.copyOf(strings, mSize * 2);
+        }
+        strings[mSize] = string;
+        mIds.put(string, mSize);
+        mStrings = strings;
+        return mSize++;
+    }
+
+    /**
+     * Returns the string with the given id, or null for {@link #NONE}.
+     */
+    public String get(int id) {
+        return id == NONE ? null : mStrings[id];
+    }
+
+    /**
+     * Returns the number of distinct strings.
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.android.gamesnews.crawler;
+
+import com.example.android.gamesnews.data.ArticleCache;
+import com.example.android.gamesnews.data.ArticleSink;
+import com.example.android.gamesnews.data.ArticleSource;
+import com.example.android.gamesnews.utils.GuardianUrls;
+import com.example.android.gamesnews.utils.HttpClient;
+import com.example.android.gamesnews.utils.HttpResponse;
+import com.example.android.gamesnews.utils.HttpTransport;
+import com.example.android.gamesnews.utils.QueryUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link Crawler} against a local mock of the guardians API.
+ */
+public class CrawlerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String API_KEY = "test";
+    private static final int PAGES = 3;
+    private static final int THREADS = 2;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private final AtomicInteger mRequests = new AtomicInteger();
+    private final AtomicInteger mRunning = new AtomicInteger();
+    private final AtomicInteger mMaxRunning = new AtomicInteger();
+    private ArticleCache mCache;
+    private ExecutorService mExecutor;
+    private Crawler mCrawler;
+
+    @Before
+    public void setUp() throws IOException {
+        // Failures of earlier tests must not keep the circuit open
+        QueryUtils.circuitBreaker("content.guardianapis.com").reset();
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequests.incrementAndGet();
+                int running = mRunning.incrementAndGet();
+                try {
+                    while (running > mMaxRunning.get()
+                            && !mMaxRunning.compareAndSet(mMaxRunning.get(), running)) {
+                        // retry
+                    }
+                    respond(exchange);
+                } finally {
+                    mRunning.decrementAndGet();
+                }
+            }
+        });
+        mServer.start();
+
+        // Every request goes to the mock server, whatever host the crawler asks for
+        final HttpClient client = new HttpClient(1000, 1000);
+        final int port = mServer.getAddress().getPort();
+        HttpTransport transport = new HttpTransport() {
+            @Override
+            public HttpResponse get(URL url, String etag, String lastModified) throws IOException {
+                return client.get(new URL("http", "127.0.0.1", port, url.getFile()),
+                        etag, lastModified);
+            }
+        };
+
+        mCache = new ArticleCache(mFolder.getRoot(), 1024 * 1024);
+        mExecutor = Executors.newFixedThreadPool(THREADS);
+        mCrawler = new Crawler(new ArticleSource(transport, mCache, ArticleSink.NONE),
+                mExecutor, THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+        mServer.stop(0);
+    }
+
+    @Test
+    public void crawl_cachesEveryPageOfEverySection() throws InterruptedException {
+        Crawler.Summary summary = mCrawler.crawl(API_KEY,
+                Arrays.asList("football", "games"), "newest", 10, 10);
+
+        assertEquals(2 * PAGES, summary.getFetched());
+        assertEquals(0, summary.getFailed());
+        assertEquals(2 * PAGES * 2, summary.getArticles());
+        for (String section : Arrays.asList("football", "games")) {
+            assertNotNull(cached(section, 0));
+            assertNotNull(cached(section, 2));
+            assertNotNull(cached(section, 3));
+        }
+        assertTrue(mMaxRunning.get() <= THREADS);
+    }
+
+    @Test
+    public void crawl_stopsAtMaxPages() throws InterruptedException {
+        Crawler.Summary summary = mCrawler.crawl(API_KEY,
+                Arrays.asList("football"), "newest", 10, 2);
+
+        assertEquals(2, summary.getFetched());
+        assertNull(cached("football", 3));
+    }
+
+    @Test
+    public void crawl_skipsFreshPagesOnTheNextRun() throws InterruptedException {
+        mCrawler.crawl(API_KEY, Arrays.asList("football"), "newest", 10, 10);
+        int requests = mRequests.get();
+
+        Crawler.Summary summary = mCrawler.crawl(API_KEY,
+                Arrays.asList("football"), "newest", 10, 10);
+
+        assertEquals(PAGES, summary.getFresh());
+        assertEquals(requests, mRequests.get());
+    }
+
+    @Test
+    public void crawl_countsFailedSections() throws InterruptedException {
+        Crawler.Summary summary = mCrawler.crawl(API_KEY,
+                Arrays.asList("football", "broken"), "newest", 10, 10);
+
+        assertEquals(PAGES, summary.getFetched());
+        assertEquals(1, summary.getFailed());
+    }
+
+    private ArticleCache.Entry cached(String section, int page) {
+        return mCache.get(ArticleCache.keyFor(
+                GuardianUrls.section(API_KEY, section, "newest", 10, page)));
+    }
+
+    /**
+     * Answer with two articles and the paging fields, or fail for the "broken" section.
+     */
+    private static void respond(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        if (query.contains("section=broken")) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        int page = 1;
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("page=")) {
+                page = Integer.parseInt(parameter.substring("page=".length()));
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\"response\":{\"currentPage\":")
+                .append(page).append(",\"pages\":").append(PAGES).append(",\"results\":[");
+        for (int i = 0; i < 2; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"sectionName\":\"Football\",")
+                    .append("\"webPublicationDate\":\"2019-05-01T10:00:00Z\",")
+                    .append("\"webTitle\":\"Article ").append(page).append('-').append(i)
+                    .append("\",\"webUrl\":\"https://example.com/").append(query.hashCode())
+                    .append('/').append(page).append('/').append(i).append("\"}");
+        }
+        json.append("]}}");
+
+        byte[] body = json.toString().getBytes(UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.utils.HttpClient;
+import com.example.android.gamesnews.utils.HttpResponse;
+import com.example.android.gamesnews.utils.HttpTransport;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.QueryUtils;
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link ArticleBodies} prefetches the bodies of several articles in one request
+ * and serves them compressed from the {@link ArticleBodyStore}.
+ */
+public class ArticleBodiesTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String FIRST = "https://www.theguardian.com/games/2019/may/01/first";
+    private static final String SECOND = "https://www.theguardian.com/games/2019/may/01/second";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private ExecutorService mServerExecutor;
+    private final List<String> mQueries = new CopyOnWriteArrayList<>();
+    private ArticleBodyStore mStore;
+    private ArticleBodies mBodies;
+
+    @Before
+    public void setUp() throws IOException {
+        Metrics.reset();
+        QueryUtils.circuitBreaker("content.guardianapis.com").reset();
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServerExecutor = Executors.newCachedThreadPool();
+        mServer.setExecutor(mServerExecutor);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), "UTF-8");
+                mQueries.add(query);
+                StringBuilder results = new StringBuilder();
+                for (String url : Arrays.asList(FIRST, SECOND)) {
+                    if (query.contains(url.substring(url.indexOf("/games/") + 1))) {
+                        results.append(results.length() > 0 ? "," : "")
+                                .append("{\"webUrl\":\"").append(url).append("\",")
+                                .append("\"fields\":{\"body\":\"").append(body(url))
+                                .append("\"}}");
+                    }
+                }
+                byte[] body = ("{\"response\":{\"results\":[" + results + "]}}").getBytes(UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        mServer.start();
+
+        final HttpClient client = new HttpClient(1000, 5000);
+        final int port = mServer.getAddress().getPort();
+        HttpTransport transport = new HttpTransport() {
+            @Override
+            public HttpResponse get(URL url, String etag, String lastModified) throws IOException {
+                return client.get(new URL("http", "127.0.0.1", port, url.getFile()),
+                        etag, lastModified);
+            }
+        };
+        mStore = new ArticleBodyStore(mFolder.getRoot(), 1024 * 1024);
+        mBodies = new ArticleBodies(transport, mStore, "test");
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+        mServerExecutor.shutdownNow();
+    }
+
+    @Test
+    public void prefetch_fetchesEveryMissingBodyInOneRequest() {
+        assertTrue(mBodies.prefetch(Arrays.asList(FIRST, SECOND), null, Priority.BACKGROUND));
+
+        assertEquals(1, mQueries.size());
+        assertTrue(mQueries.get(0).contains("show-fields=body"));
+        assertEquals(body(FIRST), mBodies.getStored(FIRST));
+        assertEquals(body(SECOND), mBodies.getStored(SECOND));
+
+        // Nothing is missing anymore
+        assertTrue(mBodies.prefetch(Arrays.asList(FIRST, SECOND), null, Priority.BACKGROUND));
+        assertEquals(1, mQueries.size());
+    }
+
+    @Test
+    public void load_fetchesAMissingBodyOnce() {
+        assertNull(mBodies.getStored(FIRST));
+
+        assertEquals(body(FIRST), mBodies.load(FIRST, null));
+        assertEquals(body(FIRST), mBodies.load(FIRST, null));
+
+        assertEquals(1, mQueries.size());
+        assertEquals(1, Metrics.counter(Metrics.BODY_HIT).get());
+    }
+
+    @Test
+    public void store_keepsTheBodiesCompressed() throws IOException {
+        String body = body(FIRST);
+        mStore.put(FIRST, body);
+
+        File[] files = mFolder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        assertTrue(files[0].length() < body.length() / 4);
+        assertEquals(body, new ArticleBodyStore(mFolder.getRoot(), 1024 * 1024).get(FIRST));
+    }
+
+    /**
+     * Returns an HTML body as repetitive as real ones.
+     */
+    private static String body(String url) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            body.append("<p>Paragraph of ").append(url).append("</p>");
+        }
+        return body.toString();
+    }
+}
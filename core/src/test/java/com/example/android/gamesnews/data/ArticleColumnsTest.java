@@ -0,0 +1,104 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link ArticleColumns} and the compact {@link Games} give back what they got.
+ */
+public class ArticleColumnsTest {
+
+    private static final Games FIRST = new Games("Games", "Keza MacDonald",
+            "2019-05-01T10:00:00Z", "First", "https://example.com/1",
+            "https://example.com/1.jpg");
+    private static final Games SECOND = new Games("Games", null,
+            "yesterday", "Second", "https://example.com/2");
+
+    @Test
+    public void games_sharesRepeatedNames() {
+        Games game = new Games("Games", "Keza MacDonald",
+                "2019-05-01T10:00:00Z", "Game", "https://example.com/3");
+        Games other = new Games(new String("Games"), new String("Keza MacDonald"),
+                "2019-05-02T10:00:00Z", "Other", "https://example.com/4");
+
+        assertSame(game.getSection(), other.getSection());
+        assertSame(game.getAuthor(), other.getAuthor());
+        assertEquals("Games", other.getSection());
+        assertEquals(null, SECOND.getAuthor());
+    }
+
+    @Test
+    public void games_ofNewDictionariesEqualTheOldOnes() {
+        Contributor keza = new Contributor("profile/keza-macdonald", "Keza MacDonald");
+        Games before = new Games("Games", "Keza MacDonald", "2019-05-01T10:00:00Z", "First",
+                "https://example.com/1", null, Collections.singletonList(keza));
+        Games.newDictionaries();
+        Games after = new Games("Games", "Keza MacDonald", "2019-05-01T10:00:00Z", "First",
+                "https://example.com/1", null, Collections.singletonList(keza));
+
+        assertEquals(before, after);
+        assertEquals(before.hashCode(), after.hashCode());
+        assertEquals(Collections.singletonList(keza), after.getContributors());
+        assertTrue(ArticleColumns.of(Collections.singletonList(before)).isSameContent(0,
+                ArticleColumns.of(Collections.singletonList(after)), 0));
+    }
+
+    @Test
+    public void games_keepsTheDateAsReceived() {
+        assertEquals("2019-05-01T10:00:00Z", FIRST.getTimeAndDate());
+        assertEquals("yesterday", SECOND.getTimeAndDate());
+        assertEquals(ArticleDateFormatter.UNKNOWN, SECOND.getPublishedMillis());
+    }
+
+    @Test
+    public void formatIso8601_roundTrips() {
+        String[] dates = {"1970-01-01T00:00:00Z", "1969-12-31T23:59:59Z",
+                "2000-02-29T12:34:56Z", "2019-12-31T23:00:00Z", "2100-03-01T00:00:01Z"};
+        for (String date : dates) {
+            assertEquals(date, ArticleDateFormatter.formatIso8601(
+                    ArticleDateFormatter.parseIso8601(date)));
+        }
+    }
+
+    @Test
+    public void of_readsBackEveryColumn() {
+        ArticleColumns columns = ArticleColumns.of(Arrays.asList(FIRST, SECOND));
+
+        assertEquals(2, columns.size());
+        for (int row = 0; row < 2; row++) {
+            Games game = row == 0 ? FIRST : SECOND;
+            assertEquals(game.getSection(), columns.getSection(row));
+            assertEquals(game.getAuthor(), columns.getAuthor(row));
+            assertEquals(game.getPublishedMillis(), columns.getPublishedMillis(row));
+            assertEquals(game.getTimeAndDate(), columns.getTimeAndDate(row));
+            assertSame(game.getTitle(), columns.getTitle(row));
+            assertSame(game.getUrl(), columns.getUrl(row));
+            assertSame(game.getThumbnailUrl(), columns.getThumbnailUrl(row));
+        }
+    }
+
+    @Test
+    public void isSameArticle_comparesTheUrl() {
+        Games renamed = new Games("Games", "Keza MacDonald",
+                "2019-05-01T10:00:00Z", "Renamed", "https://example.com/1");
+        ArticleColumns before = ArticleColumns.of(Arrays.asList(FIRST, SECOND));
+        ArticleColumns after = ArticleColumns.of(Arrays.asList(SECOND, renamed));
+
+        assertTrue(before.isSameArticle(0, after, 1));
+        assertFalse(before.isSameContent(0, after, 1));
+        assertTrue(before.isSameArticle(1, after, 0));
+        assertTrue(before.isSameContent(1, after, 0));
+        assertFalse(before.isSameArticle(0, after, 0));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.utils.Cancellation;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.HttpClient;
+import com.example.android.gamesnews.utils.HttpResponse;
+import com.example.android.gamesnews.utils.HttpTransport;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.QueryUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link ArticleRepository} coalesces and cancels requests, against a local mock
+ * HTTP server that holds its responses until the test releases them.
+ */
+public class ArticleRepositoryTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String URL = "https://content.guardianapis.com/search?section=games";
+    private static final String BODY = "{\"response\":{\"currentPage\":1,\"pages\":1,\"results\":["
+            + "{\"sectionName\":\"Games\",\"webPublicationDate\":\"2019-05-01T10:00:00Z\","
+            + "\"webTitle\":\"Title\",\"webUrl\":\"https://example.com/1\"}]}}";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private final AtomicInteger mRequests = new AtomicInteger();
+    private final CountDownLatch mRequested = new CountDownLatch(1);
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+    private ArticleCache mCache;
+    private ExecutorService mFetchExecutor;
+    private ExecutorService mCallers;
+    private ArticleRepository mRepository;
+
+    @Before
+    public void setUp() throws IOException {
+        Metrics.reset();
+        QueryUtils.circuitBreaker("content.guardianapis.com").reset();
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequests.incrementAndGet();
+                mRequested.countDown();
+                // Send the headers, then hold the body until the test releases it
+                byte[] body = BODY.getBytes(UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.flush();
+                try {
+                    mRelease.await(5, TimeUnit.SECONDS);
+                    out.write(body);
+                    out.close();
+                } catch (InterruptedException | IOException e) {
+                    exchange.close();
+                }
+            }
+        });
+        mServer.start();
+
+        final HttpClient client = new HttpClient(1000, 5000);
+        final int port = mServer.getAddress().getPort();
+        HttpTransport transport = new HttpTransport() {
+            @Override
+            public HttpResponse get(URL url, String etag, String lastModified) throws IOException {
+                return client.get(new URL("http", "127.0.0.1", port, url.getFile()),
+                        etag, lastModified);
+            }
+        };
+
+        mCache = new ArticleCache(mFolder.getRoot(), 1024 * 1024);
+        mFetchExecutor = Executors.newFixedThreadPool(2);
+        mCallers = Executors.newFixedThreadPool(2);
+        mRepository = new ArticleRepository(
+                new ArticleSource(transport, mCache, ArticleSink.NONE), mFetchExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+        mCallers.shutdownNow();
+        mFetchExecutor.shutdownNow();
+        mServer.stop(0);
+    }
+
+    @Test
+    public void fetch_coalescesOverlappingRequests() throws Exception {
+        Future<GamesResponse> first = fetchAsync(null);
+        assertTrue(mRequested.await(5, TimeUnit.SECONDS));
+        Future<GamesResponse> second = fetchAsync(null);
+        awaitCounter(Metrics.COALESCED, 1);
+
+        mRelease.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getGames().size());
+        assertEquals(1, second.get(5, TimeUnit.SECONDS).getGames().size());
+        assertEquals(1, mRequests.get());
+    }
+
+    @Test
+    public void fetch_cancellingTheOnlyCallerAbortsTheRequest() throws Exception {
+        Cancellation cancellation = new Cancellation();
+        Future<GamesResponse> caller = fetchAsync(cancellation);
+        assertTrue(mRequested.await(5, TimeUnit.SECONDS));
+
+        cancellation.cancel();
+
+        // The caller doesn't wait for the request, which stops at its next read
+        assertNull(caller.get(1, TimeUnit.SECONDS).getGames());
+        mRelease.countDown();
+        awaitCounter(Metrics.CANCELLED, 1);
+        assertNull(mRepository.getCached(URL));
+    }
+
+    @Test
+    public void fetch_cancellingOneCallerKeepsTheRequestForTheOther() throws Exception {
+        Cancellation cancellation = new Cancellation();
+        Future<GamesResponse> cancelled = fetchAsync(cancellation);
+        assertTrue(mRequested.await(5, TimeUnit.SECONDS));
+        Future<GamesResponse> kept = fetchAsync(null);
+        awaitCounter(Metrics.COALESCED, 1);
+
+        cancellation.cancel();
+        assertNull(cancelled.get(1, TimeUnit.SECONDS).getGames());
+        mRelease.countDown();
+
+        assertEquals(1, kept.get(5, TimeUnit.SECONDS).getGames().size());
+        assertNotNull(mRepository.getCached(URL));
+        assertEquals(1, mRequests.get());
+    }
+
+    private Future<GamesResponse> fetchAsync(final Cancellation cancellation) {
+        return mCallers.submit(new Callable<GamesResponse>() {
+            @Override
+            public GamesResponse call() {
+                return mRepository.fetch(URL, null, cancellation);
+            }
+        });
+    }
+
+    private static void awaitCounter(String name, long value) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Metrics.counter(name).get() < value) {
+            assertTrue(name + " never reached " + value, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
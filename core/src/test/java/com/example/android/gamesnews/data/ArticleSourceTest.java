@@ -0,0 +1,171 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.GamesResponse;
+import com.example.android.gamesnews.utils.HttpClient;
+import com.example.android.gamesnews.utils.Metrics;
+import com.example.android.gamesnews.utils.QueryUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link ArticleSource} refreshes the first page of a section listed newest first
+ * with a delta, against a local server that answers with fewer articles when asked only
+ * for those since a date.
+ */
+public class ArticleSourceTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String PAGE = body(
+            article("3", "2019-05-01T10:00:00Z"),
+            article("2", "2019-05-01T09:00:00Z"),
+            article("1", "2019-05-01T08:00:00Z"));
+    private static final String DELTA = body(
+            article("4", "2019-05-01T11:00:00Z"),
+            article("3", "2019-05-01T10:00:00Z"));
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private ExecutorService mServerExecutor;
+    private final List<String> mQueries = new CopyOnWriteArrayList<>();
+    private final List<Games> mStored = new CopyOnWriteArrayList<>();
+    private ArticleSource mSource;
+    private String mBaseUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        Metrics.reset();
+        QueryUtils.circuitBreaker("127.0.0.1").reset();
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServerExecutor = Executors.newCachedThreadPool();
+        mServer.setExecutor(mServerExecutor);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), "UTF-8");
+                mQueries.add(query);
+                byte[] body = (query.contains("from-date=") ? DELTA : PAGE).getBytes(UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        mServer.start();
+        mBaseUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?section=games";
+
+        mSource = new ArticleSource(new HttpClient(1000, 5000),
+                new ArticleCache(mFolder.getRoot(), 1024 * 1024), new ArticleSink() {
+            @Override
+            public void upsert(String sectionId, List<Games> games) {
+                mStored.addAll(games);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+        mServerExecutor.shutdownNow();
+    }
+
+    @Test
+    public void fetch_newestFirstPage_asksOnlyForNewArticles() {
+        String url = mBaseUrl + "&order-by=newest&page-size=3";
+        mSource.fetch(url, null);
+        mStored.clear();
+
+        GamesResponse response = mSource.fetch(url, mSource.getCached(url));
+
+        assertEquals(2, mQueries.size());
+        assertTrue(mQueries.get(1).contains("from-date=2019-05-01T10:00:00Z"));
+        assertEquals(urls("4", "3", "2"), urlsOf(response.getGames()));
+        assertEquals(urls("4", "3", "2"), urlsOf(mSource.getCached(url).getGames()));
+        assertEquals(urls("4", "3"), urlsOf(mStored));
+        assertEquals(2, Metrics.counter(Metrics.DELTA_ARTICLES).get());
+    }
+
+    @Test
+    public void fetch_withoutNewArticles_keepsTheCachedPage() {
+        String url = mBaseUrl + "&order-by=newest&page-size=3";
+        mSource.fetch(url, null);
+        mSource.fetch(url, mSource.getCached(url));
+        mStored.clear();
+
+        // The delta only holds articles already cached
+        GamesResponse response = mSource.fetch(url, mSource.getCached(url));
+
+        assertTrue(mQueries.get(2).contains("from-date=2019-05-01T11:00:00Z"));
+        assertEquals(urls("4", "3", "2"), urlsOf(response.getGames()));
+        assertTrue(mStored.isEmpty());
+        assertEquals(1, Metrics.counter(Metrics.CACHE_REVALIDATED).get());
+    }
+
+    @Test
+    public void fetch_byRelevance_requestsTheWholePage() {
+        String url = mBaseUrl + "&order-by=relevance&page-size=3";
+        mSource.fetch(url, null);
+
+        mSource.fetch(url, mSource.getCached(url));
+
+        assertEquals(2, mQueries.size());
+        assertFalse(mQueries.get(1).contains("from-date="));
+        assertEquals(0, Metrics.counter(Metrics.DELTA).get());
+    }
+
+    private static String article(String id, String published) {
+        return "{\"sectionName\":\"Games\",\"webPublicationDate\":\"" + published + "\","
+                + "\"webTitle\":\"Title " + id + "\",\"webUrl\":\"https://example.com/" + id
+                + "\"}";
+    }
+
+    private static String body(String... articles) {
+        StringBuilder body = new StringBuilder(
+                "{\"response\":{\"currentPage\":1,\"pages\":1,\"results\":[");
+        for (int i = 0; i < articles.length; i++) {
+            body.append(i > 0 ? "," : "").append(articles[i]);
+        }
+        return body.append("]}}").toString();
+    }
+
+    private static List<String> urls(String... ids) {
+        List<String> urls = new ArrayList<>();
+        for (String id : ids) {
+            urls.add("https://example.com/" + id);
+        }
+        return urls;
+    }
+
+    private static List<String> urlsOf(List<Games> games) {
+        List<String> urls = new ArrayList<>();
+        for (Games game : games) {
+            urls.add(game.getUrl());
+        }
+        return urls;
+    }
+}
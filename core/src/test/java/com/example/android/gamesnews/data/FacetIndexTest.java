@@ -0,0 +1,110 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests that {@link FacetIndex} counts and lists the articles by every contributor and
+ * section, adding only the new ones.
+ */
+public class FacetIndexTest {
+
+    private static final Contributor KEZA = new Contributor("profile/keza-macdonald",
+            "Keza MacDonald");
+    private static final Contributor KEITH = new Contributor("profile/keithstuart",
+            "Keith Stuart");
+
+    private static final Games REVIEW = game("Games", 1, "review",
+            "Keza MacDonald", Collections.singletonList(KEZA));
+    private static final Games FEATURE = game("Games", 2, "feature",
+            "Keza MacDonald and Keith Stuart", Arrays.asList(KEZA, KEITH));
+    private static final Games COLUMN = game("Technology", 3, "column",
+            "Alex Hern", Collections.<Contributor>emptyList());
+
+    @Test
+    public void add_indexesEveryContributorAndSection() {
+        FacetIndex index = new FacetIndex();
+        assertEquals(3, index.add(Arrays.asList(REVIEW, FEATURE, COLUMN)));
+
+        List<FacetIndex.Facet> authors = index.getFacets(FacetIndex.Kind.AUTHOR);
+        assertEquals(3, authors.size());
+        assertEquals(KEZA.getId(), authors.get(0).getKey());
+        assertEquals("Keza MacDonald", authors.get(0).getName());
+        assertEquals(2, authors.get(0).getCount());
+
+        List<FacetIndex.Facet> sections = index.getFacets(FacetIndex.Kind.SECTION);
+        assertEquals("Games", sections.get(0).getKey());
+        assertEquals(2, sections.get(0).getCount());
+        assertEquals(1, sections.get(1).getCount());
+    }
+
+    @Test
+    public void add_skipsArticlesAlreadyIndexed() {
+        FacetIndex index = new FacetIndex();
+        index.add(Arrays.asList(REVIEW, FEATURE));
+
+        assertEquals(1, index.add(Arrays.asList(REVIEW, FEATURE, COLUMN)));
+        assertEquals(3, index.size());
+        assertEquals(2, index.filter(FacetIndex.Kind.AUTHOR, KEZA.getId()).size());
+    }
+
+    @Test
+    public void filter_listsNewestFirstAndFallsBackToTheByline() {
+        FacetIndex index = new FacetIndex();
+        index.add(Arrays.asList(REVIEW, COLUMN, FEATURE));
+
+        assertEquals(Arrays.asList(FEATURE, REVIEW),
+                index.filter(FacetIndex.Kind.AUTHOR, KEZA.getId()));
+        assertEquals(Collections.singletonList(COLUMN),
+                index.filter(FacetIndex.Kind.AUTHOR, "Alex Hern"));
+        assertEquals(0, index.filter(FacetIndex.Kind.SECTION, "Football").size());
+        assertSame(COLUMN, index.get(COLUMN.getUrl()));
+    }
+
+    @Test
+    public void add_replacesAnArticleThatChanged() {
+        FacetIndex index = new FacetIndex();
+        index.add(Arrays.asList(REVIEW, FEATURE));
+        Games corrected = game("Technology", 1, "review", "Keith Stuart",
+                Collections.singletonList(KEITH));
+
+        assertEquals(1, index.add(Collections.singletonList(corrected)));
+        assertEquals(2, index.size());
+        assertSame(corrected, index.get(REVIEW.getUrl()));
+        assertEquals(Collections.singletonList(FEATURE),
+                index.filter(FacetIndex.Kind.AUTHOR, KEZA.getId()));
+        assertEquals(Arrays.asList(FEATURE, corrected),
+                index.filter(FacetIndex.Kind.AUTHOR, KEITH.getId()));
+        assertEquals(Collections.singletonList(corrected),
+                index.filter(FacetIndex.Kind.SECTION, "Technology"));
+    }
+
+    @Test
+    public void retain_forgetsTheArticlesOfDroppedPages() {
+        FacetIndex index = new FacetIndex();
+        index.add(Arrays.asList(REVIEW, FEATURE, COLUMN));
+
+        assertEquals(2, index.retain(Collections.singletonList(FEATURE)));
+        assertEquals(1, index.size());
+        assertEquals(null, index.get(COLUMN.getUrl()));
+        assertEquals(Collections.singletonList(FEATURE),
+                index.filter(FacetIndex.Kind.AUTHOR, KEZA.getId()));
+        // Authors and sections without articles are gone
+        assertEquals(2, index.getFacets(FacetIndex.Kind.AUTHOR).size());
+        assertEquals(1, index.getFacets(FacetIndex.Kind.SECTION).size());
+    }
+
+    private static Games game(String section, int hour, String path, String author,
+                              List<Contributor> contributors) {
+        return TestArticles.article(section, hour, path, path, author, contributors);
+    }
+}
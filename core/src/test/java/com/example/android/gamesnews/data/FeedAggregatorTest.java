@@ -0,0 +1,126 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link FeedAggregator} merges the sections newest first, lists an article of
+ * several sections once and leaves out the sections that fail or time out.
+ */
+public class FeedAggregatorTest {
+
+    private static final long TIMEOUT_MILLIS = 200;
+
+    private static final Games NEWEST = game("games", 12, "newest");
+    private static final Games SHARED = game("games", 11, "shared");
+    private static final Games OLDEST = game("games", 9, "oldest");
+    private static final Games TECH = game("technology", 10, "tech");
+    private static final Games SHARED_IN_TECH = game("technology", 11, "shared");
+
+    private ExecutorService mExecutor;
+    private ScheduledExecutorService mTimeouts;
+    private FeedAggregator mAggregator;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(2);
+        mTimeouts = Executors.newSingleThreadScheduledExecutor();
+        mAggregator = new FeedAggregator(mExecutor, mTimeouts, TIMEOUT_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+        mTimeouts.shutdownNow();
+    }
+
+    @Test
+    public void fixtures_haveTheirPublicationTimes() {
+        for (Games game : Arrays.asList(NEWEST, SHARED, OLDEST, TECH, SHARED_IN_TECH)) {
+            assertTrue(game.getPublishedMillis() != ArticleDateFormatter.UNKNOWN);
+        }
+        assertTrue(TECH.getPublishedMillis() > OLDEST.getPublishedMillis());
+    }
+
+    @Test
+    public void merge_listsNewestFirstAndEveryUrlOnce() {
+        List<Games> merged = FeedAggregator.merge(Arrays.asList(
+                Arrays.asList(NEWEST, SHARED, OLDEST),
+                Arrays.asList(SHARED_IN_TECH, TECH),
+                Collections.<Games>emptyList()));
+
+        // Either copy of the shared article may stay, they have the same time
+        assertEquals(Arrays.asList("newest", "shared", "tech", "oldest"), titles(merged));
+    }
+
+    @Test
+    public void fetch_leavesOutTheSectionsThatTimeOutOrFail() throws InterruptedException {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final List<Integer> done = Collections.synchronizedList(new ArrayList<Integer>());
+
+        List<Games> feed = mAggregator.fetch(Arrays.asList("games", "slow", "technology",
+                "broken"), new FeedAggregator.SectionFetcher() {
+            @Override
+            public List<Games> fetch(String section) throws Exception {
+                switch (section) {
+                    case "games":
+                        return Arrays.asList(NEWEST, SHARED, OLDEST);
+                    case "technology":
+                        return Arrays.asList(SHARED_IN_TECH, TECH);
+                    case "slow":
+                        try {
+                            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                            throw e;
+                        }
+                        return Collections.singletonList(game("slow", 13, "late"));
+                    default:
+                        throw new IOException("No such section");
+                }
+            }
+        }, new FeedAggregator.Listener() {
+            @Override
+            public void onPartialFeed(List<Games> feed, int sectionsDone, int sectionsTotal) {
+                assertEquals(4, sectionsTotal);
+                done.add(sectionsDone);
+            }
+        });
+
+        assertEquals(Arrays.asList("newest", "shared", "tech", "oldest"), titles(feed));
+        assertEquals(Arrays.asList(1, 2, 3, 4), done);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    private static List<String> titles(List<Games> games) {
+        List<String> titles = new ArrayList<>(games.size());
+        for (Games game : games) {
+            titles.add(game.getTitle());
+        }
+        return titles;
+    }
+
+    private static Games game(String section, int hour, String path) {
+        return TestArticles.article(section, hour, path, path, "Keza MacDonald",
+                Collections.<Contributor>emptyList());
+    }
+}
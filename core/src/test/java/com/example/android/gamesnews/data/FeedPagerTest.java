@@ -0,0 +1,99 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.Games;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link FeedPager} keeps a bounded window of pages, lists an article of several
+ * pages once and tells whether there are pages before and after the window.
+ */
+public class FeedPagerTest {
+
+    @Test
+    public void putPage_listsAnArticleOfSeveralPagesOnce() {
+        FeedPager pager = new FeedPager(3);
+        pager.putPage(1, games("a", "b"), 3);
+        // The feed moved, "b" slid onto the second page
+        List<Games> games = pager.putPage(2, games("b", "c"), 3);
+
+        assertEquals(Arrays.asList("a", "b", "c"), titles(games));
+        assertEquals(2, pager.getPageOf("https://example.com/c"));
+        assertEquals(1, pager.getPageOf("https://example.com/b"));
+        assertEquals(0, pager.getPageOf("https://example.com/z"));
+    }
+
+    @Test
+    public void putPage_dropsThePageFurthestAway() {
+        FeedPager pager = new FeedPager(2);
+        pager.putPage(1, games("a"), 5);
+        pager.putPage(2, games("b"), 5);
+        pager.putPage(3, games("c"), 5);
+
+        assertEquals(2, pager.getFirstPage());
+        assertEquals(3, pager.getLastPage());
+        assertTrue(pager.hasPreviousPage());
+        assertTrue(pager.hasNextPage());
+
+        // Scrolling back up drops the last page instead
+        pager.putPage(1, games("a"), 5);
+        assertEquals(Arrays.asList("a", "b"), titles(pager.getGames()));
+        assertFalse(pager.hasPreviousPage());
+    }
+
+    @Test
+    public void hasNextPage_isFalseOnTheLastPage() {
+        FeedPager pager = new FeedPager(3);
+        assertFalse(pager.hasNextPage());
+        assertFalse(pager.hasPreviousPage());
+
+        pager.putPage(1, games("a"), 2);
+        assertTrue(pager.hasNextPage());
+        pager.putPage(2, games("b"), 2);
+        assertFalse(pager.hasNextPage());
+        assertEquals(2, pager.getTotalPages());
+    }
+
+    @Test
+    public void trimTo_keepsOnlyTheGivenPage() {
+        FeedPager pager = new FeedPager(3);
+        pager.putPage(1, games("a"), 3);
+        pager.putPage(2, games("b"), 3);
+        pager.putPage(3, games("c"), 3);
+
+        assertEquals(Arrays.asList(1, 3), pager.trimTo(2));
+        assertEquals(Collections.singletonList("b"), titles(pager.getGames()));
+        assertTrue(pager.hasPreviousPage());
+        assertTrue(pager.hasNextPage());
+        assertEquals(Collections.<Integer>emptyList(), pager.trimTo(2));
+
+        pager.clear();
+        assertTrue(pager.isEmpty());
+        assertEquals(0, pager.getFirstPage());
+    }
+
+    private static List<Games> games(String... paths) {
+        Games[] games = new Games[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            games[i] = TestArticles.article("Games", 10, paths[i], paths[i]);
+        }
+        return Arrays.asList(games);
+    }
+
+    private static List<String> titles(List<Games> games) {
+        List<String> titles = new ArrayList<>(games.size());
+        for (Games game : games) {
+            titles.add(game.getTitle());
+        }
+        return titles;
+    }
+}
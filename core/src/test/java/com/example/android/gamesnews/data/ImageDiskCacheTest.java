@@ -0,0 +1,79 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.utils.Cancellation;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that {@link ImageDiskCache} keeps complete images within its size limit.
+ */
+public class ImageDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void put_storesTheImageUntilEvicted() throws IOException {
+        ImageDiskCache cache = new ImageDiskCache(mFolder.getRoot(), 2048);
+
+        File first = cache.put("https://example.com/1.jpg", image(1024), null);
+        assertEquals(1024, first.length());
+        cache.put("https://example.com/2.jpg", image(1024), null);
+        assertNotNull(cache.get("https://example.com/1.jpg"));
+
+        // The second image is now the least recently used
+        cache.put("https://example.com/3.jpg", image(1024), null);
+        assertNotNull(cache.get("https://example.com/1.jpg"));
+        assertNull(cache.get("https://example.com/2.jpg"));
+        assertEquals(2048, cache.size());
+    }
+
+    @Test
+    public void put_whenCancelled_storesNothing() throws IOException {
+        ImageDiskCache cache = new ImageDiskCache(mFolder.getRoot(), 1024 * 1024);
+        final Cancellation cancellation = new Cancellation();
+        InputStream in = new ByteArrayInputStream(new byte[64 * 1024]) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                cancellation.cancel();
+                return super.read(buffer, offset, length);
+            }
+        };
+
+        try {
+            cache.put("https://example.com/1.jpg", in, cancellation);
+            fail("The download wasn't cancelled");
+        } catch (InterruptedIOException expected) {
+            // Expected
+        }
+        assertNull(cache.get("https://example.com/1.jpg"));
+        assertEquals(0, mFolder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void index_survivesARestart() throws IOException {
+        new ImageDiskCache(mFolder.getRoot(), 1024 * 1024)
+                .put("https://example.com/1.jpg", image(100), null);
+
+        ImageDiskCache reopened = new ImageDiskCache(mFolder.getRoot(), 1024 * 1024);
+        assertNotNull(reopened.get("https://example.com/1.jpg"));
+        assertEquals(100, reopened.size());
+    }
+
+    private static InputStream image(int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.Games;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link StoryClusterer} collapses the same story told in several sections, and
+ * only that.
+ */
+public class StoryClustererTest {
+
+    private static final Set<String> NONE = Collections.emptySet();
+
+    private static final Games WORLD = TestArticles.article("World", 3,
+            "Nintendo announces the Switch 2 with a bigger screen", "world/switch");
+    private static final Games GAMES = TestArticles.article("Games", 2,
+            "Nintendo announces Switch 2, with a bigger screen", "games/switch");
+    private static final Games FOOTBALL = TestArticles.article("Football", 1,
+            "Liverpool beat Everton in the Merseyside derby", "football/derby");
+    private static final Games BUSINESS = TestArticles.article("Business", 0,
+            "Nintendo announces the Switch 2 with a much bigger screen!", "business/switch");
+
+    @Test
+    public void collapse_groupsSimilarTitlesUnderTheNewest() {
+        ArticleColumns columns = new StoryClusterer().collapse(
+                Arrays.asList(WORLD, GAMES, FOOTBALL), NONE);
+
+        assertEquals(2, columns.size());
+        assertEquals(WORLD.getUrl(), columns.getUrl(0));
+        assertEquals(1, columns.getRelated(0));
+        assertEquals(FOOTBALL.getUrl(), columns.getUrl(1));
+        assertEquals(0, columns.getRelated(1));
+    }
+
+    @Test
+    public void collapse_showsAnExpandedGroupInFull() {
+        ArticleColumns columns = new StoryClusterer().collapse(
+                Arrays.asList(WORLD, GAMES, FOOTBALL),
+                Collections.singleton(WORLD.getUrl()));
+
+        assertEquals(3, columns.size());
+        assertEquals(GAMES.getUrl(), columns.getUrl(1));
+        assertEquals(0, columns.getRelated(1));
+    }
+
+    @Test
+    public void collapse_addsTheNextPageToTheGroups() {
+        StoryClusterer clusterer = new StoryClusterer();
+        clusterer.collapse(Arrays.asList(WORLD, FOOTBALL), NONE);
+
+        ArticleColumns columns = clusterer.collapse(
+                Arrays.asList(WORLD, GAMES, FOOTBALL, BUSINESS), NONE);
+
+        assertEquals(2, columns.size());
+        assertEquals(2, columns.getRelated(0));
+    }
+
+    @Test
+    public void trim_forgetsTheGroupsUntilTheNextFeed() {
+        StoryClusterer clusterer = new StoryClusterer();
+        clusterer.collapse(Arrays.asList(WORLD, GAMES, FOOTBALL), NONE);
+
+        assertEquals(3, clusterer.trim());
+        assertEquals(0, clusterer.trim());
+        ArticleColumns columns = clusterer.collapse(Arrays.asList(WORLD, GAMES, FOOTBALL), NONE);
+        assertEquals(2, columns.size());
+        assertEquals(1, columns.getRelated(0));
+    }
+
+    @Test
+    public void similarity_estimatesTheOverlapOfTheTitles() {
+        int[] world = StoryClusterer.signature(WORLD.getTitle());
+
+        assertEquals(1.0, StoryClusterer.similarity(world,
+                StoryClusterer.signature("NINTENDO announces the Switch 2 with a bigger screen")),
+                0.0);
+        assertTrue(StoryClusterer.similarity(world,
+                StoryClusterer.signature(GAMES.getTitle())) > 0.6);
+        assertTrue(StoryClusterer.similarity(world,
+                StoryClusterer.signature(FOOTBALL.getTitle())) < 0.2);
+    }
+}
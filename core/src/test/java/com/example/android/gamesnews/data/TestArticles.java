@@ -0,0 +1,40 @@
+package com.example.android.gamesnews.data;
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+import com.example.android.gamesnews.utils.ArticleDateFormatter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Articles for the tests, published on 2019-05-01 at the given hour and found at
+ * {@code https://example.com/} followed by the given path.
+ */
+final class TestArticles {
+
+    private TestArticles() {
+    }
+
+    /**
+     * Returns an article without author or contributors.
+     */
+    static Games article(String section, int hour, String title, String path) {
+        return article(section, hour, title, path, null, Collections.<Contributor>emptyList());
+    }
+
+    /**
+     * Returns an article with the given byline and contributors.
+     */
+    static Games article(String section, int hour, String title, String path, String author,
+                         List<Contributor> contributors) {
+        String published = String.format(Locale.ROOT, "2019-05-01T%02d:00:00Z", hour);
+        Games game = new Games(section, author, published, title, "https://example.com/" + path,
+                null, contributors);
+        if (game.getPublishedMillis() == ArticleDateFormatter.UNKNOWN) {
+            throw new IllegalArgumentException("Not an hour of the day: " + hour);
+        }
+        return game;
+    }
+}
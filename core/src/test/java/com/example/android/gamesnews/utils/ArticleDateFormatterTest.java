@@ -0,0 +1,111 @@
+package com.example.android.gamesnews.utils;
+
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests that {@link ArticleDateFormatter} parses the dates of the API and formats them like
+ * the platform formats would.
+ */
+public class ArticleDateFormatterTest {
+
+    private static final long PUBLISHED = 1543403633000L; // 2018-11-28T11:13:53Z
+
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private static final ArticleDateFormatter.Labels LABELS = new ArticleDateFormatter.Labels() {
+        @Override
+        public String justNow() {
+            return "just now";
+        }
+
+        @Override
+        public String minutesAgo(int minutes) {
+            return minutes + " minutes ago";
+        }
+
+        @Override
+        public String hoursAgo(int hours) {
+            return hours + " hours ago";
+        }
+
+        @Override
+        public String daysAgo(int days) {
+            return days + " days ago";
+        }
+    };
+
+    private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+    @Test
+    public void parseIso8601_readsTheFormsOfTheApi() {
+        assertEquals(PUBLISHED, ArticleDateFormatter.parseIso8601("2018-11-28T11:13:53Z"));
+        assertEquals(PUBLISHED, ArticleDateFormatter.parseIso8601("2018-11-28T11:13:53.123Z"));
+        assertEquals(PUBLISHED, ArticleDateFormatter.parseIso8601("2018-11-28T13:13:53+02:00"));
+        assertEquals(1543363200000L, ArticleDateFormatter.parseIso8601("2018-11-28"));
+    }
+
+    @Test
+    public void parseIso8601_rejectsOtherText() {
+        assertEquals(ArticleDateFormatter.UNKNOWN, ArticleDateFormatter.parseIso8601("28-11-2018"));
+        assertEquals(ArticleDateFormatter.UNKNOWN, ArticleDateFormatter.parseIso8601(""));
+        assertEquals(ArticleDateFormatter.UNKNOWN, ArticleDateFormatter.parseIso8601(null));
+    }
+
+    @Test
+    public void formatIso8601_isTheInverseOfParse() {
+        assertEquals("2018-11-28T11:13:53Z", ArticleDateFormatter.formatIso8601(PUBLISHED));
+        assertEquals("1970-01-01T00:00:00Z", ArticleDateFormatter.formatIso8601(0));
+        assertEquals("2020-02-29T23:59:59Z", ArticleDateFormatter.formatIso8601(
+                ArticleDateFormatter.parseIso8601("2020-02-29T23:59:59Z")));
+        assertEquals("1969-12-31T23:59:59Z", ArticleDateFormatter.formatIso8601(-1000));
+    }
+
+    @Test
+    public void formatDateAndTime_matchThePlatformFormats() {
+        ArticleDateFormatter formatter = new ArticleDateFormatter(Locale.UK, GMT, LABELS);
+        DateFormat date = DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.UK);
+        date.setTimeZone(GMT);
+        DateFormat time = DateFormat.getTimeInstance(DateFormat.SHORT, Locale.UK);
+        time.setTimeZone(GMT);
+
+        assertEquals(date.format(new Date(PUBLISHED)), formatter.formatDate(PUBLISHED));
+        assertEquals(time.format(new Date(PUBLISHED)), formatter.formatTime(PUBLISHED));
+        // Memoized by day and by minute
+        assertSame(formatter.formatDate(PUBLISHED), formatter.formatDate(PUBLISHED + HOUR));
+        assertSame(formatter.formatTime(PUBLISHED), formatter.formatTime(PUBLISHED + 1000));
+    }
+
+    @Test
+    public void formatDate_usesTheDayOfTheTimeZone() {
+        TimeZone tokyo = TimeZone.getTimeZone("Asia/Tokyo");
+        ArticleDateFormatter formatter = new ArticleDateFormatter(Locale.UK, tokyo, LABELS);
+        DateFormat date = DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.UK);
+        date.setTimeZone(tokyo);
+        long lateEvening = ArticleDateFormatter.parseIso8601("2018-11-28T20:00:00Z");
+
+        assertEquals(date.format(new Date(lateEvening)), formatter.formatDate(lateEvening));
+        assertEquals(date.format(new Date(PUBLISHED)), formatter.formatDate(PUBLISHED));
+    }
+
+    @Test
+    public void formatRelative_countsUpToAWeekThenShowsTheDate() {
+        ArticleDateFormatter formatter = new ArticleDateFormatter(Locale.UK, GMT, LABELS);
+
+        assertEquals("just now", formatter.formatRelative(PUBLISHED, PUBLISHED + 30 * 1000));
+        assertEquals("5 minutes ago", formatter.formatRelative(PUBLISHED, PUBLISHED + 5 * MINUTE));
+        assertEquals("3 hours ago", formatter.formatRelative(PUBLISHED, PUBLISHED + 3 * HOUR));
+        assertEquals("6 days ago", formatter.formatRelative(PUBLISHED, PUBLISHED + 6 * DAY));
+        assertEquals(formatter.formatDate(PUBLISHED),
+                formatter.formatRelative(PUBLISHED, PUBLISHED + 8 * DAY));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.android.gamesnews.utils;
+
+import com.example.android.gamesnews.Contributor;
+import com.example.android.gamesnews.Games;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that {@link GamesJsonParser} reads the fields, tags and paging of a search response
+ * and rejects what isn't one.
+ */
+public class GamesJsonParserTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String REVIEW = "{\"sectionName\":\"Games\","
+            + "\"webPublicationDate\":\"2019-05-01T10:00:00Z\",\"webTitle\":\"Review\","
+            + "\"webUrl\":\"https://example.com/review\",\"apiUrl\":\"https://example.com/api\","
+            + "\"fields\":{\"byline\":\"Keza MacDonald\",\"thumbnail\":\"https://example.com/t.jpg\","
+            + "\"body\":\"<p>Body</p>\"},"
+            + "\"tags\":[{\"id\":\"profile/keza-macdonald\",\"type\":\"contributor\","
+            + "\"webTitle\":\"Keza MacDonald\"}]}";
+    private static final String FEATURE = "{\"sectionName\":\"Games\","
+            + "\"webPublicationDate\":\"2019-05-01T09:00:00Z\",\"webTitle\":\"Feature\","
+            + "\"webUrl\":\"https://example.com/feature\",\"fields\":{\"byline\":null},"
+            + "\"tags\":[{\"id\":\"profile/keza-macdonald\",\"type\":\"contributor\","
+            + "\"webTitle\":\"Keza MacDonald\"},"
+            + "{\"id\":\"games/games\",\"type\":\"keyword\",\"webTitle\":\"Games\"},"
+            + "{\"id\":\"profile/keithstuart\",\"type\":\"contributor\","
+            + "\"webTitle\":\"Keith Stuart\"}]}";
+    private static final String NEWS = "{\"sectionName\":\"Technology\","
+            + "\"webPublicationDate\":\"2019-05-01T08:00:00Z\",\"webTitle\":\"News\","
+            + "\"webUrl\":\"https://example.com/news\"}";
+
+    @Test
+    public void parse_readsTheFieldsOfEveryResult() throws IOException {
+        List<Games> games = GamesJsonParser.parse(stream(response(2, 5, REVIEW, NEWS)));
+
+        assertEquals(2, games.size());
+        Games review = games.get(0);
+        assertEquals("Games", review.getSection());
+        assertEquals("Review", review.getTitle());
+        assertEquals("https://example.com/review", review.getUrl());
+        assertEquals("https://example.com/t.jpg", review.getThumbnailUrl());
+        assertEquals("2019-05-01T10:00:00Z", review.getTimeAndDate());
+        assertEquals(ArticleDateFormatter.parseIso8601("2019-05-01T10:00:00Z"),
+                review.getPublishedMillis());
+
+        Games news = games.get(1);
+        assertNull(news.getAuthor());
+        assertNull(news.getThumbnailUrl());
+        assertEquals(0, news.getContributors().size());
+    }
+
+    @Test
+    public void parse_prefersTheBylineAndFallsBackToEveryContributor() throws IOException {
+        List<Games> games = GamesJsonParser.parse(stream(response(1, 1, REVIEW, FEATURE)));
+
+        assertEquals("Keza MacDonald", games.get(0).getAuthor());
+        assertEquals("Keza MacDonald, Keith Stuart", games.get(1).getAuthor());
+    }
+
+    @Test
+    public void parse_keepsEveryContributorTagAndSkipsTheOthers() throws IOException {
+        Games feature = GamesJsonParser.parse(stream(response(1, 1, FEATURE))).get(0);
+
+        assertEquals(Arrays.asList(
+                new Contributor("profile/keza-macdonald", "Keza MacDonald"),
+                new Contributor("profile/keithstuart", "Keith Stuart")),
+                feature.getContributors());
+        assertEquals(feature.getContributors(),
+                Contributor.split(Contributor.join(feature.getContributors())));
+    }
+
+    @Test
+    public void parse_reportsThePagingAndTheBodies() throws IOException {
+        final int[] paging = new int[2];
+        final List<Games> games = new ArrayList<>();
+        final Map<String, String> bodies = new HashMap<>();
+        GamesJsonParser.parse(stream(response(2, 5, REVIEW, NEWS)),
+                new GamesJsonParser.Callback() {
+                    @Override
+                    public void onGame(Games game) {
+                        games.add(game);
+                    }
+
+                    @Override
+                    public void onPage(int currentPage, int pages) {
+                        paging[0] = currentPage;
+                        paging[1] = pages;
+                    }
+                }, new GamesJsonParser.BodyCallback() {
+                    @Override
+                    public void onBody(String url, String body) {
+                        bodies.put(url, body);
+                    }
+                });
+
+        assertEquals(2, games.size());
+        assertEquals(2, paging[0]);
+        assertEquals(5, paging[1]);
+        assertEquals(1, bodies.size());
+        assertEquals("<p>Body</p>", bodies.get("https://example.com/review"));
+    }
+
+    @Test
+    public void parse_rejectsMalformedOrForeignInput() {
+        String response = response(1, 1, REVIEW, NEWS);
+        assertRejected(response.substring(0, response.length() - 3));
+        assertRejected("<html><body>Sign in</body></html>");
+        assertRejected("{\"message\":\"Unauthorized\"}");
+        assertRejected("{\"response\":{\"results\":[{\"webTitle\":[1]}]}}");
+    }
+
+    private static void assertRejected(String json) {
+        try {
+            GamesJsonParser.parse(stream(json));
+            fail("Parsed " + json);
+        } catch (IOException e) {
+            assertTrue(e.getMessage() != null);
+        }
+    }
+
+    private static String response(int currentPage, int pages, String... results) {
+        StringBuilder json = new StringBuilder("{\"response\":{\"status\":\"ok\",\"currentPage\":")
+                .append(currentPage).append(",\"pages\":").append(pages).append(",\"results\":[");
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(results[i]);
+        }
+        return json.append("]}}").toString();
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(UTF_8));
+    }
+}
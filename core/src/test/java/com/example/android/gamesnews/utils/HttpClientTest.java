@@ -0,0 +1,125 @@
+package com.example.android.gamesnews.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link HttpClient} against a local mock HTTP server.
+ */
+public class HttpClientTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String ETAG = "\"v1\"";
+    private static final String BODY = "{\"response\":{\"results\":[]}}";
+
+    private HttpServer mServer;
+    private final Set<Integer> mClientPorts = new HashSet<>();
+    private HttpClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                synchronized (mClientPorts) {
+                    mClientPorts.add(exchange.getRemoteAddress().getPort());
+                }
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] body = BODY.getBytes(UTF_8);
+                if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+                    gzip.write(body);
+                    gzip.close();
+                    body = compressed.toByteArray();
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        mServer.start();
+        mClient = new HttpClient(1000, 1000);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+    }
+
+    @Test
+    public void get_decompressesGzipBody() throws IOException {
+        HttpClient.Response response = mClient.get(url(), null, null);
+        try {
+            assertTrue(response.isSuccessful());
+            assertEquals(BODY, read(response.getBody()));
+            assertEquals(ETAG, response.getEtag());
+        } finally {
+            response.close();
+        }
+        assertTrue(response.getBytesReceived() > 0);
+        assertTrue(response.getElapsedMillis() >= 0);
+    }
+
+    @Test
+    public void get_withMatchingEtag_isNotModified() throws IOException {
+        HttpClient.Response response = mClient.get(url(), ETAG, null);
+        response.close();
+        assertTrue(response.isNotModified());
+        assertFalse(response.isSuccessful());
+        assertEquals(0, response.getBytesReceived());
+    }
+
+    @Test
+    public void get_reusesConnection() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            HttpClient.Response response = mClient.get(url(), null, null);
+            read(response.getBody());
+            response.close();
+        }
+        assertEquals(1, mClientPorts.size());
+    }
+
+    private URL url() throws IOException {
+        return new URL("http://127.0.0.1:" + mServer.getAddress().getPort() + "/search");
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
+}
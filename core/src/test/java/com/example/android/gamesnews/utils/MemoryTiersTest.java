@@ -0,0 +1,68 @@
+package com.example.android.gamesnews.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that {@link MemoryTiers} trims every registered tier and counts what they drop.
+ */
+public class MemoryTiersTest {
+
+    private final List<MemoryTiers.Pressure> mTrims = new ArrayList<>();
+
+    private final MemoryTiers.Tier mTier = new MemoryTiers.Tier() {
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public int trim(MemoryTiers.Pressure pressure) {
+            mTrims.add(pressure);
+            return pressure == MemoryTiers.Pressure.CRITICAL ? 5 : 0;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        Metrics.reset();
+        MemoryTiers.register(mTier);
+    }
+
+    @After
+    public void tearDown() {
+        MemoryTiers.unregister(mTier);
+    }
+
+    @Test
+    public void trim_countsEvictionsByTierAndTrimsByPressure() {
+        assertEquals(0, MemoryTiers.trim(MemoryTiers.Pressure.UI_HIDDEN));
+        assertEquals(5, MemoryTiers.trim(MemoryTiers.Pressure.CRITICAL));
+
+        assertEquals(5, Metrics.counter(Metrics.MEMORY_EVICTED + "test").get());
+        assertEquals(1, Metrics.counter(Metrics.MEMORY_TRIM + "ui_hidden").get());
+        assertEquals(1, Metrics.counter(Metrics.MEMORY_TRIM + "critical").get());
+        assertEquals(2, Metrics.timer(Metrics.MEMORY_TRIM_TIME).getCount());
+    }
+
+    @Test
+    public void trim_skipsUnregisteredTiers() {
+        MemoryTiers.unregister(mTier);
+        MemoryTiers.trim(MemoryTiers.Pressure.CRITICAL);
+
+        assertEquals(0, mTrims.size());
+    }
+
+    @Test
+    public void rehydrated_timesTheRestoreByTier() {
+        MemoryTiers.rehydrated("test", System.nanoTime());
+
+        assertEquals(1, Metrics.timer(Metrics.MEMORY_REHYDRATE + "test").getCount());
+    }
+}
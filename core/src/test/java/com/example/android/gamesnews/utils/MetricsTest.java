@@ -0,0 +1,98 @@
+package com.example.android.gamesnews.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link Metrics} registry.
+ */
+public class MetricsTest {
+
+    @Before
+    public void setUp() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void sameNameReturnsSameMetric() {
+        assertSame(Metrics.counter("a"), Metrics.counter("a"));
+        assertSame(Metrics.timer("a"), Metrics.timer("a"));
+    }
+
+    @Test
+    public void timerKeepsCountTotalMaxAndPercentiles() {
+        Metrics.Timer timer = Metrics.timer("t");
+        for (int i = 0; i < 99; i++) {
+            timer.record(1000000); // 1 ms
+        }
+        timer.record(100000000); // 100 ms
+
+        assertEquals(100, timer.getCount());
+        assertEquals(199000000L, timer.getTotalNanos());
+        assertEquals(100000000L, timer.getMaxNanos());
+        // Bucket bounds are powers of two microseconds
+        assertEquals(1024000L, timer.getPercentileNanos(0.5));
+        assertEquals(1024000L, timer.getPercentileNanos(0.95));
+        assertEquals(100000000L, timer.getPercentileNanos(1.0));
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws InterruptedException {
+        final int threads = 8;
+        final int perThread = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final long duration = t + 1;
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        Metrics.counter("c").increment();
+                        Metrics.timer("t").record(duration);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread, Metrics.counter("c").get());
+        assertEquals(threads * perThread, Metrics.timer("t").getCount());
+        assertEquals(threads, Metrics.timer("t").getMaxNanos());
+    }
+
+    @Test
+    public void dumpListsEveryMetric() {
+        Metrics.counter(Metrics.CACHE_HIT).add(3);
+        Metrics.timer(Metrics.PARSE).record(2000000);
+
+        StringWriter out = new StringWriter();
+        Metrics.dump(new PrintWriter(out));
+        String text = out.toString();
+
+        assertTrue(text, text.contains(Metrics.CACHE_HIT));
+        assertTrue(text, text.contains(" 3"));
+        assertTrue(text, text.contains(Metrics.PARSE));
+        assertTrue(text, text.contains("count=1"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.android.gamesnews.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the page sizes {@link NetworkQuality} picks for measured networks.
+ */
+public class NetworkQualityTest {
+
+    private static final long SECOND_NANOS = 1000000000L;
+
+    private final NetworkQuality mQuality = NetworkQuality.get();
+
+    @Before
+    public void setUp() {
+        mQuality.reset();
+    }
+
+    @Test
+    public void pageSize_withoutMeasurements_isTheFallback() {
+        assertEquals(17, mQuality.pageSize(17, NetworkQuality.MAX_PAGE_SIZE));
+
+        // A 304 has no body, so it only tells the latency
+        mQuality.record(0, 100, 0, 0);
+        assertEquals(17, mQuality.pageSize(17, NetworkQuality.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void pageSize_onFastNetwork_isTheMaximum() {
+        // 1 MB/s, 50 ms latency, 1 KB per article
+        mQuality.record(20 * 1024, 50, 20 * SECOND_NANOS / 1024, 20);
+
+        assertEquals(NetworkQuality.MAX_PAGE_SIZE,
+                mQuality.pageSize(10, NetworkQuality.MAX_PAGE_SIZE));
+        assertEquals(20, mQuality.pageSize(10, 20));
+    }
+
+    @Test
+    public void pageSize_onSlowNetwork_fitsTheTargetTime() {
+        // 20 KB/s, 500 ms latency, 1 KB per article: 1 s left for 20 articles
+        mQuality.record(10 * 1024, 500, SECOND_NANOS / 2, 10);
+
+        assertEquals(20, mQuality.pageSize(10, NetworkQuality.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void pageSize_whenLatencyEatsTheTarget_isTheMinimum() {
+        mQuality.record(10 * 1024, 3000, SECOND_NANOS, 10);
+
+        assertEquals(NetworkQuality.MIN_PAGE_SIZE,
+                mQuality.pageSize(10, NetworkQuality.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void record_followsANetworkChange() {
+        mQuality.record(20 * 1024, 50, 20 * SECOND_NANOS / 1024, 20);
+        for (int i = 0; i < 10; i++) {
+            mQuality.record(10 * 1024, 2000, 5 * SECOND_NANOS, 10);
+        }
+
+        assertTrue(mQuality.pageSize(10, NetworkQuality.MAX_PAGE_SIZE) <= 10);
+    }
+
+    @Test
+    public void projectionOf_listsTheShowParameters() {
+        assertEquals("fields=byline", GuardianUrls.projectionOf(
+                "api-key=x&section=games&show-fields=byline&page-size=10"));
+        assertEquals("tags=contributor", GuardianUrls.projectionOf(
+                "api-key=x&show-tags=contributor"));
+        assertEquals("none", GuardianUrls.projectionOf("api-key=x"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.android.gamesnews.utils;
+
+import com.example.android.gamesnews.utils.RequestBudget.Priority;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the token bucket, the daily quota and the priorities of {@link RequestBudget}.
+ */
+public class RequestBudgetTest {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private long mNow;
+
+    @Before
+    public void setUp() {
+        Metrics.reset();
+        mNow = System.currentTimeMillis();
+    }
+
+    @Test
+    public void tryAcquire_leavesTokensToTheUser() {
+        RequestBudget budget = new RequestBudget(4, 1000, null);
+        mNow = System.currentTimeMillis();
+
+        // One token is kept for the user, who gets it right away
+        assertEquals(0, budget.tryAcquire(Priority.BACKGROUND, mNow));
+        assertEquals(0, budget.tryAcquire(Priority.BACKGROUND, mNow));
+        assertEquals(0, budget.tryAcquire(Priority.BACKGROUND, mNow));
+        assertTrue(budget.tryAcquire(Priority.BACKGROUND, mNow) > 0);
+        assertEquals(0, budget.tryAcquire(Priority.USER, mNow));
+
+        // An empty bucket tells how long until the next token
+        long wait = budget.tryAcquire(Priority.USER, mNow);
+        assertTrue(wait > 0 && wait <= 250);
+        assertEquals(0, budget.tryAcquire(Priority.USER, mNow + wait));
+    }
+
+    @Test
+    public void tryAcquire_shedsBackgroundBeforeTheDailyQuota() {
+        RequestBudget budget = new RequestBudget(100, 10, null);
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals(0, budget.tryAcquire(Priority.BACKGROUND, mNow + i * 1000));
+        }
+        assertEquals(-1, budget.tryAcquire(Priority.BACKGROUND, mNow + 9000));
+        assertEquals(0, budget.tryAcquire(Priority.USER, mNow + 9000));
+        assertEquals(0, budget.tryAcquire(Priority.USER, mNow + 10000));
+        assertEquals(-1, budget.tryAcquire(Priority.USER, mNow + 11000));
+        assertEquals(10, budget.usedToday());
+
+        // A day later the requests have left the window
+        assertEquals(0, budget.tryAcquire(Priority.BACKGROUND, mNow + 25 * HOUR_MILLIS));
+    }
+
+    @Test
+    public void acquire_countsShedRequestsByPriority() {
+        RequestBudget budget = new RequestBudget(100, 1, null);
+
+        assertTrue(budget.acquire(Priority.USER, null));
+        assertFalse(budget.acquire(Priority.USER, null));
+        assertFalse(budget.acquire(Priority.BACKGROUND, null));
+        assertFalse(budget.tryAcquireNow(Priority.BACKGROUND));
+
+        assertEquals(1, budget.getShed(Priority.USER));
+        assertEquals(1, budget.getShed(Priority.BACKGROUND));
+        assertEquals(1, Metrics.counter(Metrics.BUDGET_GRANTED + "user").get());
+        assertEquals(1, Metrics.counter(Metrics.BUDGET_SHED + "background").get());
+    }
+
+    @Test
+    public void acquire_servesARequestRaisedToUserWhileItWaits() {
+        RequestBudget budget = new RequestBudget(4, 1000, null);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(budget.acquire(Priority.USER, null));
+        }
+
+        // Waits for the tokens of a background request once, and is a user's after that
+        final AtomicInteger reads = new AtomicInteger();
+        RequestBudget.Prioritized raised = new RequestBudget.Prioritized() {
+            @Override
+            public Priority getPriority() {
+                return reads.incrementAndGet() <= 2 ? Priority.BACKGROUND : Priority.USER;
+            }
+        };
+
+        assertTrue(budget.acquire(raised, null));
+        assertTrue(reads.get() > 2);
+        assertEquals(5, Metrics.counter(Metrics.BUDGET_GRANTED + "user").get());
+        assertEquals(0, Metrics.counter(Metrics.BUDGET_GRANTED + "background").get());
+    }
+
+    @Test
+    public void usedToday_survivesRestarts() {
+        File state = new File(mFolder.getRoot(), "budget");
+        RequestBudget budget = new RequestBudget(100, 1000, state);
+
+        // The first request of the hour is written right away, the next ones in batches
+        assertTrue(budget.acquire(Priority.USER, null));
+        assertTrue(budget.acquire(Priority.BACKGROUND, null));
+        assertEquals(1, new RequestBudget(100, 1000, state).usedToday());
+
+        for (int i = 2; i <= RequestBudget.SAVE_EVERY_REQUESTS; i++) {
+            assertTrue(budget.acquire(Priority.USER, null));
+        }
+        assertEquals(RequestBudget.SAVE_EVERY_REQUESTS + 1,
+                new RequestBudget(100, 1000, state).usedToday());
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.android.gamesnews.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the retries, circuit breaker and hedging of {@link QueryUtils} against a local
+ * server that fails, rate limits or stalls requests as told.
+ */
+public class ResilienceTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String BODY = "{\"response\":{\"currentPage\":1,\"pages\":1,\"results\":["
+            + "{\"sectionName\":\"Games\",\"webPublicationDate\":\"2019-05-01T10:00:00Z\","
+            + "\"webTitle\":\"Title\",\"webUrl\":\"https://example.com/1\"}]}}";
+
+    private HttpServer mServer;
+    private ExecutorService mServerExecutor;
+    private final HttpClient mClient = new HttpClient(1000, 5000);
+    private final AtomicInteger mRequests = new AtomicInteger();
+
+    /**
+     * What the server does with the next requests, one fault per request. Requests without
+     * a fault get the body.
+     */
+    private final ConcurrentLinkedQueue<Fault> mFaults = new ConcurrentLinkedQueue<>();
+    private String mUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        Metrics.reset();
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 10, 100, RetryPolicy.NO_HEDGE));
+        QueryUtils.circuitBreaker("127.0.0.1").reset();
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServerExecutor = Executors.newCachedThreadPool();
+        mServer.setExecutor(mServerExecutor);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequests.incrementAndGet();
+                Fault fault = mFaults.poll();
+                try {
+                    if (fault != null && fault.mDelayMillis > 0) {
+                        Thread.sleep(fault.mDelayMillis);
+                    }
+                } catch (InterruptedException e) {
+                    exchange.close();
+                    return;
+                }
+                if (fault != null && fault.mCode != 200) {
+                    if (fault.mRetryAfter != null) {
+                        exchange.getResponseHeaders().set("Retry-After", fault.mRetryAfter);
+                    }
+                    exchange.sendResponseHeaders(fault.mCode, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] body = (fault != null && fault.mBody != null ? fault.mBody : BODY)
+                        .getBytes(UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        mServer.start();
+        mUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?section=games";
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setRetryPolicy(null);
+        QueryUtils.circuitBreaker("127.0.0.1").reset();
+        mServer.stop(0);
+        mServerExecutor.shutdownNow();
+    }
+
+    @Test
+    public void fetch_retriesServerErrors() {
+        mFaults.add(new Fault(503, null, 0));
+        mFaults.add(new Fault(500, null, 0));
+
+        assertEquals(1, fetch().getGames().size());
+        assertEquals(3, mRequests.get());
+        assertEquals(2, Metrics.counter(Metrics.RETRY).get());
+    }
+
+    @Test
+    public void fetch_givesUpAfterTheLastAttempt() {
+        for (int i = 0; i < 4; i++) {
+            mFaults.add(new Fault(500, null, 0));
+        }
+
+        assertNull(fetch().getGames());
+        assertEquals(3, mRequests.get());
+    }
+
+    @Test
+    public void fetch_doesNotRetryClientErrors() {
+        mFaults.add(new Fault(404, null, 0));
+
+        assertNull(fetch().getGames());
+        assertEquals(1, mRequests.get());
+        assertFalse(QueryUtils.circuitBreaker("127.0.0.1").isOpen());
+    }
+
+    @Test
+    public void fetch_retriesATruncatedOrForeignBody() {
+        mFaults.add(new Fault(BODY.substring(0, BODY.length() - 3)));
+        mFaults.add(new Fault("<html><body>Sign in to the Wi-Fi</body></html>"));
+
+        assertEquals(1, fetch().getGames().size());
+        assertEquals(3, mRequests.get());
+        assertEquals(1, Metrics.counter(Metrics.ERROR_PARSE).get());
+    }
+
+    @Test
+    public void fetch_whenEveryBodyIsTruncated_fails() {
+        for (int i = 0; i < 3; i++) {
+            mFaults.add(new Fault(BODY.substring(0, BODY.length() - 3)));
+        }
+
+        GamesResponse response = fetch();
+        assertNull(response.getGames());
+        assertNull(response.getEtag());
+    }
+
+    @Test
+    public void fetch_waitsForAShortRetryAfter() {
+        mFaults.add(new Fault(429, "0", 0));
+
+        assertEquals(1, fetch().getGames().size());
+        assertEquals(2, mRequests.get());
+    }
+
+    @Test
+    public void fetch_whenRateLimitedForLong_opensTheCircuit() {
+        mFaults.add(new Fault(429, "60", 0));
+
+        assertNull(fetch().getGames());
+        assertTrue(QueryUtils.circuitBreaker("127.0.0.1").isOpen());
+
+        // Refused without asking the server, callers fall back to their cache
+        assertNull(fetch().getGames());
+        assertEquals(1, mRequests.get());
+        assertEquals(1, Metrics.counter(Metrics.CIRCUIT_OPEN).get());
+    }
+
+    @Test
+    public void fetch_hedgesASlowRequest() {
+        QueryUtils.setRetryPolicy(new RetryPolicy(1, 10, 100, 100));
+        mFaults.add(new Fault(200, null, 3000));
+
+        long start = System.currentTimeMillis();
+        assertEquals(1, fetch().getGames().size());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(2, mRequests.get());
+        assertEquals(1, Metrics.counter(Metrics.HEDGED).get());
+        assertEquals(1, Metrics.counter(Metrics.HEDGE_WON).get());
+    }
+
+    @Test
+    public void circuitBreaker_letsOneTrialThroughAfterTheWait() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 50);
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure(-1);
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure(-1);
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(80);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.onSuccess();
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void parseRetryAfter_readsSecondsAndDates() {
+        assertEquals(120000, RetryPolicy.parseRetryAfter("120", 0));
+        assertEquals(1000, RetryPolicy.parseRetryAfter("Thu, 01 Jan 1970 00:00:01 GMT", 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("soon", 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfter(null, 0));
+    }
+
+    private GamesResponse fetch() {
+        return QueryUtils.fetchGamesData(mClient, mUrl, null, null, null);
+    }
+
+    private static final class Fault {
+        final int mCode;
+        final String mRetryAfter;
+        final long mDelayMillis;
+        final String mBody;
+
+        Fault(int code, String retryAfter, long delayMillis) {
+            mCode = code;
+            mRetryAfter = retryAfter;
+            mDelayMillis = delayMillis;
+            mBody = null;
+        }
+
+        /**
+         * Answers 200 with the given body instead of the usual one.
+         */
+        Fault(String body) {
+            mCode = 200;
+            mRetryAfter = null;
+            mDelayMillis = 0;
+            mBody = body;
+        }
+    }
+}